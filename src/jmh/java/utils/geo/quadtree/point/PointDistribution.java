@@ -0,0 +1,135 @@
+package utils.geo.quadtree.point;
+
+import java.util.Random;
+
+import org.locationtech.jts.geom.Envelope;
+
+/**
+ * 벤치마크에서 사용할 point 데이터의 분포.
+ * <p>
+ * 모든 분포는 한반도 남쪽 영역({@link #EXTENT})의 WGS84 좌표를 생성하며,
+ * 동일한 seed에 대해서는 항상 동일한 데이터를 생성한다.
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+public enum PointDistribution {
+	/** 전체 영역에 고르게 분포된 데이터. */
+	UNIFORM {
+		@Override
+		void generate(Random rand, double[] xs, double[] ys) {
+			for ( int i =0; i < xs.length; ++i ) {
+				xs[i] = uniformX(rand);
+				ys[i] = uniformY(rand);
+			}
+		}
+	},
+	/**
+	 * 주요 도시 주변에 밀집된 POI 형태의 데이터.
+	 * 데이터의 90%는 도시별 인구 비율에 따라 도시 중심 주변에 정규분포로 생성되고,
+	 * 나머지는 전체 영역에 고르게 생성된다.
+	 */
+	CLUSTERED {
+		@Override
+		void generate(Random rand, double[] xs, double[] ys) {
+			for ( int i =0; i < xs.length; ++i ) {
+				generateClustered(rand, xs, ys, i);
+			}
+		}
+	},
+	/**
+	 * 동일 좌표를 공유하는 데이터가 많은 분포 (예: 같은 건물에 입주한 여러 상점).
+	 * {@link #CLUSTERED} 분포로 생성한 위치마다 1 ~ {@link #MAX_DUPLICATES}개의 데이터가
+	 * 같은 좌표를 갖는다. 같은 좌표의 데이터는 분할로 나눌 수 없기 때문에, 중복 갯수는
+	 * 단말 노드의 용량보다 작아야 한다.
+	 */
+	DUPLICATE {
+		@Override
+		void generate(Random rand, double[] xs, double[] ys) {
+			int i = 0;
+			while ( i < xs.length ) {
+				generateClustered(rand, xs, ys, i);
+				
+				int end = Math.min(xs.length, i + 1 + rand.nextInt(MAX_DUPLICATES));
+				for ( int j = i+1; j < end; ++j ) {
+					xs[j] = xs[i];
+					ys[j] = ys[i];
+				}
+				i = end;
+			}
+		}
+	};
+	
+	/** 데이터가 생성되는 영역. */
+	public static final Envelope EXTENT = new Envelope(124.5, 131.0, 33.0, 38.7);
+	/** {@link #DUPLICATE} 분포에서 하나의 좌표를 공유하는 최대 데이터 갯수. */
+	public static final int MAX_DUPLICATES = 16;
+	
+	// 도시별 중심 좌표(x, y), 가중치, 표준편차(도)
+	private static final double[][] CITIES = {
+		{126.978, 37.566, 0.40, 0.08},	// 서울
+		{127.009, 37.275, 0.12, 0.10},	// 수원
+		{126.705, 37.456, 0.08, 0.06},	// 인천
+		{129.075, 35.180, 0.12, 0.07},	// 부산
+		{128.601, 35.871, 0.09, 0.06},	// 대구
+		{127.385, 36.351, 0.06, 0.05},	// 대전
+		{126.853, 35.160, 0.06, 0.05},	// 광주
+		{129.311, 35.539, 0.04, 0.05},	// 울산
+		{126.531, 33.499, 0.03, 0.08},	// 제주
+	};
+	
+	/**
+	 * 주어진 갯수의 데이터를 생성한다.
+	 * 
+	 * @param count	생성할 데이터 갯수
+	 * @param seed	난수 seed
+	 * @return	생성된 데이터 배열. 데이터의 식별자는 배열 내 순번이다.
+	 */
+	public PackedPointValue[] generate(int count, long seed) {
+		double[] xs = new double[count];
+		double[] ys = new double[count];
+		generate(new Random(seed), xs, ys);
+		
+		PackedPointValue[] values = new PackedPointValue[count];
+		for ( int i =0; i < count; ++i ) {
+			values[i] = new PackedPointValue(i, xs[i], ys[i]);
+		}
+		return values;
+	}
+	
+	abstract void generate(Random rand, double[] xs, double[] ys);
+	
+	private static void generateClustered(Random rand, double[] xs, double[] ys, int idx) {
+		if ( rand.nextDouble() < 0.1 ) {
+			xs[idx] = uniformX(rand);
+			ys[idx] = uniformY(rand);
+		}
+		else {
+			double[] city = pickCity(rand);
+			xs[idx] = clamp(city[0] + rand.nextGaussian() * city[3], EXTENT.getMinX(), EXTENT.getMaxX());
+			ys[idx] = clamp(city[1] + rand.nextGaussian() * city[3], EXTENT.getMinY(), EXTENT.getMaxY());
+		}
+	}
+	
+	private static double uniformX(Random rand) {
+		return EXTENT.getMinX() + rand.nextDouble() * EXTENT.getWidth();
+	}
+	
+	private static double uniformY(Random rand) {
+		return EXTENT.getMinY() + rand.nextDouble() * EXTENT.getHeight();
+	}
+	
+	private static double[] pickCity(Random rand) {
+		double r = rand.nextDouble();
+		for ( double[] city: CITIES ) {
+			r -= city[2];
+			if ( r < 0 ) {
+				return city;
+			}
+		}
+		return CITIES[0];
+	}
+	
+	private static double clamp(double v, double min, double max) {
+		return Math.max(min, Math.min(max, v));
+	}
+}
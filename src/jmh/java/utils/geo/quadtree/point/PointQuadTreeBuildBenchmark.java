@@ -0,0 +1,81 @@
+package utils.geo.quadtree.point;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.locationtech.jts.geom.Envelope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@link PointQuadTree} 구성 성능을 측정하는 벤치마크.
+ * <p>
+ * 한번의 수행(operation)마다 주어진 데이터 전체로 새 QuadTree를 구성하며,
+ * 단건 삽입({@link PointQuadTree#insert(PointValue)}), 병렬 삽입
+ * ({@link PointQuadTree#insertAll(java.util.Collection, ForkJoinPool)}),
+ * 일괄 생성({@link PointQuadTree#bulkLoad(Envelope, Iterable, Function, SplitStrategy)})을 비교한다.
+ * 단건 삽입은 단말 노드 분할 비용을 포함한다.
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PointQuadTreeBuildBenchmark {
+	@Param({"UNIFORM", "CLUSTERED", "DUPLICATE"})
+	private PointDistribution m_distribution;
+	
+	@Param({"100000", "1000000"})
+	private int m_count;
+	
+	@Param({"64", "256"})
+	private int m_leafCapacity;
+	
+	private List<PackedPointValue> m_values;
+	private Function<Envelope,PackedPointPartition> m_partSupplier;
+	
+	@Setup
+	public void setup() {
+		m_values = Arrays.asList(m_distribution.generate(m_count, 20240117L));
+		m_partSupplier = PackedPointPartition.supplier(m_leafCapacity);
+	}
+	
+	@Benchmark
+	public PointQuadTree<PackedPointValue,PackedPointPartition> insert() {
+		PointQuadTree<PackedPointValue,PackedPointPartition> tree
+							= new PointQuadTree<>(PointDistribution.EXTENT, m_partSupplier);
+		for ( PackedPointValue value: m_values ) {
+			tree.insert(value);
+		}
+		return tree;
+	}
+	
+	@Benchmark
+	public PointQuadTree<PackedPointValue,PackedPointPartition> insertAll() {
+		PointQuadTree<PackedPointValue,PackedPointPartition> tree
+							= new PointQuadTree<>(PointDistribution.EXTENT, m_partSupplier);
+		tree.insertAll(m_values, ForkJoinPool.commonPool());
+		return tree;
+	}
+	
+	@Benchmark
+	public PointQuadTree<PackedPointValue,PackedPointPartition> bulkLoadMidpoint() {
+		return PointQuadTree.bulkLoad(PointDistribution.EXTENT, m_values, m_partSupplier,
+										SplitStrategy.MIDPOINT);
+	}
+	
+	@Benchmark
+	public PointQuadTree<PackedPointValue,PackedPointPartition> bulkLoadMedian() {
+		return PointQuadTree.bulkLoad(PointDistribution.EXTENT, m_values, m_partSupplier,
+										SplitStrategy.MEDIAN);
+	}
+}
@@ -0,0 +1,70 @@
+package utils.geo.quadtree.point;
+
+import java.lang.ref.Reference;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 분포별로 {@link PointQuadTree}의 point당 메모리 사용량을 측정한다.
+ * <p>
+ * JMH는 할당량({@code -prof gc})만 측정하기 때문에, 구성이 끝난 QuadTree가 유지하는
+ * heap 크기는 GC 전후의 사용량 차이로 별도로 측정한다. 입력 데이터 배열은 QuadTree 구성 전에
+ * 생성되어 측정 기준값에 포함되므로, 측정값은 QuadTree 자체가 차지하는 크기이다.
+ * <p>
+ * 사용법: {@code PointQuadTreeFootprint [count] [leafCapacity]}
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class PointQuadTreeFootprint {
+	private static final long SEED = 20240117L;
+	
+	public static void main(String... args) throws Exception {
+		int count = (args.length > 0) ? Integer.parseInt(args[0]) : 1_000_000;
+		int leafCapacity = (args.length > 1) ? Integer.parseInt(args[1]) : 128;
+		
+		System.out.printf("count=%d, leaf_capacity=%d%n", count, leafCapacity);
+		System.out.printf("%-10s %-8s %10s %8s %8s%n", "dist", "build", "bytes/pt", "leaves", "depth");
+		for ( PointDistribution dist: PointDistribution.values() ) {
+			for ( String build: new String[] {"insert", "bulk"} ) {
+				measure(dist, build, count, leafCapacity);
+			}
+		}
+	}
+	
+	private static void measure(PointDistribution dist, String build, int count, int leafCapacity)
+		throws InterruptedException {
+		List<PackedPointValue> values = Arrays.asList(dist.generate(count, SEED));
+		
+		long base = usedMemory();
+		PointQuadTree<PackedPointValue,PackedPointPartition> tree;
+		if ( build.equals("bulk") ) {
+			tree = PointQuadTree.bulkLoad(PointDistribution.EXTENT, values,
+											PackedPointPartition.supplier(leafCapacity));
+		}
+		else {
+			tree = new PointQuadTree<>(PointDistribution.EXTENT, PackedPointPartition.supplier(leafCapacity));
+			tree.insertAll(values, ForkJoinPool.commonPool());
+		}
+		long used = usedMemory() - base;
+		
+		long leafCount = tree.streamLeafNodes().count();
+		System.out.printf("%-10s %-8s %10.1f %8d %8d%n", dist, build, (double)used / count,
+							leafCount, tree.getDepth());
+		
+		Reference.reachabilityFence(tree);
+		Reference.reachabilityFence(values);
+	}
+	
+	private static long usedMemory() throws InterruptedException {
+		Runtime runtime = Runtime.getRuntime();
+		
+		long used = Long.MAX_VALUE;
+		for ( int i =0; i < 5; ++i ) {
+			System.gc();
+			Thread.sleep(50);
+			used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+		}
+		return used;
+	}
+}
@@ -0,0 +1,90 @@
+package utils.geo.quadtree.point;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link PointQuadTree}의 사각형 질의 지연 시간을 측정하는 벤치마크.
+ * <p>
+ * 질의 사각형은 데이터 영역 대비 면적 비율({@code selectivity})에 맞춘 정사각형으로,
+ * 임의로 선택된 데이터의 좌표를 중심으로 생성된다. 따라서 밀집된 분포에서는 같은 면적
+ * 비율에서도 더 많은 결과가 반환된다. 질의 사각형들은 미리 생성해두고 순서대로 사용한다.
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PointQuadTreeQueryBenchmark {
+	private static final int WINDOW_COUNT = 1024;
+	
+	@Param({"UNIFORM", "CLUSTERED", "DUPLICATE"})
+	private PointDistribution m_distribution;
+	
+	@Param({"1000000"})
+	private int m_count;
+	
+	@Param({"128"})
+	private int m_leafCapacity;
+	
+	@Param({"0.00001", "0.0001", "0.001", "0.01"})
+	private double m_selectivity;
+	
+	private PointQuadTree<PackedPointValue,PackedPointPartition> m_tree;
+	private Envelope[] m_windows;
+	private int m_cursor = 0;
+	
+	@Setup
+	public void setup() {
+		PackedPointValue[] values = m_distribution.generate(m_count, 20240117L);
+		m_tree = PointQuadTree.bulkLoad(PointDistribution.EXTENT, Arrays.asList(values),
+										PackedPointPartition.supplier(m_leafCapacity));
+		
+		Envelope extent = PointDistribution.EXTENT;
+		double half = Math.sqrt(extent.getArea() * m_selectivity) / 2;
+		Random rand = new Random(7);
+		m_windows = new Envelope[WINDOW_COUNT];
+		for ( int i =0; i < WINDOW_COUNT; ++i ) {
+			Coordinate center = values[rand.nextInt(values.length)].getCoordinate();
+			m_windows[i] = new Envelope(center.x - half, center.x + half, center.y - half, center.y + half);
+		}
+	}
+	
+	@Benchmark
+	public void queryVisitor(Blackhole bh) {
+		m_tree.query(nextWindow(), value -> {
+			bh.consume(value);
+			return true;
+		});
+	}
+	
+	@Benchmark
+	public void queryStream(Blackhole bh) {
+		bh.consume(m_tree.query(nextWindow()).toList());
+	}
+	
+	@Benchmark
+	public long count() {
+		return m_tree.count(nextWindow());
+	}
+	
+	private Envelope nextWindow() {
+		Envelope window = m_windows[m_cursor];
+		m_cursor = (m_cursor + 1) % WINDOW_COUNT;
+		
+		return window;
+	}
+}
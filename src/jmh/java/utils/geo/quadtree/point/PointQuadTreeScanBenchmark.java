@@ -0,0 +1,76 @@
+package utils.geo.quadtree.point;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link PointQuadTree}의 전체 순회 성능을 측정하는 벤치마크.
+ * <p>
+ * 단말 노드 체인을 따라가는 순회({@link PointQuadTree#streamLeafNodes()},
+ * {@link PointQuadTree#streamValues()})와 snapshot의 깊이 우선 순회
+ * ({@link PointQuadTreeSnapshot#streamValues()})를 비교한다.
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PointQuadTreeScanBenchmark {
+	@Param({"UNIFORM", "CLUSTERED", "DUPLICATE"})
+	private PointDistribution m_distribution;
+	
+	@Param({"1000000"})
+	private int m_count;
+	
+	@Param({"128"})
+	private int m_leafCapacity;
+	
+	private PointQuadTree<PackedPointValue,PackedPointPartition> m_tree;
+	private PointQuadTreeSnapshot<PackedPointValue,PackedPointPartition> m_snapshot;
+	
+	@Setup
+	public void setup() {
+		PackedPointValue[] values = m_distribution.generate(m_count, 20240117L);
+		m_tree = PointQuadTree.bulkLoad(PointDistribution.EXTENT, Arrays.asList(values),
+										PackedPointPartition.supplier(m_leafCapacity));
+		m_snapshot = m_tree.snapshot();
+	}
+	
+	@Benchmark
+	public long streamLeafNodes() {
+		long count = 0;
+		Iterator<PointLeafNode<PackedPointValue,PackedPointPartition>> iter
+														= m_tree.streamLeafNodes().iterator();
+		while ( iter.hasNext() ) {
+			count += iter.next().getValueCount();
+		}
+		return count;
+	}
+	
+	@Benchmark
+	public void streamValues(Blackhole bh) {
+		Iterator<PackedPointValue> iter = m_tree.streamValues().iterator();
+		while ( iter.hasNext() ) {
+			bh.consume(iter.next());
+		}
+	}
+	
+	@Benchmark
+	public void streamSnapshotValues(Blackhole bh) {
+		Iterator<PackedPointValue> iter = m_snapshot.streamValues().iterator();
+		while ( iter.hasNext() ) {
+			bh.consume(iter.next());
+		}
+	}
+}
@@ -4,7 +4,13 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
 import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.annotation.Nullable;
 
@@ -26,6 +32,7 @@ import org.geotools.data.simple.SimpleFeatureCollection;
 import org.geotools.data.simple.SimpleFeatureIterator;
 import org.geotools.feature.collection.BaseSimpleFeatureCollection;
 import org.geotools.feature.collection.DelegateSimpleFeatureIterator;
+import org.geotools.util.URLs;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.GeometryFactory;
@@ -34,12 +41,22 @@ import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.referencing.FactoryException;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 
+import com.google.common.base.Preconditions;
+
 import utils.Throwables;
 import utils.func.FOption;
 import utils.func.Lazy;
 import utils.func.Try;
 import utils.func.Unchecked;
 import utils.func.UncheckedSupplier;
+import utils.geo.shp.DbfColumnBatch;
+import utils.geo.shp.DbfColumnReader;
+import utils.geo.shp.MappedShpReader;
+import utils.geo.shp.ShpRecord;
+import utils.geo.shp.ShpRecordSpliterator;
+import utils.geo.shp.ShpRecordSpliterator.AttributeMapper;
+import utils.geo.shp.ShpRecordSpliterator.RecordMapper;
+import utils.geo.shp.ShxIndex;
 import utils.geo.util.CRSUtils;
 import utils.stream.FStream;
 import utils.stream.FStreams.AbstractFStream;
@@ -129,7 +146,7 @@ public class Shapefile implements Closeable {
 	 * @return 파일 경로명
 	 */
 	public File getPrjFile() {
-		return new File(m_shpFiles.get(ShpFileType.PRJ));
+		return getFile(ShpFileType.PRJ);
 	}
 	
 	/**
@@ -138,7 +155,7 @@ public class Shapefile implements Closeable {
 	 * @return 파일 경로명
 	 */
 	public File getDbfFile() {
-		return new File(m_shpFiles.get(ShpFileType.DBF));
+		return getFile(ShpFileType.DBF);
 	}
 	
 	/**
@@ -150,6 +167,24 @@ public class Shapefile implements Closeable {
 		return new IndexFile(m_shpFiles, false);
 	}
 	
+	/**
+	 * 본 Shapefile의 레코드별 위치 정보 인덱스를 반환한다.
+	 * '.shx' 파일이 없는 경우는 '.shp' 파일의 레코드 헤더를 읽어 인덱스를 구성한다.
+	 * 
+	 * @return {@link ShxIndex} 객체.
+	 * @throws IOException	인덱스 정보를 읽는 도중 오류가 발생한 경우.
+	 */
+	public ShxIndex readShxIndex() throws IOException {
+		File shxFile = getFile(ShpFileType.SHX);
+		if ( shxFile.exists() ) {
+			return ShxIndex.read(shxFile);
+		}
+		
+		try ( MappedShpReader reader = readMapped() ) {
+			return ShxIndex.build(reader);
+		}
+	}
+	
 	public ShapefileDataStore getDataStore() throws IOException {
 		ShapefileDataStore store = (ShapefileDataStore)FileDataStoreFinder.getDataStore(m_file);
 		store.setCharset(m_charset);
@@ -191,6 +226,38 @@ public class Shapefile implements Closeable {
 		return reader;
 	}
 	
+	/**
+	 * 본 Shapefile의 '.shp' 파일을 memory-map하여 레코드를 읽는 reader를 반환한다.
+	 * <p>
+	 * {@link #read()}와 달리 레코드별 객체나 공간 객체를 생성하지 않으며,
+	 * 공간 객체는 {@link ShpRecord#toGeometry()}를 호출한 경우에만 생성된다.
+	 * 
+	 * @return {@link MappedShpReader} 객체.
+	 * @throws IOException	'.shp' 파일을 여는 도중 오류가 발생한 경우.
+	 */
+	public MappedShpReader readMapped() throws IOException {
+		MappedShpReader reader = MappedShpReader.open(m_file, GEOM_FACT);
+		if ( m_shpHeader == null ) {
+			m_shpHeader = reader.getHeader();
+		}
+		
+		return reader;
+	}
+	
+	/**
+	 * 본 Shapefile 객체에 포함된 레코드들을 접근하는 스트림 객체를 반환한다.
+	 * <p>
+	 * 스트림은 하나의 {@link ShpRecord} 객체를 재사용하기 때문에, 반환된 레코드는
+	 * 다음 레코드를 얻기 전까지만 유효하다.
+	 * 
+	 * @return {@link FStream} 객체.
+	 * @throws IOException	'.shp' 파일을 여는 도중 오류가 발생한 경우.
+	 * @see #readMapped()
+	 */
+	public FStream<ShpRecord> streamRecords() throws IOException {
+		return new ShpRecordStream(readMapped());
+	}
+	
 	/**
 	 * 본 Shapefile 객체 포함된 공간 객체들을 접근하는 스트림 객체를 반환한다.
 	 * 
@@ -202,15 +269,194 @@ public class Shapefile implements Closeable {
 		return new GeometryStream(read());
 	}
 	
+	/**
+	 * 본 Shapefile 객체 포함된 공간 객체들 중에서 MBR이 주어진 영역과 겹치는 공간 객체들을
+	 * 접근하는 스트림 객체를 반환한다.
+	 * 
+	 * @param filter	검색 영역
+	 * @return {@link FStream} 객체.
+	 * @throws IOException	feature 접근을 위해 파일을 읽는 도중 오류가 발생한 경우.
+	 * @see #streamGeometries(Envelope, boolean)
+	 */
+	public FStream<Geometry> streamGeometries(Envelope filter) throws IOException {
+		return streamGeometries(filter, false);
+	}
+	
+	/**
+	 * 본 Shapefile 객체 포함된 공간 객체들 중에서 MBR이 주어진 영역과 겹치는 공간 객체들을
+	 * 접근하는 스트림 객체를 반환한다.
+	 * <p>
+	 * 공간 객체의 실제 형상이 아닌 MBR만을 비교하기 때문에, MBR은 겹치지만 형상은 겹치지 않는
+	 * 공간 객체도 반환된다. 이는 인덱스 사용 여부와 무관하며 {@link #streamFeatures(Envelope, boolean)}와
+	 * 같은 결과를 반환한다.
+	 * <p>
+	 * '.qix' 공간 인덱스 파일이 있거나 {@code createIndex}가 {@code true}인 경우는
+	 * {@link #streamFeatures(Envelope, boolean)}와 같이 인덱스를 이용하여 후보 레코드의 공간 정보만 읽으며,
+	 * '.dbf' 속성 정보는 읽지 않는다. 그렇지 않은 경우는 각 레코드의 MBR을 차례대로 비교하여
+	 * 겹치지 않는 레코드는 공간 정보 본문을 읽지 않고 건너뛴다.
+	 * 
+	 * @param filter	검색 영역
+	 * @param createIndex	'.qix' 공간 인덱스 파일이 없는 경우 새로 생성할지 여부.
+	 * @return {@link FStream} 객체.
+	 * @throws IOException	feature 접근을 위해 파일을 읽는 도중 오류가 발생한 경우.
+	 * @see SimpleFeatureDataStore#of(File, Charset, boolean)
+	 */
+	public FStream<Geometry> streamGeometries(Envelope filter, boolean createIndex) throws IOException {
+		Preconditions.checkArgument(filter != null, "filter is null");
+		
+		if ( createIndex || getFile(ShpFileType.QIX).exists() ) {
+			return new SimpleFeatureStream(SimpleFeatureDataStore.of(m_file, m_charset, createIndex),
+											store -> store.readGeometries(filter))
+							.map(feature -> (Geometry)feature.getDefaultGeometry());
+		}
+		
+		return streamRecords().filter(rec -> rec.intersects(filter))
+								.mapOrThrow(ShpRecord::toGeometry);
+	}
+	
+	/**
+	 * 본 Shapefile 객체 포함된 공간 객체들을 병렬로 읽는 스트림 객체를 반환한다.
+	 * 
+	 * @param splits	레코드 구간을 나눌 최대 갯수.
+	 * @return	병렬 {@link Stream} 객체. 스트림 순서는 레코드 순서와 같다.
+	 * @throws IOException	'.shx' 인덱스를 읽는 도중 오류가 발생한 경우.
+	 * @see #parallelStreamRecords(int, RecordMapper)
+	 */
+	public Stream<Geometry> parallelStreamGeometries(int splits) throws IOException {
+		return parallelStreamRecords(splits, ShpRecord::toGeometry);
+	}
+	
+	/**
+	 * 본 Shapefile 객체 포함된 레코드들을 병렬로 읽어 변환하는 스트림 객체를 반환한다.
+	 * <p>
+	 * '.shx' 인덱스를 이용하여 레코드 구간을 최대 {@code splits}개의 구간으로 나누고,
+	 * 각 구간은 별도의 file channel을 통해 동시에 읽는다. 레코드의 순번
+	 * ({@link ShpRecord#getRecordIndex()})은 '.dbf' 파일의 행 번호와 같다.
+	 * 스트림 사용이 끝나면 {@link Stream#close()}를 호출하여 열린 파일들을 닫아야 한다.
+	 * 
+	 * @param splits	레코드 구간을 나눌 최대 갯수.
+	 * @param mapper	레코드를 스트림 원소로 변환하는 함수.
+	 * @return	병렬 {@link Stream} 객체. 스트림 순서는 레코드 순서와 같다.
+	 * @throws IOException	'.shx' 인덱스를 읽는 도중 오류가 발생한 경우.
+	 */
+	public <T> Stream<T> parallelStreamRecords(int splits, RecordMapper<? extends T> mapper)
+		throws IOException {
+		ShpRecordSpliterator<T> spliterator = new ShpRecordSpliterator<>(m_file, GEOM_FACT, readShxIndex(),
+																		splits, mapper);
+		return StreamSupport.stream(spliterator, true)
+							.onClose(() -> Unchecked.runOrThrowSneakily(spliterator::close));
+	}
+	
+	/**
+	 * 본 Shapefile 객체 포함된 레코드들과 각 레코드의 '.dbf' 속성 정보를 병렬로 읽어 변환하는
+	 * 스트림 객체를 반환한다.
+	 * <p>
+	 * 레코드 구간은 {@link #parallelStreamRecords(int, RecordMapper)}와 같은 방식으로 나누며,
+	 * 각 구간은 자신의 레코드 구간에 해당하는 '.dbf' 행들만 {@link DbfColumnReader#DEFAULT_BATCH_SIZE}개
+	 * 단위로 읽어 레코드와 함께 변환 함수에게 전달한다.
+	 * 스트림 사용이 끝나면 {@link Stream#close()}를 호출하여 열린 파일들을 닫아야 한다.
+	 * 
+	 * @param splits	레코드 구간을 나눌 최대 갯수.
+	 * @param columns	읽을 '.dbf' 컬럼 이름들. 대소문자를 구분하지 않는다.
+	 * @param mapper	레코드와 속성 정보를 스트림 원소로 변환하는 함수.
+	 * @return	병렬 {@link Stream} 객체. 스트림 순서는 레코드 순서와 같다.
+	 * @throws IOException	'.shx' 인덱스나 '.dbf' 헤더를 읽는 도중 오류가 발생한 경우.
+	 */
+	public <T> Stream<T> parallelStreamRecords(int splits, List<String> columns,
+												AttributeMapper<? extends T> mapper) throws IOException {
+		Preconditions.checkArgument(columns != null, "columns is null");
+		
+		DbfColumnReader dbfReader = readColumns(columns.toArray(new String[0]));
+		try {
+			ShpRecordSpliterator<T> spliterator = new ShpRecordSpliterator<>(m_file, GEOM_FACT, readShxIndex(),
+																			splits, dbfReader,
+																			DbfColumnReader.DEFAULT_BATCH_SIZE,
+																			mapper);
+			return StreamSupport.stream(spliterator, true)
+								.onClose(() -> Unchecked.runOrThrowSneakily(spliterator::close))
+								.onClose(() -> Unchecked.runOrThrowSneakily(dbfReader::close));
+		}
+		catch ( IOException | RuntimeException e ) {
+			dbfReader.close();
+			throw e;
+		}
+	}
+	
 	/**
 	 * 본 Shapefile 객체 포함된 각 공간 객체들의 MBR을 접근하는 스트림 객체를 반환한다.
+	 * <p>
+	 * 각 레코드의 헤더와 MBR 부분만 읽고 공간 정보 본문은 읽지 않는다.
+	 * NULL 레코드의 MBR은 null envelope({@link Envelope#isNull()})으로 반환된다.
 	 * 
 	 * @return {@link FStream} 객체.
 	 * @throws IOException	MBR 접근을 위해 파일을 읽는 도중 오류가 발생한 경우.
 	 * @throws ShapefileException MBR 접근을 위해 파일을 읽는 도중 오류가 발생한 경우.
 	 */
 	public FStream<Envelope> streamEnvelopes() throws ShapefileException, IOException {
-		return new EnvelopeStream(read());
+		return streamBounds().map(bounds -> Double.isNaN(bounds[0])
+											? new Envelope()
+											: new Envelope(bounds[0], bounds[2], bounds[1], bounds[3]));
+	}
+	
+	/**
+	 * 본 Shapefile 객체 포함된 각 공간 객체들의 MBR을 {@code double[4]} 배열
+	 * (minX, minY, maxX, maxY)로 접근하는 스트림 객체를 반환한다.
+	 * NULL 레코드의 MBR 값은 {@link Double#NaN}이다.
+	 * 
+	 * @return {@link FStream} 객체.
+	 * @throws IOException	MBR 접근을 위해 파일을 읽는 도중 오류가 발생한 경우.
+	 * @see MappedShpReader#nextBounds(double[], int)
+	 */
+	public FStream<double[]> streamBounds() throws IOException {
+		return new BoundsStream(readMapped());
+	}
+	
+	/**
+	 * 주어진 순번의 레코드부터 차례대로 각 레코드의 MBR을 주어진 배열에 기록한다.
+	 * 레코드별로 4개의 값이 (minX, minY, maxX, maxY) 순서로 기록되며, 배열이 가득 차거나
+	 * 더 이상 레코드가 없을 때까지 읽는다. 시작 레코드는 '.shx' 인덱스를 이용하여 찾는다.
+	 * <p>
+	 * 시작 레코드가 0이 아닌 경우는 호출될 때마다 인덱스를 새로 읽기 때문에, 여러 구간을
+	 * 차례대로 읽는 경우는 {@link #readBounds(ShxIndex, int, double[])}를 사용한다.
+	 * 
+	 * @param start		MBR을 읽을 첫번째 레코드의 순번 (0부터 시작).
+	 * @param bounds	MBR이 기록될 배열
+	 * @return	MBR을 읽은 레코드 갯수
+	 * @throws IOException	MBR 접근을 위해 파일을 읽는 도중 오류가 발생한 경우.
+	 */
+	public int readBounds(int start, double[] bounds) throws IOException {
+		Preconditions.checkArgument(start >= 0, "invalid start record: " + start);
+		
+		if ( start > 0 ) {
+			return readBounds(readShxIndex(), start, bounds);
+		}
+		try ( MappedShpReader reader = readMapped() ) {
+			return reader.nextBounds(bounds, 0, bounds.length / 4);
+		}
+	}
+	
+	/**
+	 * 주어진 인덱스를 이용하여 시작 레코드를 찾고, 이후 레코드들의 MBR을 주어진 배열에 기록한다.
+	 * {@link #readShxIndex()}로 얻은 인덱스를 재사용하면 호출마다 인덱스를 다시 읽지 않는다.
+	 * 
+	 * @param index		{@link #readShxIndex()}로 얻은 레코드 인덱스.
+	 * @param start		MBR을 읽을 첫번째 레코드의 순번 (0부터 시작).
+	 * @param bounds	MBR이 기록될 배열
+	 * @return	MBR을 읽은 레코드 갯수
+	 * @throws IOException	MBR 접근을 위해 파일을 읽는 도중 오류가 발생한 경우.
+	 * @see #readBounds(int, double[])
+	 */
+	public int readBounds(ShxIndex index, int start, double[] bounds) throws IOException {
+		Preconditions.checkArgument(index != null, "ShxIndex is null");
+		Preconditions.checkArgument(start >= 0, "invalid start record: " + start);
+		
+		if ( start >= index.getRecordCount() ) {
+			return 0;
+		}
+		try ( MappedShpReader reader = readMapped() ) {
+			reader.seek(start, index.getOffset(start));
+			return reader.nextBounds(bounds, 0, bounds.length / 4);
+		}
 	}
 	
 	public SimpleFeatureType getSimpleFeatureType() throws IOException {
@@ -224,7 +470,41 @@ public class Shapefile implements Closeable {
 	 * @throws IOException	feature 접근을 위해 파일을 읽는 도중 오류가 발생한 경우.
 	 */
 	public FStream<SimpleFeature> streamFeatures() throws IOException {
-		return new SimpleFeatureStream(m_file, m_charset);
+		return new SimpleFeatureStream(SimpleFeatureDataStore.of(m_file, m_charset), store -> store.read());
+	}
+	
+	/**
+	 * 본 Shapefile 객체 포함된 feature들 중에서 공간 정보의 MBR이 주어진 영역과 겹치는
+	 * feature들을 접근하는 스트림 객체를 반환한다.
+	 * 
+	 * @param filter	검색 영역
+	 * @return {@link FStream} 객체.
+	 * @throws IOException	feature 접근을 위해 파일을 읽는 도중 오류가 발생한 경우.
+	 * @see #streamFeatures(Envelope, boolean)
+	 */
+	public FStream<SimpleFeature> streamFeatures(Envelope filter) throws IOException {
+		return streamFeatures(filter, false);
+	}
+	
+	/**
+	 * 본 Shapefile 객체 포함된 feature들 중에서 공간 정보의 MBR이 주어진 영역과 겹치는
+	 * feature들을 접근하는 스트림 객체를 반환한다.
+	 * <p>
+	 * MBR이 겹치지 않는 레코드는 공간 정보와 '.dbf' 속성 정보를 읽지 않고 건너뛴다.
+	 * '.qix' 공간 인덱스 파일이 있는 경우는 인덱스를 이용하여 후보 레코드만 읽는다.
+	 * 공간 객체의 실제 형상은 비교하지 않기 때문에, MBR은 겹치지만 형상은 겹치지 않는 feature도 반환된다.
+	 * 
+	 * @param filter	검색 영역
+	 * @param createIndex	'.qix' 공간 인덱스 파일이 없는 경우 새로 생성할지 여부.
+	 * @return {@link FStream} 객체.
+	 * @throws IOException	feature 접근을 위해 파일을 읽는 도중 오류가 발생한 경우.
+	 * @see SimpleFeatureDataStore#of(File, Charset, boolean)
+	 */
+	public FStream<SimpleFeature> streamFeatures(Envelope filter, boolean createIndex) throws IOException {
+		Preconditions.checkArgument(filter != null, "filter is null");
+		
+		return new SimpleFeatureStream(SimpleFeatureDataStore.of(m_file, m_charset, createIndex),
+									store -> store.read(filter));
 	}
 	
 	public ShapefileHeader getShpHeader() {
@@ -252,6 +532,44 @@ public class Shapefile implements Closeable {
 		return m_dbfHeader.get();
 	}
 	
+	/**
+	 * '.dbf' 파일에서 주어진 컬럼들만 읽는 reader를 반환한다.
+	 * 
+	 * @param columns	읽을 컬럼 이름들.
+	 * @return {@link DbfColumnReader} 객체.
+	 * @throws IOException	'.dbf' 파일을 여는 도중 오류가 발생한 경우.
+	 */
+	public DbfColumnReader readColumns(String... columns) throws IOException {
+		return DbfColumnReader.open(getDbfFile(), getDbfHeader(), m_charset, Arrays.asList(columns));
+	}
+	
+	/**
+	 * '.dbf' 파일에서 주어진 컬럼들만 {@link DbfColumnReader#DEFAULT_BATCH_SIZE}개 행 단위로
+	 * 읽는 스트림 객체를 반환한다.
+	 * 
+	 * @param columns	읽을 컬럼 이름들.
+	 * @return {@link FStream} 객체.
+	 * @throws IOException	'.dbf' 파일을 여는 도중 오류가 발생한 경우.
+	 */
+	public FStream<DbfColumnBatch> streamColumns(String... columns) throws IOException {
+		return streamColumns(DbfColumnReader.DEFAULT_BATCH_SIZE, columns);
+	}
+	
+	/**
+	 * '.dbf' 파일에서 주어진 컬럼들만 batch 단위로 읽는 스트림 객체를 반환한다.
+	 * 
+	 * @param batchSize	batch별 최대 행 수
+	 * @param columns	읽을 컬럼 이름들.
+	 * @return {@link FStream} 객체.
+	 * @throws IOException	'.dbf' 파일을 여는 도중 오류가 발생한 경우.
+	 * @see #readColumns(String...)
+	 */
+	public FStream<DbfColumnBatch> streamColumns(int batchSize, String... columns) throws IOException {
+		Preconditions.checkArgument(batchSize > 0, "invalid batchSize: " + batchSize);
+		
+		return new ColumnBatchStream(readColumns(columns), batchSize);
+	}
+	
 	/**
 	 * 주어진 공간 feature을 shp 형식의 파일에 저장한다.
 	 * shp 형식에 따라 '.shp', '.dbf' 및 '.prj' 확장자를 같은 파일들이 생성된다.
@@ -341,6 +659,21 @@ public class Shapefile implements Closeable {
 		return m_file.toString();
 	}
 	
+	/**
+	 * 본 Shapefile을 구성하는 주어진 종류의 파일 경로를 반환한다.
+	 * {@link ShpFiles#get(ShpFileType)}는 파일 경로가 아닌 URL 문자열을 반환하기 때문에
+	 * 이를 파일 경로로 변환한다.
+	 */
+	File getFile(ShpFileType type) {
+		try {
+			return URLs.urlToFile(new URL(m_shpFiles.get(type)));
+		}
+		catch ( MalformedURLException e ) {
+			// ShpFiles는 파일 경로로부터 생성되었기 때문에 발생하지 않는다.
+			throw new IllegalStateException("invalid shapefile url: type=" + type, e);
+		}
+	}
+	
 	private DbaseFileHeader readDbfHeader() throws IOException {
 		DbaseFileReader reader = null;
 		try {
@@ -384,10 +717,10 @@ public class Shapefile implements Closeable {
 		}
 	}
 	
-	private static class EnvelopeStream extends AbstractFStream<Envelope> {
-		private final ShapefileReader m_reader;
+	private static class ShpRecordStream extends AbstractFStream<ShpRecord> {
+		private final MappedShpReader m_reader;
 		
-		EnvelopeStream(ShapefileReader reader) {
+		ShpRecordStream(MappedShpReader reader) {
 			m_reader = reader;
 		}
 
@@ -397,15 +730,62 @@ public class Shapefile implements Closeable {
 		}
 
 		@Override
-		public FOption<Envelope> nextInGuard() {
+		public FOption<ShpRecord> nextInGuard() {
 			try {
-				if ( m_reader.hasNext() ) {
-					Record rec = m_reader.nextRecord();
-					return FOption.of(rec.envelope());
-				}
-				else {
-					return FOption.empty();
-				}
+				ShpRecord rec = m_reader.next();
+				return (rec != null) ? FOption.of(rec) : FOption.empty();
+			}
+			catch ( IOException e ) {
+				Throwables.sneakyThrow(e);
+				throw new AssertionError();
+			}
+		}
+	}
+	
+	private static class ColumnBatchStream extends AbstractFStream<DbfColumnBatch> {
+		private final DbfColumnReader m_reader;
+		private final int m_batchSize;
+		
+		ColumnBatchStream(DbfColumnReader reader, int batchSize) {
+			m_reader = reader;
+			m_batchSize = batchSize;
+		}
+
+		@Override
+		protected void closeInGuard() throws Exception {
+			m_reader.close();
+		}
+
+		@Override
+		public FOption<DbfColumnBatch> nextInGuard() {
+			try {
+				DbfColumnBatch batch = m_reader.next(m_batchSize);
+				return (batch != null) ? FOption.of(batch) : FOption.empty();
+			}
+			catch ( IOException e ) {
+				Throwables.sneakyThrow(e);
+				throw new AssertionError();
+			}
+		}
+	}
+	
+	private static class BoundsStream extends AbstractFStream<double[]> {
+		private final MappedShpReader m_reader;
+		
+		BoundsStream(MappedShpReader reader) {
+			m_reader = reader;
+		}
+
+		@Override
+		protected void closeInGuard() throws Exception {
+			m_reader.close();
+		}
+
+		@Override
+		public FOption<double[]> nextInGuard() {
+			try {
+				double[] bounds = new double[4];
+				return m_reader.nextBounds(bounds, 0) ? FOption.of(bounds) : FOption.empty();
 			}
 			catch ( IOException e ) {
 				Throwables.sneakyThrow(e);
@@ -414,13 +794,25 @@ public class Shapefile implements Closeable {
 		}
 	}
 	
+	@FunctionalInterface
+	private interface FeatureReader {
+		public SimpleFeatureCollection read(SimpleFeatureDataStore store) throws IOException;
+	}
+	
 	public static final class SimpleFeatureStream extends AbstractFStream<SimpleFeature> {
 		private final SimpleFeatureDataStore m_sfdStore;
 		private final SimpleFeatureIterator m_iter;
 		
-		private SimpleFeatureStream(File shpFilePath, Charset charset) throws IOException {
-			m_sfdStore = SimpleFeatureDataStore.of(shpFilePath, charset);
-			m_iter = m_sfdStore.read().features();
+		private SimpleFeatureStream(SimpleFeatureDataStore store, FeatureReader reader)
+			throws IOException {
+			m_sfdStore = store;
+			try {
+				m_iter = reader.read(m_sfdStore).features();
+			}
+			catch ( IOException | RuntimeException e ) {
+				m_sfdStore.close();
+				throw e;
+			}
 		}
 
 		@Override
@@ -8,10 +8,18 @@ import java.nio.charset.Charset;
 import java.util.Map;
 
 import org.geotools.data.FileDataStoreFinder;
+import org.geotools.data.Query;
 import org.geotools.data.shapefile.ShapefileDataStore;
 import org.geotools.data.shapefile.ShapefileDataStoreFactory;
 import org.geotools.data.simple.SimpleFeatureCollection;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.filter.FastBBOX;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.locationtech.jts.geom.Envelope;
 import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.GeometryDescriptor;
+import org.opengis.filter.FilterFactory2;
+import org.opengis.filter.spatial.BBOX;
 
 import com.google.common.collect.Maps;
 
@@ -23,6 +31,8 @@ import utils.stream.FStream;
  * @author Kang-Woo Lee (ETRI)
  */
 public class SimpleFeatureDataStore implements Closeable {
+	private static final FilterFactory2 FILTER_FACT = CommonFactoryFinder.getFilterFactory2();
+	
 	private final File m_file;
 	private final Charset m_charset;
 	private final ShapefileDataStore m_sfStore;
@@ -35,6 +45,28 @@ public class SimpleFeatureDataStore implements Closeable {
 		return new SimpleFeatureDataStore(file, charset);
 	}
 	
+	/**
+	 * 공간 인덱스를 사용하도록 설정된 데이터 저장소 객체를 생성한다.
+	 * <p>
+	 * 인덱스 설정은 생성 시점에 한번만 지정되며, 이후 본 객체를 통한 모든 검색에 적용된다.
+	 * 영역 검색({@link #read(Envelope)})에서 '.qix' 공간 인덱스 파일이 있는 경우는
+	 * 인덱스를 이용하여 후보 레코드만 읽는다.
+	 * 
+	 * @param file		'.shp' 파일 경로
+	 * @param charset	'.dbf' 파일의 문자 코드
+	 * @param createIndex	'.qix' 공간 인덱스 파일이 없거나 오래된 경우, 새로 생성할지 여부.
+	 * @return	데이터 저장소 객체
+	 * @throws IOException	데이터 저장소를 여는 도중 오류가 발생한 경우.
+	 */
+	public static SimpleFeatureDataStore of(File file, Charset charset, boolean createIndex)
+		throws IOException {
+		SimpleFeatureDataStore store = new SimpleFeatureDataStore(file, charset);
+		store.m_sfStore.setIndexed(true);
+		store.m_sfStore.setIndexCreationEnabled(createIndex);
+		
+		return store;
+	}
+	
 	private SimpleFeatureDataStore(File file, Charset charset) throws IOException {
 		m_file = file;
 		m_charset = charset;
@@ -62,6 +94,44 @@ public class SimpleFeatureDataStore implements Closeable {
 		return m_sfStore.getFeatureSource().getFeatures();
 	}
 	
+	/**
+	 * 공간 정보의 MBR이 주어진 영역과 겹치는 feature들을 반환한다.
+	 * <p>
+	 * 영역 조건은 shapefile reader까지 전달되기 때문에, 레코드의 MBR이 겹치지 않는 레코드는
+	 * 공간 정보와 '.dbf' 속성 정보를 읽지 않고 건너뛴다. '.qix' 공간 인덱스의 사용 여부는
+	 * 본 객체 생성시 설정을 따른다.
+	 * <p>
+	 * 영역 조건은 공간 정보의 MBR에만 적용되며, 실제 형상과의 교차 여부는 검사하지 않는다.
+	 * 따라서 MBR은 겹치지만 형상은 겹치지 않는 feature도 반환된다.
+	 * 
+	 * @param bounds	검색 영역
+	 * @return	검색된 feature들
+	 * @throws IOException	feature 접근을 위해 파일을 읽는 도중 오류가 발생한 경우.
+	 * @see #of(File, Charset, boolean)
+	 */
+	public SimpleFeatureCollection read(Envelope bounds) throws IOException {
+		GeometryDescriptor geomDesc = getSchema().getGeometryDescriptor();
+		return m_sfStore.getFeatureSource().getFeatures(toBBoxFilter(geomDesc, bounds));
+	}
+	
+	/**
+	 * 공간 정보의 MBR이 주어진 영역과 겹치는 feature들을 공간 정보 속성만 포함하여 반환한다.
+	 * <p>
+	 * {@link #read(Envelope)}와 같이 영역 조건과 '.qix' 공간 인덱스 설정이 적용되며,
+	 * 공간 정보 외의 속성은 요청하지 않기 때문에 '.dbf' 속성 정보는 읽지 않는다.
+	 * 
+	 * @param bounds	검색 영역
+	 * @return	검색된 feature들
+	 * @throws IOException	feature 접근을 위해 파일을 읽는 도중 오류가 발생한 경우.
+	 */
+	public SimpleFeatureCollection readGeometries(Envelope bounds) throws IOException {
+		SimpleFeatureType schema = getSchema();
+		GeometryDescriptor geomDesc = schema.getGeometryDescriptor();
+		Query query = new Query(schema.getTypeName(), toBBoxFilter(geomDesc, bounds),
+								new String[] { geomDesc.getLocalName() });
+		return m_sfStore.getFeatureSource().getFeatures(query);
+	}
+	
 	public static SimpleFeatureDataStore create(File shpFile, SimpleFeatureType type,
 											Charset charset, boolean createIndex)
 		throws IOException {
@@ -82,6 +152,18 @@ public class SimpleFeatureDataStore implements Closeable {
 		return m_file.toString();
 	}
 	
+	/**
+	 * 공간 정보의 MBR이 주어진 영역과 겹치는지만 검사하는 필터를 생성한다.
+	 * {@link FilterFactory2#bbox}로 생성한 필터는 실제 형상과의 교차 여부를 검사하기 때문에,
+	 * 레코드의 MBR만을 비교하는 {@link Shapefile#streamGeometries(Envelope)}와 결과가 같도록
+	 * {@link FastBBOX}를 사용한다.
+	 */
+	private static BBOX toBBoxFilter(GeometryDescriptor geomDesc, Envelope bounds) {
+		return new FastBBOX(FILTER_FACT.property(geomDesc.getLocalName()),
+							new ReferencedEnvelope(bounds, geomDesc.getCoordinateReferenceSystem()),
+							FILTER_FACT);
+	}
+	
 	private static ShapefileDataStore loadDataStore(File file, Charset charset)
 		throws IOException {
 		ShapefileDataStore store = (ShapefileDataStore)FileDataStoreFinder.getDataStore(file);
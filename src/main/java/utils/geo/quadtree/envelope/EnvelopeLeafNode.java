@@ -0,0 +1,195 @@
+package utils.geo.quadtree.envelope;
+
+import java.util.Iterator;
+import java.util.function.Function;
+
+import org.locationtech.jts.geom.Envelope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+import utils.geo.quadtree.EnvelopedValue;
+import utils.geo.quadtree.TooBigValueException;
+import utils.geo.quadtree.point.SplitStrategy;
+import utils.stream.FStream;
+
+/**
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class EnvelopeLeafNode<T extends EnvelopedValue, P extends EnvelopePartition<T>>
+																extends EnvelopeNode<T,P> {
+	private static final Logger s_logger = LoggerFactory.getLogger(EnvelopeLeafNode.class);
+	
+	private final Function<Envelope,P> m_partSupplier;
+	private final P m_partition;
+	
+	public EnvelopeLeafNode(Envelope bounds, Function<Envelope,P> partSupplier) {
+		super(bounds);
+		
+		m_partSupplier = partSupplier;
+		m_partition = partSupplier.apply(bounds);
+	}
+	
+	public P getPartition() {
+		return m_partition;
+	}
+	
+	/**
+	 * 본 단말노드에 저장된 데이터의 갯수를 반환한다.
+	 * 여러 단말노드에 걸친 데이터는 각 단말노드에 중복되어 저장되기 때문에,
+	 * 단말노드들의 데이터 갯수의 합은 실제 데이터 갯수보다 클 수 있다.
+	 * 
+	 * @return	데이터 갯수
+	 */
+	public int getValueCount() {
+		return m_partition.size();
+	}
+	
+	@Override
+	public int getDepth() {
+		return 1;
+	}
+	
+	public FStream<T> values() {
+		return m_partition.values();
+	}
+	
+	public FStream<T> query(Envelope key) {
+		Preconditions.checkArgument(key != null, "search key");
+		
+		if ( getBounds().intersects(key) ) {
+			return m_partition.intersects(key);
+		}
+		else {
+			return FStream.empty();
+		}
+	}
+	
+	boolean insert(T value) throws TooBigValueException {
+		return insert(value, true);
+	}
+	
+	boolean insert(T value, boolean reserveForSpeed) throws TooBigValueException {
+		if ( m_partition.add(value, reserveForSpeed) ) {
+			return true;
+		}
+		else if ( m_partition.size() == 0 ) {
+			// partition이 비어있음에도 불구하고, 입력 값을 삽입할 수 없는 경우는
+			// 입력 값이 너무 큰 값으로 간주한다.
+			throw new TooBigValueException("value=" + value + ", partition=" + m_partition);
+		}
+		else {
+			return false;
+		}
+	}
+	
+	boolean expand() {
+		return m_partition.expand();
+	}
+	
+	/**
+	 * 본 단말노드를 분할하여 주어진 데이터를 삽입할 공간을 확보할 수 있는지 여부를 반환한다.
+	 * <p>
+	 * 분할된 하위 영역은 자신과 겹치는 데이터를 모두 복사받기 때문에, 주어진 데이터와 겹치는
+	 * 하위 영역 중 하나라도 현재 저장된 모든 데이터가 덮는(cover) 경우는 해당 영역을 아무리 더
+	 * 분할하더라도 저장된 데이터가 모든 하위 노드에 복사되어 빈 공간이 생기지 않는다.
+	 * 반면 저장된 데이터가 하위 영역과 겹치기만 하는 경우는 더 깊이 분할하면 분리될 수 있으므로
+	 * 분할 가능한 것으로 판단한다.
+	 * 또한 부동소수점 정밀도 한계로 영역을 더 이상 나눌 수 없는 경우도 분할이 불가능하다.
+	 * 
+	 * @param value	삽입하려는 데이터
+	 * @return	분할 가능 여부
+	 */
+	boolean isSplittable(T value) {
+		Envelope bounds = getBounds();
+		double midX = bounds.getMinX() + bounds.getWidth()/2;
+		double midY = bounds.getMinY() + bounds.getHeight()/2;
+		if ( !(midX > bounds.getMinX() && midX < bounds.getMaxX()
+				&& midY > bounds.getMinY() && midY < bounds.getMaxY()) ) {
+			return false;
+		}
+		
+		Envelope valueEnvl = value.getEnvelope();
+		for ( Envelope quad: SplitStrategy.quadrants(bounds, midX, midY) ) {
+			if ( !quad.intersects(valueEnvl) ) {
+				continue;
+			}
+			
+			int count = 0;
+			Iterator<T> iter = m_partition.values().iterator();
+			while ( iter.hasNext() ) {
+				if ( iter.next().getEnvelope().covers(quad) ) {
+					++count;
+				}
+			}
+			if ( count >= m_partition.size() ) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * 본 단말노드를 4개의 단말노드로 분할하고, 이들을 하위 노드로 하는 non-leaf 노드를 반환한다.
+	 * 저장된 데이터는 겹치는 모든 하위 노드에 삽입된다.
+	 * 
+	 * @return	분할된 non-leaf 노드
+	 */
+	EnvelopeNonLeafNode<T,P> split() {
+		Envelope bounds = getBounds();
+		Envelope[] splits = splitBounds(bounds);
+		
+		@SuppressWarnings("unchecked")
+		EnvelopeLeafNode<T,P>[] childNodes = FStream.of(splits)
+												.map(envl -> new EnvelopeLeafNode<>(envl, m_partSupplier))
+												.toArray(EnvelopeLeafNode.class);
+		
+		Iterator<T> iter = m_partition.values().iterator();
+		while ( iter.hasNext() ) {
+			T v = iter.next();
+			Envelope envl = v.getEnvelope();
+			
+			for ( int i =0; i < childNodes.length; ++i ) {
+				EnvelopeLeafNode<T,P> child = childNodes[i];
+				
+				if ( child.getBounds().intersects(envl) ) {
+					// 본 단말노드의 partition이 확장된 상태였다면 하위 노드도 확장이 필요할 수 있다.
+					while ( !child.insert(v, false) ) {
+						if ( !child.expand() ) {
+							throw new AssertionError("fails to split node: " + this
+													+ " because parition insertion failed");
+						}
+					}
+				}
+			}
+		}
+		
+		if ( s_logger.isDebugEnabled() ) {
+			String details = FStream.of(childNodes)
+									.zipWithIndex()
+									.map(t -> String.format("%d:%d", t.index(), t.value().getValueCount()))
+									.join(", ");
+			s_logger.debug(String.format("splitted: %d -> %s", getValueCount(), details));
+		}
+		
+		return new EnvelopeNonLeafNode<>(bounds, childNodes);
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%s: bounds=%s, partition=%s", getClass().getSimpleName(),
+								getBounds(), m_partition);
+	}
+	
+	/**
+	 * 주어진 영역을 중심점을 기준으로 4개의 사분면으로 분할한다.
+	 */
+	private static Envelope[] splitBounds(Envelope bounds) {
+		double midX = bounds.getMinX() + bounds.getWidth()/2;
+		double midY = bounds.getMinY() + bounds.getHeight()/2;
+		return SplitStrategy.quadrants(bounds, midX, midY);
+	}
+}
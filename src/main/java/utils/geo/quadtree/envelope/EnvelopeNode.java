@@ -0,0 +1,26 @@
+package utils.geo.quadtree.envelope;
+
+import org.locationtech.jts.geom.Envelope;
+
+import utils.Utilities;
+import utils.geo.quadtree.EnvelopedValue;
+
+/**
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+public abstract class EnvelopeNode<T extends EnvelopedValue, P extends EnvelopePartition<T>> {
+	private final Envelope m_bounds;
+	
+	public abstract int getDepth();
+	
+	protected EnvelopeNode(Envelope envl) {
+		Utilities.checkArgument(envl != null, "bounds is null");
+		
+		m_bounds = envl;
+	}
+	
+	public Envelope getBounds() {
+		return m_bounds;
+	}
+}
@@ -0,0 +1,97 @@
+package utils.geo.quadtree.envelope;
+
+import java.util.List;
+
+import org.locationtech.jts.geom.Envelope;
+
+import utils.geo.quadtree.EnvelopedValue;
+import utils.geo.quadtree.TooBigValueException;
+import utils.stream.FStream;
+
+
+/**
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class EnvelopeNonLeafNode<T extends EnvelopedValue, P extends EnvelopePartition<T>>
+																	extends EnvelopeNode<T,P> {
+	private final EnvelopeNode<T,P>[] m_children;
+	
+	@SuppressWarnings("unchecked")
+	EnvelopeNonLeafNode(Envelope bounds, EnvelopeNode<T,P>[] children) {
+		super(bounds);
+		
+		m_children = new EnvelopeNode[children.length];
+		for ( int i =0; i < children.length; ++i ) {
+			m_children[i] = children[i];
+		}
+	}
+	
+	@Override
+	public int getDepth() {
+		return FStream.of(m_children).mapToInt(node -> node.getDepth()).maxValue() + 1;
+	}
+	
+	public EnvelopeNode<T,P>[] getChildrenNode() {
+		return m_children;
+	}
+	
+	public EnvelopeNode<T,P> getChild(int idx) {
+		return m_children[idx];
+	}
+	
+	public void collectIntersectingLeafNodes(final Envelope query,
+												List<EnvelopeLeafNode<T,P>> collecteds) {
+		for ( int i =0; i < m_children.length; ++i ) {
+			EnvelopeNode<T,P> child = m_children[i];
+			if ( child.getBounds().intersects(query) ) {
+				if ( child instanceof EnvelopeLeafNode ) {
+					collecteds.add((EnvelopeLeafNode<T,P>)child);
+				}
+				else {
+					((EnvelopeNonLeafNode<T,P>)child).collectIntersectingLeafNodes(query,
+																			collecteds);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * 현 non-leaf 노드에 주어진 값을 삽입한다.
+	 * 주어진 값은 영역이 겹치는 모든 하위 노드에 삽입되며, 값이 삽입된 단말노드들은
+	 * 주어진 리스트에 quad-key 순서대로 추가된다.
+	 * 
+	 * @param value	삽입할 데이터
+	 * @param inserteds	삽입된 데이터가 저장된 단말노드들이 추가될 리스트.
+	 * @throws TooBigValueException	삽입할 데이터가 너무커서 단말노드에 저장할 수 없는 경우.
+	 */
+	void insert(T value, List<EnvelopeLeafNode<T,P>> inserteds) throws TooBigValueException {
+		final Envelope envl = value.getEnvelope();
+		
+		for ( int i =0; i < m_children.length; ++i ) {
+			EnvelopeNode<T,P> child = m_children[i];
+			if ( !child.getBounds().intersects(envl) ) {
+				continue;
+			}
+			
+			if ( child instanceof EnvelopeLeafNode ) {
+				EnvelopeLeafNode<T,P> leaf = (EnvelopeLeafNode<T,P>)child;
+				EnvelopeNode<T,P> replaced = EnvelopeQuadTree.insertIntoLeaf(leaf, value);
+				if ( replaced == leaf ) {
+					inserteds.add(leaf);
+					continue;
+				}
+				
+				// 단말노드가 분할된 경우는 분할된 non-leaf 노드를 기준으로 삽입을 시도한다.
+				m_children[i] = child = replaced;
+			}
+			
+			((EnvelopeNonLeafNode<T,P>)child).insert(value, inserteds);
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%s: bounds=%s", getClass().getSimpleName(), getBounds());
+	}
+}
@@ -0,0 +1,192 @@
+package utils.geo.quadtree.envelope;
+
+import java.util.List;
+import java.util.function.Function;
+
+import org.locationtech.jts.geom.Envelope;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+import utils.geo.quadtree.EnvelopedValue;
+import utils.geo.quadtree.TooBigValueException;
+import utils.stream.FStream;
+
+/**
+ * 영역을 갖는 데이터({@link EnvelopedValue})를 저장하는 QuadTree.
+ * <p>
+ * 데이터는 자신의 영역과 겹치는 모든 단말노드에 중복되어 저장된다.
+ * 질의 결과에서 중복을 제거하기 위해, 데이터마다 질의 영역과 데이터 영역의 교집합에 속하는
+ * 기준점(두 영역의 최소 좌표 중 큰 값)을 정하고, 기준점을 포함하는 단말노드에서만 데이터를 반환한다.
+ * 이때 단말노드 영역은 최대 좌표를 포함하지 않는 반개구간으로 간주하여 기준점이 정확히 하나의
+ * 단말노드에만 속하도록 한다. 따라서 별도의 집합을 유지하지 않고도 중복이 제거된다.
+ * <p>
+ * 단말노드를 분할하더라도 삽입할 데이터가 저장될 하위 노드에 빈 공간이 생기지 않는 경우
+ * (예: 단말노드에 저장된 모든 데이터가 삽입할 데이터가 속한 사분면을 덮는 경우)에는 분할 대신
+ * {@link EnvelopePartition#expand()}를 통해 partition 확장을 시도하며, 확장도 불가능한 경우는
+ * {@link TooBigValueException}이 발생된다.
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class EnvelopeQuadTree<T extends EnvelopedValue, P extends EnvelopePartition<T>> {
+	private final Envelope m_rootBounds;
+	private EnvelopeNode<T,P> m_root;
+	
+	/**
+	 * QuadTree를 생성한다.
+	 * 
+	 * @param rootBounds	QuadTree 최상위 노드의 영역.
+	 * @param partitionSupplier	생성될 QuadTree가 사용할 partition 생성기.
+	 * 						데이터 삽입과정에서 새로운 단말노드가 생성되어 partition이 필요할 때 활용된다.
+	 */
+	public EnvelopeQuadTree(Envelope rootBounds, Function<Envelope,P> partitionSupplier) {
+		Preconditions.checkArgument(rootBounds != null, "rootBounds is null");
+		Preconditions.checkArgument(partitionSupplier != null, "partitionSupplier is null");
+		
+		m_rootBounds = rootBounds;
+		m_root = new EnvelopeLeafNode<T,P>(rootBounds, partitionSupplier);
+	}
+	
+	public Envelope getRootBounds() {
+		return m_rootBounds;
+	}
+	
+	public int getDepth() {
+		return m_root.getDepth();
+	}
+	
+	/**
+	 * 입력 공간 데이터를 삽입하고, 데이터가 삽입된 단말 노드들을 반환한다.
+	 * 데이터는 영역이 겹치는 모든 단말노드에 삽입되며, 반환되는 단말노드들의 순서는
+	 * 노드의 quad-key 순서를 따른다.
+	 * 
+	 * @param value	삽입할 공간 데이터. 데이터 영역은 최상위 노드 영역에 포함되어야 한다.
+	 * @return	삽입된 공간 데이터가 포함된 단말 노드 리스트.
+	 * @throws TooBigValueException	삽입할 데이터가 너무커서 단말노드에 저장할 수 없는 경우.
+	 */
+	public List<EnvelopeLeafNode<T,P>> insert(T value) throws TooBigValueException {
+		Preconditions.checkArgument(value != null);
+		Preconditions.checkArgument(m_rootBounds.contains(value.getEnvelope()),
+									"value is out of bounds: bounds=%s, value=%s", m_rootBounds, value);
+		
+		List<EnvelopeLeafNode<T,P>> inserteds = Lists.newArrayList();
+		if ( m_root instanceof EnvelopeLeafNode ) {
+			EnvelopeLeafNode<T,P> lroot = (EnvelopeLeafNode<T,P>)m_root;
+			EnvelopeNode<T,P> replaced = insertIntoLeaf(lroot, value);
+			if ( replaced == lroot ) {
+				inserteds.add(lroot);
+				return inserteds;
+			}
+			m_root = replaced;
+		}
+		
+		((EnvelopeNonLeafNode<T,P>)m_root).insert(value, inserteds);
+		return inserteds;
+	}
+	
+	/**
+	 * 본 quad-tree에 포함된 모든 단말 노드들을 quad-key 순서대로 반환한다.
+	 * 
+	 * @return	단말 노드 스트림
+	 */
+	public FStream<EnvelopeLeafNode<T,P>> streamLeafNodes() {
+		return FStream.from(queryLeafNodes(m_rootBounds));
+	}
+	
+	/**
+	 * 주어진 box와 겹치는 단말 노드들을 반환한다.
+	 * 
+	 * @param key	질의 box.
+	 * @return	단말노드 리스트.
+	 */
+	public List<EnvelopeLeafNode<T,P>> queryLeafNodes(Envelope key) {
+		List<EnvelopeLeafNode<T,P>> foundList = Lists.newArrayList();
+		if ( m_root instanceof EnvelopeLeafNode ) {
+			if ( m_root.getBounds().intersects(key) ) {
+				foundList.add((EnvelopeLeafNode<T,P>)m_root);
+			}
+		}
+		else {
+			((EnvelopeNonLeafNode<T,P>)m_root).collectIntersectingLeafNodes(key, foundList);
+		}
+		
+		return foundList;
+	}
+	
+	/**
+	 * QuadTree에 삽입된 모든 데이터들의 스트림을 반환한다.
+	 * 여러 단말노드에 중복 저장된 데이터도 한번만 반환된다.
+	 * 
+	 * @return	테이터 스트림
+	 */
+	public FStream<T> streamValues() {
+		return streamLeafNodes().flatMap(leaf -> leaf.values()
+												.filter(v -> isOwner(leaf, v.getEnvelope(), m_rootBounds)));
+	}
+	
+	/**
+	 * QuadTree에 저장된 모든 데이터 중 주어진 질의 사각형과 겹치는 데이터를 접근하는 순환자를 반환한다.
+	 * 여러 단말노드에 중복 저장된 데이터도 한번만 반환된다.
+	 * 
+	 * @param key	질의 box.
+	 * @return	데이터 순환자
+	 */
+	public FStream<T> query(Envelope key) {
+		Preconditions.checkArgument(key != null, "search key");
+		
+		return FStream.from(queryLeafNodes(key))
+						.flatMap(leaf -> leaf.query(key)
+											.filter(v -> isOwner(leaf, v.getEnvelope(), key)));
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("root_bounds=%s", m_rootBounds);
+	}
+	
+	/**
+	 * 주어진 단말노드에 데이터를 삽입한다.
+	 * 단말노드에 공간이 없는 경우는 단말노드를 분할하거나 partition 확장을 시도한다.
+	 * 
+	 * @return	데이터가 삽입된 경우는 주어진 단말노드.
+	 * 			단말노드가 분할된 경우는 분할된 non-leaf 노드로, 이 경우 데이터는 아직 삽입되지 않은 상태이다.
+	 * @throws TooBigValueException	분할과 확장이 모두 불가능하여 데이터를 삽입할 수 없는 경우.
+	 */
+	static <T extends EnvelopedValue, P extends EnvelopePartition<T>>
+	EnvelopeNode<T,P> insertIntoLeaf(EnvelopeLeafNode<T,P> leaf, T value) throws TooBigValueException {
+		if ( leaf.insert(value) ) {
+			return leaf;
+		}
+		if ( leaf.isSplittable(value) ) {
+			return leaf.split();
+		}
+		
+		while ( leaf.expand() ) {
+			if ( leaf.insert(value) ) {
+				return leaf;
+			}
+		}
+		throw new TooBigValueException("no room for value even after split: value=" + value
+										+ ", node=" + leaf);
+	}
+	
+	/**
+	 * 주어진 데이터가 질의 영역에 대해 주어진 단말노드에서 반환되어야 하는지 여부를 판단한다.
+	 * 데이터 영역과 질의 영역의 최소 좌표 중 큰 값을 기준점으로 하여,
+	 * 기준점이 단말노드 영역에 포함되는 경우에만 {@code true}를 반환한다.
+	 * 데이터 영역은 최상위 노드 영역에 포함되기 때문에 기준점도 최상위 노드 영역에 포함된다.
+	 */
+	private boolean isOwner(EnvelopeLeafNode<T,P> leaf, Envelope valueEnvl, Envelope key) {
+		double x = Math.max(valueEnvl.getMinX(), key.getMinX());
+		double y = Math.max(valueEnvl.getMinY(), key.getMinY());
+		
+		Envelope bounds = leaf.getBounds();
+		return contains(bounds.getMinX(), bounds.getMaxX(), m_rootBounds.getMaxX(), x)
+			&& contains(bounds.getMinY(), bounds.getMaxY(), m_rootBounds.getMaxY(), y);
+	}
+	
+	private static boolean contains(double min, double max, double rootMax, double v) {
+		// 최상위 노드의 최대 경계에 걸친 단말노드는 최대 좌표도 포함한다.
+		return v >= min && (v < max || (v == max && max == rootMax));
+	}
+}
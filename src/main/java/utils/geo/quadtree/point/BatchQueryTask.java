@@ -0,0 +1,177 @@
+package utils.geo.quadtree.point;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+
+import com.google.common.collect.Lists;
+
+/**
+ * 여러 개의 사각 영역 질의를 QuadTree를 한번만 순회하여 처리하는 작업.
+ * <p>
+ * 각 노드를 방문할 때 해당 노드와 겹치는 질의들의 순번만을 하위 노드로 전달하기 때문에,
+ * 상위 노드들의 탐색은 질의들 사이에서 공유된다. 단말노드에 저장된 데이터는 한번씩만 읽혀지며,
+ * 데이터마다 남아있는 질의들과의 겹침 여부를 검사한다.
+ * <p>
+ * 병렬로 수행되는 경우는 non-leaf 노드의 하위 노드별로 별도의 작업을 생성한다.
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+class BatchQueryTask<T extends PointValue, P extends PointPartition<T>> extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+	
+	/** 하위 트리의 데이터 수가 본 값보다 작은 경우는 하위 작업을 fork하지 않고 직접 수행한다. */
+	static final int SEQUENTIAL_THRESHOLD = 4096;
+	
+	private final Batch<T> m_batch;
+	private final PointNode<T,P> m_node;
+	private final int[] m_actives;
+	private final boolean m_parallel;
+	
+	/**
+	 * 일괄 질의 작업을 생성한다.
+	 * 
+	 * @param keys	질의 영역 리스트.
+	 * @param consumer	질의 결과를 전달받을 consumer. 질의 순번과 질의 결과 데이터가 전달된다.
+	 * @param root	질의를 시작할 노드.
+	 * @param parallel	하위 트리별 작업을 fork-join 방식으로 병렬 수행할지 여부.
+	 */
+	BatchQueryTask(List<Envelope> keys, BiConsumer<Integer,? super T> consumer, PointNode<T,P> root,
+					boolean parallel) {
+		m_batch = new Batch<>(keys, consumer);
+		m_node = root;
+		m_parallel = parallel;
+		
+		int[] actives = new int[keys.size()];
+		int count = 0;
+		for ( int i =0; i < actives.length; ++i ) {
+			if ( m_batch.intersects(i, root.getBounds()) ) {
+				actives[count++] = i;
+			}
+		}
+		m_actives = Arrays.copyOf(actives, count);
+	}
+	
+	private BatchQueryTask(Batch<T> batch, PointNode<T,P> node, int[] actives, boolean parallel) {
+		m_batch = batch;
+		m_node = node;
+		m_actives = actives;
+		m_parallel = parallel;
+	}
+	
+	@Override
+	protected void compute() {
+		if ( m_actives.length == 0 ) {
+			return;
+		}
+		
+		if ( m_parallel && m_node.getValueCount() >= SEQUENTIAL_THRESHOLD
+			&& m_node instanceof PointNonLeafNode ) {
+			PointNonLeafNode<T,P> nonLeaf = (PointNonLeafNode<T,P>)m_node;
+			List<BatchQueryTask<T,P>> subTasks = Lists.newArrayListWithCapacity(PointQuadTree.QUAD);
+			for ( int i =0; i < PointQuadTree.QUAD; ++i ) {
+				PointNode<T,P> child = nonLeaf.getChild(i);
+				int[] actives = filterActives(child, m_actives);
+				if ( actives.length > 0 ) {
+					subTasks.add(new BatchQueryTask<>(m_batch, child, actives, true));
+				}
+			}
+			invokeAll(subTasks);
+		}
+		else {
+			visit(m_node, m_actives);
+		}
+	}
+	
+	private void visit(PointNode<T,P> node, int[] actives) {
+		if ( node instanceof PointLeafNode ) {
+			visitLeaf((PointLeafNode<T,P>)node, actives);
+		}
+		else {
+			PointNonLeafNode<T,P> nonLeaf = (PointNonLeafNode<T,P>)node;
+			for ( int i =0; i < PointQuadTree.QUAD; ++i ) {
+				PointNode<T,P> child = nonLeaf.getChild(i);
+				int[] childActives = filterActives(child, actives);
+				if ( childActives.length > 0 ) {
+					visit(child, childActives);
+				}
+			}
+		}
+	}
+	
+	private void visitLeaf(PointLeafNode<T,P> leaf, int[] actives) {
+		final Batch<T> batch = m_batch;
+		leaf.getPartition().visit(value -> {
+			Coordinate coord = value.getCoordinate();
+			for ( int idx: actives ) {
+				if ( batch.contains(idx, coord.x, coord.y) ) {
+					batch.m_consumer.accept(idx, value);
+				}
+			}
+			return true;
+		});
+	}
+	
+	/**
+	 * 주어진 질의 순번들 중에서 주어진 노드와 겹치는 질의들의 순번을 반환한다.
+	 */
+	private int[] filterActives(PointNode<T,P> node, int[] actives) {
+		Envelope bounds = (node instanceof PointNonLeafNode)
+						? ((PointNonLeafNode<T,P>)node).getDataBoundsRef()
+						: node.getBounds();
+		if ( bounds.isNull() ) {
+			return new int[0];
+		}
+		
+		int[] filtered = new int[actives.length];
+		int count = 0;
+		for ( int idx: actives ) {
+			if ( m_batch.intersects(idx, bounds) ) {
+				filtered[count++] = idx;
+			}
+		}
+		
+		return (count == actives.length) ? actives : Arrays.copyOf(filtered, count);
+	}
+	
+	/**
+	 * 작업들 사이에 공유되는 질의 정보.
+	 * 질의 영역들의 좌표는 객체 접근 없이 비교할 수 있도록 primitive 배열에 저장된다.
+	 */
+	private static final class Batch<T> {
+		private final double[] m_minXs;
+		private final double[] m_minYs;
+		private final double[] m_maxXs;
+		private final double[] m_maxYs;
+		private final BiConsumer<Integer,? super T> m_consumer;
+		
+		Batch(List<Envelope> keys, BiConsumer<Integer,? super T> consumer) {
+			int n = keys.size();
+			m_minXs = new double[n];
+			m_minYs = new double[n];
+			m_maxXs = new double[n];
+			m_maxYs = new double[n];
+			for ( int i =0; i < n; ++i ) {
+				Envelope key = keys.get(i);
+				m_minXs[i] = key.getMinX();
+				m_minYs[i] = key.getMinY();
+				m_maxXs[i] = key.getMaxX();
+				m_maxYs[i] = key.getMaxY();
+			}
+			m_consumer = consumer;
+		}
+		
+		boolean intersects(int idx, Envelope bounds) {
+			return m_minXs[idx] <= bounds.getMaxX() && m_maxXs[idx] >= bounds.getMinX()
+				&& m_minYs[idx] <= bounds.getMaxY() && m_maxYs[idx] >= bounds.getMinY();
+		}
+		
+		boolean contains(int idx, double x, double y) {
+			return x >= m_minXs[idx] && x <= m_maxXs[idx] && y >= m_minYs[idx] && y <= m_maxYs[idx];
+		}
+	}
+}
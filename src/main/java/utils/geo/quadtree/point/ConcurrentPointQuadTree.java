@@ -0,0 +1,299 @@
+package utils.geo.quadtree.point;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+import utils.geo.quadtree.TooBigValueException;
+import utils.stream.FStream;
+
+/**
+ * 여러 쓰레드에서 동시에 삽입과 질의를 수행할 수 있는 point QuadTree.
+ * <p>
+ * 질의 과정에서 non-leaf 노드의 탐색과 단말 노드 체인의 순회는 lock 없이 수행된다.
+ * 단말 노드의 partition은 먼저 optimistic read로 접근한다. 읽는 도중 같은 lock을 공유하는
+ * 단말 노드에 삽입이 발생하여 검증에 실패한 경우는 최대 {@link #MAX_OPTIMISTIC_READS}번까지
+ * 다시 시도하고, 그래도 실패하면 read lock을 획득하여 읽는다. 따라서 질의 쓰레드는
+ * 진행 중인 partition 삽입 하나가 끝날 때까지만 대기할 수 있으며, 무한히 재시도하지 않는다.
+ * <p>
+ * 삽입은 대상 단말 노드에 해당하는 lock만을 획득한다. 단말 노드별 lock은
+ * 고정된 갯수의 lock을 공유하는 방식(lock striping)으로 할당된다.
+ * 단말 노드가 분할되는 경우는 write lock을 read lock으로 전환한 뒤 단말 노드 체인 갱신용 lock을
+ * 추가로 획득한다. 분할은 기존 단말 노드의 partition을 변경하지 않기 때문에, 분할이 진행되는 동안에도
+ * 같은 lock을 공유하는 단말 노드들에 대한 optimistic read는 검증에 성공한다.
+ * 분할로 생성된 하위 노드들은 값이 모두 채워진 뒤에 상위 노드에 게시된다.
+ * <p>
+ * 사용되는 partition은 삽입 도중에 읽기가 시도되는 경우, 잘못된 결과를 반환하거나
+ * {@link RuntimeException}을 발생시키는 것 외의 부작용이 없어야 한다.
+ * 이런 결과나 예외는 optimistic read 검증에 실패한 경우에만 무시되고 다시 읽으며,
+ * 검증에 성공한 상태에서 발생한 예외는 partition 자체의 오류로 간주하여 그대로 전달된다.
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class ConcurrentPointQuadTree<T extends PointValue, P extends PointPartition<T>> {
+	public static final int DEFAULT_LOCK_STRIPE_COUNT = 64;
+	/** read lock을 획득하기 전까지 시도할 optimistic read의 최대 횟수. */
+	public static final int MAX_OPTIMISTIC_READS = 64;
+	
+	private final Envelope m_rootBounds;
+	private volatile PointNode<T,P> m_root;
+	private final StampedLock[] m_stripes;
+	private final ReentrantLock m_chainLock = new ReentrantLock();
+	
+	/**
+	 * QuadTree를 생성한다.
+	 * 
+	 * @param rootBounds	QuadTree 최상위 노드의 영역.
+	 * @param partitionSupplier	생성될 QuadTree가 사용할 partition 생성기.
+	 */
+	public ConcurrentPointQuadTree(Envelope rootBounds, Function<Envelope,P> partitionSupplier) {
+		this(rootBounds, partitionSupplier, DEFAULT_LOCK_STRIPE_COUNT);
+	}
+	
+	/**
+	 * QuadTree를 생성한다.
+	 * 
+	 * @param rootBounds	QuadTree 최상위 노드의 영역.
+	 * @param partitionSupplier	생성될 QuadTree가 사용할 partition 생성기.
+	 * @param lockStripeCount	단말 노드들이 나누어 사용할 lock의 갯수.
+	 */
+	public ConcurrentPointQuadTree(Envelope rootBounds, Function<Envelope,P> partitionSupplier,
+									int lockStripeCount) {
+		Preconditions.checkArgument(rootBounds != null, "rootBounds is null");
+		Preconditions.checkArgument(lockStripeCount > 0, "invalid lock stripe count: " + lockStripeCount);
+		
+		m_rootBounds = rootBounds;
+		m_root = new PointLeafNode<T,P>(rootBounds, partitionSupplier);
+		m_stripes = new StampedLock[lockStripeCount];
+		for ( int i =0; i < lockStripeCount; ++i ) {
+			m_stripes[i] = new StampedLock();
+		}
+	}
+	
+	public Envelope getRootBounds() {
+		return m_rootBounds;
+	}
+	
+	public int getDepth() {
+		return getDepth(m_root);
+	}
+	
+	/**
+	 * 입력 공간 데이터를 삽입하고, 데이터가 삽입된 단말 노드를 반환한다.
+	 * 
+	 * @param value	삽입할 공간 데이터.
+	 * @return	삽입된 공간 데이터가 포함된 단말 노드.
+	 * @throws TooBigValueException	삽입할 데이터가 너무커서 단말노드에 저장할 수 없는 경우.
+	 */
+	public PointLeafNode<T,P> insert(T value) throws TooBigValueException {
+		Preconditions.checkArgument(value != null);
+		
+		final Coordinate coord = value.getCoordinate();
+		while ( true ) {
+			// lock 없이 삽입 대상 단말노드까지 내려간다.
+			PointNonLeafNode<T,P> parent = null;
+			int idx = -1;
+			PointNode<T,P> node = m_root;
+			while ( node instanceof PointNonLeafNode ) {
+				parent = (PointNonLeafNode<T,P>)node;
+				idx = parent.findChildIndex(coord);
+				if ( idx < 0 ) {
+					String msg = String.format("bounds=%s, value=%s", parent.getBounds(), value);
+					throw new IllegalStateException("unexpected state for insert: " + msg);
+				}
+				node = parent.getChild(idx);
+			}
+			PointLeafNode<T,P> leaf = (PointLeafNode<T,P>)node;
+			
+			StampedLock lock = getLock(leaf);
+			long stamp = lock.writeLock();
+			try {
+				// lock을 획득하기 전에 다른 쓰레드에 의해 분할된 경우는 처음부터 다시 시도한다.
+				if ( !isAttached(parent, idx, leaf) ) {
+					continue;
+				}
+				if ( leaf.insert(value) ) {
+					return leaf;
+				}
+				
+				// 단말노드에 더 이상 값을 넣을 수 없는 경우는 노드를 분할시키고,
+				// 분할된 노드를 기준으로 삽입을 다시 시도한다.
+				// 분할은 기존 partition을 읽기만 하므로 read lock으로 전환하여 다른 삽입만을 막고,
+				// 같은 lock을 공유하는 단말 노드들에 대한 읽기는 막지 않는다.
+				stamp = lock.tryConvertToReadLock(stamp);
+				m_chainLock.lock();
+				try {
+					PointNonLeafNode<T,P> splitted = leaf.split();
+					if ( parent == null ) {
+						m_root = splitted;
+					}
+					else {
+						parent.setChild(idx, splitted);
+					}
+				}
+				finally {
+					m_chainLock.unlock();
+				}
+			}
+			finally {
+				lock.unlock(stamp);
+			}
+		}
+	}
+	
+	/**
+	 * 본 quad-tree에 포함된 단말 노드 중에서 quad-key 순으로 가장 작은 값의 단말 노드를 반환한다.
+	 * 
+	 * @return	단말노드
+	 */
+	public PointLeafNode<T,P> getFirstLeafNode() {
+		PointNode<T,P> root = m_root;
+		return (root instanceof PointLeafNode) ? (PointLeafNode<T,P>)root
+											: ((PointNonLeafNode<T,P>)root).getFirstLeafNode();
+	}
+	
+	/**
+	 * QuadTree에 저장된 모든 단말 노드들의 순환자를 반환한다.
+	 * 순회 도중 분할된 단말 노드는 분할 이전의 노드가 반환된다.
+	 * 
+	 * @return	단말 노드 순환자
+	 */
+	public FStream<PointLeafNode<T,P>> streamLeafNodes() {
+		return FStream.from(new PointQuadTree.LeafNodeIterator<>(getFirstLeafNode()));
+	}
+	
+	/**
+	 * 주어진 box와 겹치는 단말 노드들을 반환한다.
+	 * 
+	 * @param key	질의 box.
+	 * @return	단말노드 리스트.
+	 */
+	public List<PointLeafNode<T,P>> queryLeafNodes(Envelope key) {
+		List<PointLeafNode<T,P>> foundList = Lists.newArrayList();
+		
+		PointNode<T,P> root = m_root;
+		if ( root instanceof PointLeafNode ) {
+			if ( root.getBounds().intersects(key) ) {
+				foundList.add((PointLeafNode<T,P>)root);
+			}
+		}
+		else {
+			collectIntersectingLeafNodes((PointNonLeafNode<T,P>)root, key, foundList);
+		}
+		
+		return foundList;
+	}
+	
+	/**
+	 * QuadTree에 삽입된 모든 데이터들의 스트림을 반환한다.
+	 * 
+	 * @return	테이터 스트림
+	 */
+	public FStream<T> streamValues() {
+		return streamLeafNodes().flatMap(leaf -> FStream.from(read(leaf, PointLeafNode::values)));
+	}
+	
+	/**
+	 * QuadTree에 저장된 모든 데이터 중 주어진 질의 사각형과 겹치는 데이터를 접근하는 순환자를 반환한다.
+	 * 
+	 * @param key	질의 box.
+	 * @return	데이터 순환자
+	 */
+	public FStream<T> query(Envelope key) {
+		Preconditions.checkArgument(key != null, "search key");
+		
+		return FStream.from(queryLeafNodes(key))
+						.flatMap(leaf -> FStream.from(read(leaf, node -> node.query(key))));
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("root_bounds=%s", m_rootBounds);
+	}
+	
+	private List<T> read(PointLeafNode<T,P> leaf, Function<PointLeafNode<T,P>,FStream<T>> reader) {
+		StampedLock lock = getLock(leaf);
+		
+		for ( int i =0; i < MAX_OPTIMISTIC_READS; ++i ) {
+			long stamp = lock.tryOptimisticRead();
+			if ( stamp != 0 ) {
+				try {
+					List<T> values = reader.apply(leaf).toList();
+					if ( lock.validate(stamp) ) {
+						return values;
+					}
+				}
+				catch ( RuntimeException e ) {
+					// 검증에 성공한 경우는 삽입 도중의 partition을 읽은 것이 아니므로 그대로 전달한다.
+					if ( lock.validate(stamp) ) {
+						throw e;
+					}
+				}
+			}
+			
+			Thread.onSpinWait();
+		}
+		
+		// 삽입이 계속되어 optimistic read가 실패하는 경우는 read lock을 획득하여 읽는다.
+		long stamp = lock.readLock();
+		try {
+			return reader.apply(leaf).toList();
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	private StampedLock getLock(PointLeafNode<T,P> leaf) {
+		int hash = System.identityHashCode(leaf);
+		hash ^= (hash >>> 16);
+		
+		return m_stripes[Math.floorMod(hash, m_stripes.length)];
+	}
+	
+	private boolean isAttached(PointNonLeafNode<T,P> parent, int idx, PointLeafNode<T,P> leaf) {
+		return (parent == null) ? m_root == leaf : parent.getChild(idx) == leaf;
+	}
+	
+	/**
+	 * 주어진 box와 겹치는 단말 노드들을 수집한다.
+	 * 동시 삽입 중에는 non-leaf 노드의 통계 정보(데이터 MBR 등)가 갱신되지 않기 때문에,
+	 * 노드 영역만을 이용하여 탐색한다.
+	 */
+	private static <T extends PointValue, P extends PointPartition<T>>
+	void collectIntersectingLeafNodes(PointNonLeafNode<T,P> node, Envelope key,
+										List<PointLeafNode<T,P>> collecteds) {
+		for ( int i =0; i < PointQuadTree.QUAD; ++i ) {
+			PointNode<T,P> child = node.getChild(i);
+			if ( child.getBounds().intersects(key) ) {
+				if ( child instanceof PointLeafNode ) {
+					collecteds.add((PointLeafNode<T,P>)child);
+				}
+				else {
+					collectIntersectingLeafNodes((PointNonLeafNode<T,P>)child, key, collecteds);
+				}
+			}
+		}
+	}
+	
+	private static <T extends PointValue, P extends PointPartition<T>> int getDepth(PointNode<T,P> node) {
+		if ( node instanceof PointLeafNode ) {
+			return 1;
+		}
+		
+		PointNonLeafNode<T,P> nonLeaf = (PointNonLeafNode<T,P>)node;
+		int maxDepth = 0;
+		for ( int i =0; i < PointQuadTree.QUAD; ++i ) {
+			maxDepth = Math.max(maxDepth, getDepth(nonLeaf.getChild(i)));
+		}
+		
+		return maxDepth + 1;
+	}
+}
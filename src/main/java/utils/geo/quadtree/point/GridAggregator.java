@@ -0,0 +1,131 @@
+package utils.geo.quadtree.point;
+
+import java.util.function.ToDoubleFunction;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+
+/**
+ * QuadTree를 한번만 순회하면서 데이터를 격자 셀 단위로 집계하는 클래스.
+ * <p>
+ * 격자는 주어진 영역을 {@code cols} x {@code rows}개의 동일한 크기의 셀로 나눈 것으로,
+ * 집계 결과는 행 우선(row-major) 순서의 1차원 배열에 저장된다. 0번 행은 최소 y 좌표 쪽의 행이다.
+ * 셀 경계에 위치한 데이터는 좌표가 큰 쪽의 셀에 포함되며, 격자 영역의 최대 경계에 위치한
+ * 데이터는 마지막 행/열의 셀에 포함된다.
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+class GridAggregator<T extends PointValue, P extends PointPartition<T>> {
+	private final Envelope m_extent;
+	private final int m_cols;
+	private final int m_rows;
+	private final double m_cellWidth;
+	private final double m_cellHeight;
+	
+	GridAggregator(Envelope extent, int cols, int rows) {
+		m_extent = extent;
+		m_cols = cols;
+		m_rows = rows;
+		m_cellWidth = extent.getWidth() / cols;
+		m_cellHeight = extent.getHeight() / rows;
+	}
+	
+	/**
+	 * 주어진 노드 하위의 데이터 갯수를 셀별로 누적한다.
+	 * 하나의 셀에 완전히 포함되는 노드는 하위 노드를 방문하지 않고 노드의 데이터 갯수를 사용한다.
+	 * 
+	 * @param node	집계할 노드
+	 * @param grid	셀별 데이터 갯수가 누적될 배열
+	 */
+	void count(PointNode<T,P> node, long[] grid) {
+		if ( node instanceof PointLeafNode ) {
+			PointLeafNode<T,P> leaf = (PointLeafNode<T,P>)node;
+			Envelope bounds = leaf.getBounds();
+			if ( !bounds.intersects(m_extent) ) {
+				return;
+			}
+			
+			int cell = getEnclosingCell(bounds);
+			if ( cell >= 0 ) {
+				grid[cell] += leaf.getValueCount();
+			}
+			else {
+				leaf.getPartition().visitIntersects(m_extent, value -> {
+					Coordinate coord = value.getCoordinate();
+					++grid[getCell(coord.x, coord.y)];
+					return true;
+				});
+			}
+		}
+		else {
+			PointNonLeafNode<T,P> nonLeaf = (PointNonLeafNode<T,P>)node;
+			Envelope dataBounds = nonLeaf.getDataBoundsRef();
+			if ( !dataBounds.intersects(m_extent) ) {
+				return;
+			}
+			
+			int cell = getEnclosingCell(dataBounds);
+			if ( cell >= 0 ) {
+				grid[cell] += nonLeaf.getValueCount();
+			}
+			else {
+				for ( int i =0; i < PointQuadTree.QUAD; ++i ) {
+					count(nonLeaf.getChild(i), grid);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * 주어진 노드 하위의 데이터들에 대해 주어진 함수의 값을 셀별로 합산한다.
+	 * 
+	 * @param node	집계할 노드
+	 * @param weight	데이터별 합산할 값을 계산하는 함수
+	 * @param grid	셀별 합산 값이 누적될 배열
+	 */
+	void sum(PointNode<T,P> node, ToDoubleFunction<? super T> weight, double[] grid) {
+		PointVisitor<T> visitor = value -> {
+			Coordinate coord = value.getCoordinate();
+			grid[getCell(coord.x, coord.y)] += weight.applyAsDouble(value);
+			return true;
+		};
+		
+		if ( node instanceof PointLeafNode ) {
+			((PointLeafNode<T,P>)node).visit(m_extent, visitor);
+		}
+		else {
+			((PointNonLeafNode<T,P>)node).visit(m_extent, visitor);
+		}
+	}
+	
+	/**
+	 * 주어진 영역이 하나의 셀에 완전히 포함되는 경우 해당 셀의 순번을 반환한다.
+	 * 
+	 * @return	셀 순번. 여러 셀에 걸치거나 격자 영역을 벗어나는 경우는 -1.
+	 */
+	private int getEnclosingCell(Envelope bounds) {
+		if ( !m_extent.contains(bounds) ) {
+			return -1;
+		}
+		
+		int col = getColumn(bounds.getMinX());
+		int row = getRow(bounds.getMinY());
+		if ( col != getColumn(bounds.getMaxX()) || row != getRow(bounds.getMaxY()) ) {
+			return -1;
+		}
+		
+		return row * m_cols + col;
+	}
+	
+	private int getCell(double x, double y) {
+		return getRow(y) * m_cols + getColumn(x);
+	}
+	
+	private int getColumn(double x) {
+		return Math.min((int)((x - m_extent.getMinX()) / m_cellWidth), m_cols - 1);
+	}
+	
+	private int getRow(double y) {
+		return Math.min((int)((y - m_extent.getMinY()) / m_cellHeight), m_rows - 1);
+	}
+}
@@ -0,0 +1,476 @@
+package utils.geo.quadtree.point;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.io.CountingOutputStream;
+
+import utils.geo.quadtree.QuadTreeException;
+import utils.stream.FStream;
+
+/**
+ * 파일에 저장된 {@link PointQuadTree}를 memory-mapped 방식으로 접근하는 읽기 전용 QuadTree.
+ * <p>
+ * {@link #write(PointQuadTree, File, PointValueCodec)}로 기록된 파일은 다음과 같이 구성된다.
+ * <ol>
+ * 	<li>단말 노드 블록들: 단말 노드 체인 순서로 기록된다. 각 블록은 point 갯수,
+ * 		point 좌표 배열, payload 위치 배열, payload 데이터로 구성된다.
+ * 	<li>노드 테이블: 모든 노드의 영역과 하위 노드(또는 단말 노드 블록)의 위치가 post-order로 기록된다.
+ * 	<li>footer: 최상위 노드 영역, 노드 테이블 위치, 데이터 갯수, segment 크기 등.
+ * </ol>
+ * 파일을 열 때는 노드 테이블만 mapping되며, 단말 노드 블록들은 기록할 때 지정된 segment 크기
+ * (기본값 {@link #SEGMENT_SIZE}) 단위로 처음 접근될 때 mapping된다.
+ * 질의는 mapping된 영역에서 직접 좌표를 비교하고, 질의 영역에 포함된 point에 대해서만
+ * {@link PointValueCodec}을 통해 데이터 객체를 생성한다.
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class MappedPointQuadTree<T extends PointValue> implements Closeable {
+	private static final int MAGIC = 0x50515431;	// "PQT1"
+	private static final int VERSION = 1;
+	
+	/** 단말 노드 블록을 mapping하는 기본 단위. 하나의 단말 노드 블록은 두 segment에 걸쳐 기록되지 않는다. */
+	public static final long SEGMENT_SIZE = 1L << 30;
+	
+	private static final byte NON_LEAF = 0;
+	private static final byte LEAF = 1;
+	private static final int BOUNDS_SIZE = 4 * Double.BYTES;
+	private static final int NON_LEAF_RECORD_SIZE = 1 + BOUNDS_SIZE + PointQuadTree.QUAD * Integer.BYTES;
+	private static final int LEAF_RECORD_SIZE = 1 + BOUNDS_SIZE + Long.BYTES;
+	private static final int FOOTER_SIZE = 2 * Integer.BYTES + BOUNDS_SIZE + Long.BYTES
+											+ 2 * Integer.BYTES + Long.BYTES + Integer.BYTES + Long.BYTES;
+	
+	private final File m_file;
+	private final PointValueCodec<T> m_codec;
+	private final FileChannel m_channel;
+	private final Envelope m_rootBounds;
+	private final long m_dataSize;
+	private final MappedByteBuffer m_nodes;
+	private final int m_rootOffset;
+	private final long m_valueCount;
+	private final int m_leafCount;
+	private final long m_segmentSize;
+	private final MappedByteBuffer[] m_segments;
+	
+	/**
+	 * 주어진 QuadTree를 파일에 기록한다.
+	 * 
+	 * @param tree	기록할 QuadTree
+	 * @param file	기록할 파일
+	 * @param codec	point 데이터 codec
+	 * @throws IOException	파일 기록 중 오류가 발생한 경우.
+	 */
+	public static <T extends PointValue> void write(PointQuadTree<T,?> tree, File file,
+													PointValueCodec<T> codec) throws IOException {
+		write(tree, file, codec, SEGMENT_SIZE);
+	}
+	
+	/**
+	 * 주어진 segment 크기를 사용하여 QuadTree를 파일에 기록한다.
+	 * 
+	 * @param tree	기록할 QuadTree
+	 * @param file	기록할 파일
+	 * @param codec	point 데이터 codec
+	 * @param segmentSize	단말 노드 블록을 mapping하는 단위.
+	 * @throws IOException	파일 기록 중 오류가 발생한 경우.
+	 */
+	static <T extends PointValue> void write(PointQuadTree<T,?> tree, File file, PointValueCodec<T> codec,
+											long segmentSize) throws IOException {
+		Preconditions.checkArgument(tree != null, "tree is null");
+		Preconditions.checkArgument(file != null, "file is null");
+		Preconditions.checkArgument(codec != null, "codec is null");
+		Preconditions.checkArgument(segmentSize > 0 && segmentSize <= Integer.MAX_VALUE,
+									"invalid segment size: " + segmentSize);
+		
+		try ( CountingOutputStream cos = new CountingOutputStream(
+												new BufferedOutputStream(new FileOutputStream(file)));
+				DataOutputStream out = new DataOutputStream(cos) ) {
+			new Writer<>(codec, cos, out, segmentSize).write(tree);
+		}
+	}
+	
+	/**
+	 * 주어진 파일에 기록된 QuadTree를 연다.
+	 * 
+	 * @param file	{@link #write(PointQuadTree, File, PointValueCodec)}로 기록된 파일
+	 * @param codec	point 데이터 codec
+	 * @return	QuadTree 객체
+	 * @throws IOException	파일 접근 중 오류가 발생한 경우.
+	 */
+	public static <T extends PointValue> MappedPointQuadTree<T> open(File file, PointValueCodec<T> codec)
+		throws IOException {
+		Preconditions.checkArgument(file != null, "file is null");
+		Preconditions.checkArgument(codec != null, "codec is null");
+		
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try {
+			return new MappedPointQuadTree<>(file, codec, channel);
+		}
+		catch ( IOException | RuntimeException e ) {
+			channel.close();
+			throw e;
+		}
+	}
+	
+	private MappedPointQuadTree(File file, PointValueCodec<T> codec, FileChannel channel) throws IOException {
+		m_file = file;
+		m_codec = codec;
+		m_channel = channel;
+		
+		long fileSize = channel.size();
+		if ( fileSize < FOOTER_SIZE ) {
+			throw new QuadTreeException("invalid PointQuadTree file: " + file);
+		}
+		ByteBuffer footer = channel.map(MapMode.READ_ONLY, fileSize - FOOTER_SIZE, FOOTER_SIZE);
+		if ( footer.getInt() != MAGIC ) {
+			throw new QuadTreeException("invalid PointQuadTree file: " + file);
+		}
+		int version = footer.getInt();
+		if ( version != VERSION ) {
+			throw new QuadTreeException("unsupported PointQuadTree file version: " + version);
+		}
+		double minX = footer.getDouble();
+		double minY = footer.getDouble();
+		double maxX = footer.getDouble();
+		double maxY = footer.getDouble();
+		m_rootBounds = new Envelope(minX, maxX, minY, maxY);
+		m_dataSize = footer.getLong();
+		int nodeTableSize = footer.getInt();
+		m_rootOffset = footer.getInt();
+		m_valueCount = footer.getLong();
+		m_leafCount = footer.getInt();
+		m_segmentSize = footer.getLong();
+		if ( m_segmentSize <= 0 || m_segmentSize > Integer.MAX_VALUE ) {
+			throw new QuadTreeException("invalid segment size: file=" + file + ", size=" + m_segmentSize);
+		}
+		
+		m_nodes = channel.map(MapMode.READ_ONLY, m_dataSize, nodeTableSize);
+		m_segments = new MappedByteBuffer[(int)((m_dataSize + m_segmentSize - 1) / m_segmentSize)];
+	}
+	
+	@Override
+	public void close() throws IOException {
+		m_channel.close();
+	}
+	
+	public File getFile() {
+		return m_file;
+	}
+	
+	public Envelope getRootBounds() {
+		return m_rootBounds;
+	}
+	
+	public long getValueCount() {
+		return m_valueCount;
+	}
+	
+	public int getLeafNodeCount() {
+		return m_leafCount;
+	}
+	
+	/**
+	 * 저장된 모든 데이터 중 주어진 질의 사각형과 겹치는 데이터를 접근하는 순환자를 반환한다.
+	 * 
+	 * @param key	질의 box.
+	 * @return	데이터 순환자
+	 */
+	public FStream<T> query(Envelope key) {
+		Preconditions.checkArgument(key != null, "search key");
+		
+		List<Long> blocks = Lists.newArrayList();
+		collectIntersectingBlocks(m_rootOffset, key.getMinX(), key.getMinY(), key.getMaxX(), key.getMaxY(),
+									blocks);
+		return FStream.from(blocks)
+						.flatMap(offset -> FStream.from(new BlockIterator(offset, key)));
+	}
+	
+	/**
+	 * 저장된 모든 데이터들의 스트림을 단말 노드 체인 순서로 반환한다.
+	 * 
+	 * @return	테이터 스트림
+	 */
+	public FStream<T> streamValues() {
+		List<Long> blocks = Lists.newArrayList();
+		collectIntersectingBlocks(m_rootOffset, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
+									Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, blocks);
+		return FStream.from(blocks)
+						.flatMap(offset -> FStream.from(new BlockIterator(offset, null)));
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%s: file=%s, root_bounds=%s, count=%d", getClass().getSimpleName(),
+								m_file, m_rootBounds, m_valueCount);
+	}
+	
+	private void collectIntersectingBlocks(int offset, double qMinX, double qMinY, double qMaxX, double qMaxY,
+											List<Long> collecteds) {
+		MappedByteBuffer nodes = m_nodes;
+		int pos = offset + 1;
+		double minX = nodes.getDouble(pos);
+		double minY = nodes.getDouble(pos + Double.BYTES);
+		double maxX = nodes.getDouble(pos + 2*Double.BYTES);
+		double maxY = nodes.getDouble(pos + 3*Double.BYTES);
+		if ( minX > qMaxX || maxX < qMinX || minY > qMaxY || maxY < qMinY ) {
+			return;
+		}
+		
+		pos += BOUNDS_SIZE;
+		if ( nodes.get(offset) == LEAF ) {
+			collecteds.add(nodes.getLong(pos));
+		}
+		else {
+			for ( int i =0; i < PointQuadTree.QUAD; ++i ) {
+				int child = nodes.getInt(pos + i*Integer.BYTES);
+				collectIntersectingBlocks(child, qMinX, qMinY, qMaxX, qMaxY, collecteds);
+			}
+		}
+	}
+	
+	private synchronized MappedByteBuffer getSegment(int idx) {
+		MappedByteBuffer seg = m_segments[idx];
+		if ( seg == null ) {
+			long start = idx * m_segmentSize;
+			long size = Math.min(m_segmentSize, m_dataSize - start);
+			try {
+				seg = m_channel.map(MapMode.READ_ONLY, start, size);
+			}
+			catch ( IOException e ) {
+				throw new QuadTreeException("fails to map segment: file=" + m_file + ", segment=" + idx
+											+ ", cause=" + e);
+			}
+			m_segments[idx] = seg;
+		}
+		
+		return seg;
+	}
+	
+	/**
+	 * 하나의 단말 노드 블록에서 질의 영역과 겹치는 데이터들을 차례대로 접근하는 순환자.
+	 * 질의 영역이 {@code null}인 경우는 모든 데이터를 접근한다.
+	 */
+	private class BlockIterator implements Iterator<T> {
+		private final ByteBuffer m_block;
+		private final int m_count;
+		private final int m_coordsPos;
+		private final int m_offsetsPos;
+		private final int m_payloadPos;
+		private final Envelope m_query;
+		private int m_next;
+		
+		BlockIterator(long offset, Envelope query) {
+			m_block = getSegment((int)(offset / m_segmentSize));
+			int pos = (int)(offset % m_segmentSize);
+			
+			m_count = m_block.getInt(pos);
+			m_coordsPos = pos + Integer.BYTES;
+			m_offsetsPos = m_coordsPos + 2 * Double.BYTES * m_count;
+			m_payloadPos = m_offsetsPos + Integer.BYTES * (m_count+1);
+			m_query = query;
+			m_next = seek(0);
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return m_next < m_count;
+		}
+		
+		@Override
+		public T next() {
+			if ( m_next >= m_count ) {
+				throw new NoSuchElementException();
+			}
+			
+			int idx = m_next;
+			m_next = seek(idx + 1);
+			
+			int coordPos = m_coordsPos + idx * 2 * Double.BYTES;
+			Coordinate coord = new Coordinate(m_block.getDouble(coordPos),
+												m_block.getDouble(coordPos + Double.BYTES));
+			int start = m_block.getInt(m_offsetsPos + idx * Integer.BYTES);
+			int end = m_block.getInt(m_offsetsPos + (idx+1) * Integer.BYTES);
+			return m_codec.decode(coord, m_block.slice(m_payloadPos + start, end - start));
+		}
+		
+		private int seek(int start) {
+			if ( m_query == null ) {
+				return start;
+			}
+			
+			final double qMinX = m_query.getMinX();
+			final double qMinY = m_query.getMinY();
+			final double qMaxX = m_query.getMaxX();
+			final double qMaxY = m_query.getMaxY();
+			
+			int idx = start;
+			int pos = m_coordsPos + idx * 2 * Double.BYTES;
+			while ( idx < m_count ) {
+				double x = m_block.getDouble(pos);
+				double y = m_block.getDouble(pos + Double.BYTES);
+				if ( x >= qMinX && x <= qMaxX && y >= qMinY && y <= qMaxY ) {
+					break;
+				}
+				++idx;
+				pos += 2 * Double.BYTES;
+			}
+			
+			return idx;
+		}
+	}
+	
+	private static class Writer<T extends PointValue, P extends PointPartition<T>> {
+		private final PointValueCodec<T> m_codec;
+		private final CountingOutputStream m_counter;
+		private final DataOutputStream m_out;
+		private final long m_segmentSize;
+		private final Map<PointLeafNode<?,?>,Long> m_blockOffsets = new IdentityHashMap<>();
+		private long m_valueCount = 0;
+		private int m_nodeTableSize = 0;
+		
+		Writer(PointValueCodec<T> codec, CountingOutputStream counter, DataOutputStream out,
+				long segmentSize) {
+			m_codec = codec;
+			m_counter = counter;
+			m_out = out;
+			m_segmentSize = segmentSize;
+		}
+		
+		@SuppressWarnings("unchecked")
+		void write(PointQuadTree<T,?> tree) throws IOException {
+			PointQuadTree<T,P> ptree = (PointQuadTree<T,P>)tree;
+			
+			// 단말 노드 블록들을 단말 노드 체인 순서로 기록한다.
+			Iterator<PointLeafNode<T,P>> iter = ptree.streamLeafNodes().iterator();
+			while ( iter.hasNext() ) {
+				writeLeafBlock(iter.next());
+			}
+			
+			// segment 경계를 맞추기 위해 추가된 padding을 포함한 데이터 영역의 크기.
+			long dataSize = m_counter.getCount();
+			int rootOffset = writeNode(ptree.getRootNode());
+			
+			Envelope bounds = ptree.getRootBounds();
+			m_out.writeInt(MAGIC);
+			m_out.writeInt(VERSION);
+			m_out.writeDouble(bounds.getMinX());
+			m_out.writeDouble(bounds.getMinY());
+			m_out.writeDouble(bounds.getMaxX());
+			m_out.writeDouble(bounds.getMaxY());
+			m_out.writeLong(dataSize);
+			m_out.writeInt(m_nodeTableSize);
+			m_out.writeInt(rootOffset);
+			m_out.writeLong(m_valueCount);
+			m_out.writeInt(m_blockOffsets.size());
+			m_out.writeLong(m_segmentSize);
+		}
+		
+		private void writeLeafBlock(PointLeafNode<T,P> leaf) throws IOException {
+			List<T> values = leaf.values().toList();
+			
+			ByteArrayOutputStream payloads = new ByteArrayOutputStream();
+			DataOutputStream payloadOut = new DataOutputStream(payloads);
+			int[] offsets = new int[values.size() + 1];
+			for ( int i =0; i < values.size(); ++i ) {
+				offsets[i] = payloadOut.size();
+				m_codec.encode(values.get(i), payloadOut);
+			}
+			offsets[values.size()] = payloadOut.size();
+			payloadOut.flush();
+			
+			long blockSize = Integer.BYTES + 2L * Double.BYTES * values.size()
+							+ (long)Integer.BYTES * offsets.length + payloads.size();
+			if ( blockSize > m_segmentSize ) {
+				throw new QuadTreeException("leaf node is too big: size=" + blockSize + ", node=" + leaf);
+			}
+			
+			// 단말 노드 블록이 segment 경계에 걸치지 않도록 padding을 추가한다.
+			long offset = m_counter.getCount();
+			long remains = m_segmentSize - (offset % m_segmentSize);
+			if ( blockSize > remains ) {
+				byte[] zeros = new byte[8192];
+				for ( long left = remains; left > 0; left -= zeros.length ) {
+					m_out.write(zeros, 0, (int)Math.min(left, zeros.length));
+				}
+				offset += remains;
+			}
+			m_blockOffsets.put(leaf, offset);
+			
+			m_out.writeInt(values.size());
+			for ( T value: values ) {
+				Coordinate coord = value.getCoordinate();
+				m_out.writeDouble(coord.x);
+				m_out.writeDouble(coord.y);
+			}
+			for ( int off: offsets ) {
+				m_out.writeInt(off);
+			}
+			payloads.writeTo(m_out);
+			
+			m_valueCount += values.size();
+		}
+		
+		/**
+		 * 주어진 노드와 하위 노드들을 post-order로 노드 테이블에 기록하고,
+		 * 노드 테이블 내에서의 위치를 반환한다.
+		 */
+		private int writeNode(PointNode<T,P> node) throws IOException {
+			if ( node instanceof PointLeafNode ) {
+				int offset = m_nodeTableSize;
+				m_out.writeByte(LEAF);
+				writeBounds(node.getBounds());
+				m_out.writeLong(m_blockOffsets.get(node));
+				m_nodeTableSize += LEAF_RECORD_SIZE;
+				
+				return offset;
+			}
+			else {
+				PointNonLeafNode<T,P> nonLeaf = (PointNonLeafNode<T,P>)node;
+				int[] children = new int[PointQuadTree.QUAD];
+				for ( int i =0; i < children.length; ++i ) {
+					children[i] = writeNode(nonLeaf.getChild(i));
+				}
+				
+				int offset = m_nodeTableSize;
+				m_out.writeByte(NON_LEAF);
+				writeBounds(node.getBounds());
+				for ( int child: children ) {
+					m_out.writeInt(child);
+				}
+				m_nodeTableSize += NON_LEAF_RECORD_SIZE;
+				if ( m_nodeTableSize < 0 ) {
+					throw new QuadTreeException("too many nodes to write");
+				}
+				
+				return offset;
+			}
+		}
+		
+		private void writeBounds(Envelope bounds) throws IOException {
+			m_out.writeDouble(bounds.getMinX());
+			m_out.writeDouble(bounds.getMinY());
+			m_out.writeDouble(bounds.getMaxX());
+			m_out.writeDouble(bounds.getMaxY());
+		}
+	}
+}
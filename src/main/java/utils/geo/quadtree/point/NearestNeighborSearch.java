@@ -0,0 +1,222 @@
+package utils.geo.quadtree.point;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+
+import com.google.common.collect.Lists;
+
+/**
+ * QuadTree에서 기준점으로부터 가까운 k개의 데이터를 찾는 best-first 탐색.
+ * <p>
+ * 기준점과의 최소 거리가 가까운 노드부터 방문하며, 이미 찾은 k번째 데이터의 거리보다
+ * 최소 거리가 먼 노드는 방문하지 않는다.
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+class NearestNeighborSearch<T extends PointValue, P extends PointPartition<T>> {
+	/**
+	 * 탐색에 사용되는 거리 척도.
+	 */
+	interface Metric {
+		/**
+		 * 주어진 영역에 포함된 임의의 점까지의 거리의 하한 값을 반환한다.
+		 * 
+		 * @param bounds	영역
+		 * @return	거리 하한 값
+		 */
+		public double minDistance(Envelope bounds);
+		
+		/**
+		 * 주어진 좌표까지의 거리를 반환한다.
+		 * 
+		 * @param coord	좌표
+		 * @return	거리
+		 */
+		public double distance(Coordinate coord);
+		
+		/**
+		 * 주어진 좌표까지의 거리의 하한 값을 반환한다.
+		 * {@link #distance(Coordinate)}의 계산 비용이 큰 경우, 본 값을 이용하여
+		 * 거리 계산이 필요없는 데이터를 미리 걸러낸다.
+		 * 
+		 * @param coord	좌표
+		 * @return	거리 하한 값
+		 */
+		public default double minDistance(Coordinate coord) {
+			return 0;
+		}
+	}
+	
+	private final Metric m_metric;
+	private final int m_k;
+	private final double m_maxDistance;
+	
+	NearestNeighborSearch(Metric metric, int k, double maxDistance) {
+		m_metric = metric;
+		m_k = k;
+		m_maxDistance = maxDistance;
+	}
+	
+	/**
+	 * 주어진 노드 하위에서 가까운 k개의 데이터를 거리 순으로 반환한다.
+	 * 
+	 * @param root	탐색을 시작할 노드
+	 * @return	데이터 리스트
+	 */
+	List<T> search(PointNode<T,P> root) {
+		PriorityQueue<Entry<PointNode<T,P>>> nodeQueue
+									= new PriorityQueue<>(Comparator.comparingDouble(e -> e.m_distance));
+		// 지금까지 찾은 데이터 중 가장 먼 데이터가 head가 되도록 한다.
+		PriorityQueue<Entry<T>> founds = new PriorityQueue<>(m_k + 1,
+											Comparator.<Entry<T>>comparingDouble(e -> e.m_distance).reversed());
+		
+		double rootDist = m_metric.minDistance(root.getBounds());
+		if ( rootDist <= m_maxDistance ) {
+			nodeQueue.add(new Entry<>(root, rootDist));
+		}
+		while ( !nodeQueue.isEmpty() ) {
+			Entry<PointNode<T,P>> entry = nodeQueue.poll();
+			if ( entry.m_distance > getSearchRadius(founds) ) {
+				break;
+			}
+			
+			if ( entry.m_value instanceof PointLeafNode ) {
+				Iterator<T> iter = ((PointLeafNode<T,P>)entry.m_value).values().iterator();
+				while ( iter.hasNext() ) {
+					T value = iter.next();
+					Coordinate coord = value.getCoordinate();
+					if ( m_metric.minDistance(coord) > getSearchRadius(founds) ) {
+						continue;
+					}
+					
+					double dist = m_metric.distance(coord);
+					if ( founds.size() < m_k ) {
+						if ( dist <= m_maxDistance ) {
+							founds.add(new Entry<>(value, dist));
+						}
+					}
+					else if ( dist < founds.peek().m_distance ) {
+						founds.poll();
+						founds.add(new Entry<>(value, dist));
+					}
+				}
+			}
+			else {
+				PointNonLeafNode<T,P> nonLeaf = (PointNonLeafNode<T,P>)entry.m_value;
+				double radius = getSearchRadius(founds);
+				for ( int i =0; i < PointQuadTree.QUAD; ++i ) {
+					PointNode<T,P> child = nonLeaf.getChild(i);
+					Envelope bounds = getSearchBounds(child);
+					if ( bounds.isNull() ) {
+						continue;
+					}
+					
+					double dist = m_metric.minDistance(bounds);
+					if ( dist <= radius ) {
+						nodeQueue.add(new Entry<>(child, dist));
+					}
+				}
+			}
+		}
+		
+		@SuppressWarnings("unchecked")
+		Entry<T>[] sorted = founds.toArray(new Entry[founds.size()]);
+		Arrays.sort(sorted, Comparator.comparingDouble(e -> e.m_distance));
+		
+		List<T> result = Lists.newArrayListWithCapacity(sorted.length);
+		for ( Entry<T> e: sorted ) {
+			result.add(e.m_value);
+		}
+		return result;
+	}
+	
+	/**
+	 * 주어진 노드 하위에서 최대 거리 이내에 있는 모든 데이터를 수집한다.
+	 * 수집되는 데이터의 순서는 거리 순이 아닌 단말 노드 체인의 순서를 따른다.
+	 * 
+	 * @param node	탐색을 시작할 노드
+	 * @param collecteds	수집된 데이터가 저장될 리스트
+	 */
+	void collectWithin(PointNode<T,P> node, List<T> collecteds) {
+		Envelope bounds = getSearchBounds(node);
+		if ( bounds.isNull() || m_metric.minDistance(bounds) > m_maxDistance ) {
+			return;
+		}
+		
+		if ( node instanceof PointLeafNode ) {
+			Iterator<T> iter = ((PointLeafNode<T,P>)node).values().iterator();
+			while ( iter.hasNext() ) {
+				T value = iter.next();
+				Coordinate coord = value.getCoordinate();
+				if ( m_metric.minDistance(coord) <= m_maxDistance
+					&& m_metric.distance(coord) <= m_maxDistance ) {
+					collecteds.add(value);
+				}
+			}
+		}
+		else {
+			PointNonLeafNode<T,P> nonLeaf = (PointNonLeafNode<T,P>)node;
+			for ( int i =0; i < PointQuadTree.QUAD; ++i ) {
+				collectWithin(nonLeaf.getChild(i), collecteds);
+			}
+		}
+	}
+	
+	/**
+	 * 거리 하한 계산에 사용할 노드의 영역을 반환한다.
+	 * non-leaf 노드는 노드 영역 대신 실제 데이터의 MBR을 사용한다.
+	 */
+	private Envelope getSearchBounds(PointNode<T,P> node) {
+		return (node instanceof PointNonLeafNode) ? ((PointNonLeafNode<T,P>)node).getDataBoundsRef()
+												: node.getBounds();
+	}
+	
+	private double getSearchRadius(PriorityQueue<Entry<T>> founds) {
+		return (founds.size() < m_k) ? m_maxDistance : founds.peek().m_distance;
+	}
+	
+	/**
+	 * 평면 좌표계에서의 유클리드 거리 척도.
+	 */
+	static class PlanarMetric implements Metric {
+		private final double m_x;
+		private final double m_y;
+		
+		PlanarMetric(Coordinate center) {
+			m_x = center.x;
+			m_y = center.y;
+		}
+		
+		@Override
+		public double minDistance(Envelope bounds) {
+			double dx = (m_x < bounds.getMinX()) ? bounds.getMinX() - m_x
+												: (m_x > bounds.getMaxX()) ? m_x - bounds.getMaxX() : 0;
+			double dy = (m_y < bounds.getMinY()) ? bounds.getMinY() - m_y
+												: (m_y > bounds.getMaxY()) ? m_y - bounds.getMaxY() : 0;
+			return Math.sqrt(dx*dx + dy*dy);
+		}
+		
+		@Override
+		public double distance(Coordinate coord) {
+			double dx = coord.x - m_x;
+			double dy = coord.y - m_y;
+			return Math.sqrt(dx*dx + dy*dy);
+		}
+	}
+	
+	private static final class Entry<V> {
+		private final V m_value;
+		private final double m_distance;
+		
+		Entry(V value, double distance) {
+			m_value = value;
+			m_distance = distance;
+		}
+	}
+}
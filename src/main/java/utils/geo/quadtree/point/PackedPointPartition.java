@@ -0,0 +1,292 @@
+package utils.geo.quadtree.point;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+import org.locationtech.jts.geom.Envelope;
+
+import com.google.common.base.Preconditions;
+
+import utils.stream.FStream;
+
+/**
+ * point의 좌표와 식별자를 primitive 배열에 저장하는 {@link PointPartition}.
+ * <p>
+ * point별로 {@link PackedPointValue}와 {@link org.locationtech.jts.geom.Coordinate} 객체를
+ * 유지하지 않고 x, y 좌표와 식별자를 각각 {@code double[]}, {@code long[]} 배열에 저장한다.
+ * {@link PackedPointValue} 객체는 {@link #values()}나 {@link #intersects(Envelope)}의
+ * 결과로 반환될 때만 생성되며, 질의 영역과의 겹침 여부는 배열에 대해 직접 검사한다.
+ * <p>
+ * 배열은 작은 크기로 시작하여 필요에 따라 최대 용량까지 확장된다.
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class PackedPointPartition implements PointPartition<PackedPointValue> {
+	private static final int INITIAL_SIZE = 16;
+	
+	private final int m_capacity;
+	private double[] m_xs;
+	private double[] m_ys;
+	private long[] m_ids;
+	private int m_size;
+	
+	private double m_minX = Double.POSITIVE_INFINITY;
+	private double m_minY = Double.POSITIVE_INFINITY;
+	private double m_maxX = Double.NEGATIVE_INFINITY;
+	private double m_maxY = Double.NEGATIVE_INFINITY;
+	
+	/**
+	 * 주어진 최대 용량의 partition을 생성하는 partition 생성기를 반환한다.
+	 * 
+	 * @param capacity	partition의 최대 용량
+	 * @return	partition 생성기
+	 */
+	public static Function<Envelope,PackedPointPartition> supplier(int capacity) {
+		Preconditions.checkArgument(capacity > 0, "invalid capacity: " + capacity);
+		
+		return bounds -> new PackedPointPartition(capacity);
+	}
+	
+	public PackedPointPartition(int capacity) {
+		Preconditions.checkArgument(capacity > 0, "invalid capacity: " + capacity);
+		
+		m_capacity = capacity;
+		int initSize = Math.min(capacity, INITIAL_SIZE);
+		m_xs = new double[initSize];
+		m_ys = new double[initSize];
+		m_ids = new long[initSize];
+		m_size = 0;
+	}
+	
+	public int getCapacity() {
+		return m_capacity;
+	}
+	
+	@Override
+	public int size() {
+		return m_size;
+	}
+	
+	@Override
+	public Envelope getBounds() {
+		return (m_size > 0) ? new Envelope(m_minX, m_maxX, m_minY, m_maxY) : new Envelope();
+	}
+	
+	public double getX(int idx) {
+		return m_xs[idx];
+	}
+	
+	public double getY(int idx) {
+		return m_ys[idx];
+	}
+	
+	public long getId(int idx) {
+		return m_ids[idx];
+	}
+	
+	public PackedPointValue get(int idx) {
+		Preconditions.checkElementIndex(idx, m_size);
+		
+		return new PackedPointValue(m_ids[idx], m_xs[idx], m_ys[idx]);
+	}
+	
+	@Override
+	public FStream<PackedPointValue> values() {
+		return FStream.from(new IntersectsIterator(null));
+	}
+	
+	@Override
+	public FStream<PackedPointValue> intersects(Envelope query) {
+		Preconditions.checkArgument(query != null, "query is null");
+		
+		return FStream.from(new IntersectsIterator(query));
+	}
+	
+	@Override
+	public boolean visit(PointVisitor<? super PackedPointValue> visitor) {
+		for ( int i =0; i < m_size; ++i ) {
+			if ( !visitor.visit(new PackedPointValue(m_ids[i], m_xs[i], m_ys[i])) ) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	@Override
+	public boolean visitIntersects(Envelope query, PointVisitor<? super PackedPointValue> visitor) {
+		final double qMinX = query.getMinX();
+		final double qMinY = query.getMinY();
+		final double qMaxX = query.getMaxX();
+		final double qMaxY = query.getMaxY();
+		final double[] xs = m_xs;
+		final double[] ys = m_ys;
+		
+		for ( int i =0; i < m_size; ++i ) {
+			double x = xs[i];
+			double y = ys[i];
+			if ( x >= qMinX && x <= qMaxX && y >= qMinY && y <= qMaxY ) {
+				if ( !visitor.visit(new PackedPointValue(m_ids[i], x, y)) ) {
+					return false;
+				}
+			}
+		}
+		
+		return true;
+	}
+
+	@Override
+	public int count(Envelope query) {
+		final double qMinX = query.getMinX();
+		final double qMinY = query.getMinY();
+		final double qMaxX = query.getMaxX();
+		final double qMaxY = query.getMaxY();
+		final double[] xs = m_xs;
+		final double[] ys = m_ys;
+		
+		int count = 0;
+		for ( int i =0; i < m_size; ++i ) {
+			double x = xs[i];
+			double y = ys[i];
+			if ( x >= qMinX && x <= qMaxX && y >= qMinY && y <= qMaxY ) {
+				++count;
+			}
+		}
+		
+		return count;
+	}
+
+	@Override
+	public boolean add(PackedPointValue value) {
+		if ( m_size >= m_capacity ) {
+			return false;
+		}
+		
+		if ( m_size == m_xs.length ) {
+			int newSize = (int)Math.min((long)m_xs.length * 2, m_capacity);
+			m_xs = Arrays.copyOf(m_xs, newSize);
+			m_ys = Arrays.copyOf(m_ys, newSize);
+			m_ids = Arrays.copyOf(m_ids, newSize);
+		}
+		
+		double x = value.getCoordinate().x;
+		double y = value.getCoordinate().y;
+		m_xs[m_size] = x;
+		m_ys[m_size] = y;
+		m_ids[m_size] = value.getId();
+		++m_size;
+		
+		m_minX = Math.min(m_minX, x);
+		m_minY = Math.min(m_minY, y);
+		m_maxX = Math.max(m_maxX, x);
+		m_maxY = Math.max(m_maxY, y);
+		
+		return true;
+	}
+	
+	@Override
+	public boolean remove(PackedPointValue value) {
+		final long id = value.getId();
+		final double x = value.getCoordinate().x;
+		final double y = value.getCoordinate().y;
+		
+		for ( int i =0; i < m_size; ++i ) {
+			if ( m_ids[i] == id && m_xs[i] == x && m_ys[i] == y ) {
+				// 마지막 point를 삭제된 위치로 옮긴다.
+				int last = --m_size;
+				m_xs[i] = m_xs[last];
+				m_ys[i] = m_ys[last];
+				m_ids[i] = m_ids[last];
+				
+				// 삭제된 point가 MBR의 경계에 위치한 경우만 MBR을 다시 계산한다.
+				if ( x == m_minX || x == m_maxX || y == m_minY || y == m_maxY ) {
+					recomputeBounds();
+				}
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	private void recomputeBounds() {
+		m_minX = Double.POSITIVE_INFINITY;
+		m_minY = Double.POSITIVE_INFINITY;
+		m_maxX = Double.NEGATIVE_INFINITY;
+		m_maxY = Double.NEGATIVE_INFINITY;
+		for ( int i =0; i < m_size; ++i ) {
+			m_minX = Math.min(m_minX, m_xs[i]);
+			m_minY = Math.min(m_minY, m_ys[i]);
+			m_maxX = Math.max(m_maxX, m_xs[i]);
+			m_maxY = Math.max(m_maxY, m_ys[i]);
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%s: size=%d/%d", getClass().getSimpleName(), m_size, m_capacity);
+	}
+	
+	/**
+	 * 질의 영역과 겹치는 point들을 차례대로 접근하는 순환자.
+	 * 질의 영역이 {@code null}인 경우는 모든 point들을 접근한다.
+	 */
+	private class IntersectsIterator implements Iterator<PackedPointValue> {
+		private final boolean m_all;
+		private final double m_qMinX;
+		private final double m_qMinY;
+		private final double m_qMaxX;
+		private final double m_qMaxY;
+		private int m_next;
+		
+		IntersectsIterator(Envelope query) {
+			m_all = query == null;
+			m_qMinX = m_all ? 0 : query.getMinX();
+			m_qMinY = m_all ? 0 : query.getMinY();
+			m_qMaxX = m_all ? 0 : query.getMaxX();
+			m_qMaxY = m_all ? 0 : query.getMaxY();
+			m_next = seek(0);
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return m_next < m_size;
+		}
+		
+		@Override
+		public PackedPointValue next() {
+			if ( m_next >= m_size ) {
+				throw new NoSuchElementException();
+			}
+			
+			int idx = m_next;
+			m_next = seek(idx + 1);
+			
+			return new PackedPointValue(m_ids[idx], m_xs[idx], m_ys[idx]);
+		}
+		
+		private int seek(int start) {
+			if ( m_all ) {
+				return start;
+			}
+			
+			final double[] xs = m_xs;
+			final double[] ys = m_ys;
+			final int size = m_size;
+			
+			int idx = start;
+			while ( idx < size ) {
+				double x = xs[idx];
+				double y = ys[idx];
+				if ( x >= m_qMinX && x <= m_qMaxX && y >= m_qMinY && y <= m_qMaxY ) {
+					break;
+				}
+				++idx;
+			}
+			
+			return idx;
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package utils.geo.quadtree.point;
+
+import java.util.Objects;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+
+/**
+ * 식별자와 좌표로만 구성된 point 데이터.
+ * {@link PackedPointPartition}에 저장되는 데이터 타입으로, 실제 데이터 객체는
+ * 식별자를 통해 별도로 관리하는 것을 가정한다.
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+public final class PackedPointValue implements PointValue {
+	private final long m_id;
+	private final Coordinate m_coord;
+	
+	public PackedPointValue(long id, double x, double y) {
+		m_id = id;
+		m_coord = new Coordinate(x, y);
+	}
+	
+	public PackedPointValue(long id, Coordinate coord) {
+		this(id, coord.x, coord.y);
+	}
+	
+	public long getId() {
+		return m_id;
+	}
+	
+	@Override
+	public Coordinate getCoordinate() {
+		return m_coord;
+	}
+	
+	@Override
+	public Envelope getEnvelope() {
+		return new Envelope(m_coord);
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if ( this == obj ) {
+			return true;
+		}
+		else if ( obj == null || obj.getClass() != PackedPointValue.class ) {
+			return false;
+		}
+		
+		PackedPointValue other = (PackedPointValue)obj;
+		return m_id == other.m_id && m_coord.equals2D(other.m_coord);
+	}
+	
+	@Override
+	public int hashCode() {
+		return Objects.hash(m_id, m_coord.x, m_coord.y);
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%d:(%f,%f)", m_id, m_coord.x, m_coord.y);
+	}
+}
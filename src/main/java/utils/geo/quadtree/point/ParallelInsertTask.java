@@ -0,0 +1,115 @@
+package utils.geo.quadtree.point;
+
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+import com.google.common.collect.Lists;
+
+import utils.geo.quadtree.TooBigValueException;
+
+/**
+ * 주어진 non-leaf 노드 하위에 여러 데이터를 병렬로 삽입하는 fork-join 작업.
+ * <p>
+ * 삽입할 데이터들을 하위 노드별로 나눈 뒤, 각 하위 노드에 대한 삽입을 별도의 작업으로 수행한다.
+ * 서로 다른 하위 노드의 삽입은 겹치는 노드가 없기 때문에 동기화 없이 병렬로 수행될 수 있다.
+ * 단, 단말노드 분할 시 단말 노드 체인은 갱신되지 않기 때문에, 작업이 종료된 후
+ * {@link PointQuadTree#relinkLeafNodes(PointNode)}를 통해 체인을 재구성하여야 한다.
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+class ParallelInsertTask<T extends PointValue, P extends PointPartition<T>> extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+	
+	/** 삽입할 데이터 수가 본 값보다 작은 경우는 하위 작업을 fork하지 않고 직접 수행한다. */
+	static final int SEQUENTIAL_THRESHOLD = 1024;
+	
+	private final PointNonLeafNode<T,P> m_node;
+	private final List<T> m_values;
+	private final long m_epoch;
+	
+	/**
+	 * 병렬 삽입 작업을 생성한다.
+	 * 
+	 * @param node	삽입 대상 non-leaf 노드. 주어진 epoch에 생성된 노드이어야 한다.
+	 * @param values	삽입할 데이터들
+	 * @param epoch		QuadTree의 현재 epoch. 이보다 작은 epoch의 하위 노드는 갱신하기 전에 복사된다.
+	 */
+	ParallelInsertTask(PointNonLeafNode<T,P> node, List<T> values, long epoch) {
+		m_node = node;
+		m_values = values;
+		m_epoch = epoch;
+	}
+	
+	@Override
+	protected void compute() throws TooBigValueException {
+		List<List<T>> groups = Lists.newArrayListWithCapacity(PointQuadTree.QUAD);
+		for ( int i =0; i < PointQuadTree.QUAD; ++i ) {
+			groups.add(Lists.newArrayList());
+		}
+		for ( T value: m_values ) {
+			int idx = m_node.findChildIndex(value.getCoordinate());
+			if ( idx < 0 ) {
+				String msg = String.format("bounds=%s, value=%s", m_node.getBounds(), value);
+				throw new IllegalStateException("unexpected state for insert: " + msg);
+			}
+			groups.get(idx).add(value);
+		}
+		
+		List<ParallelInsertTask<T,P>> subTasks = Lists.newArrayList();
+		for ( int i =0; i < PointQuadTree.QUAD; ++i ) {
+			List<T> group = groups.get(i);
+			if ( group.isEmpty() ) {
+				continue;
+			}
+			
+			PointNode<T,P> child = m_node.getChild(i);
+			if ( child.getEpoch() < m_epoch ) {
+				// snapshot과 공유될 수 있는 노드는 복사본을 갱신한다.
+				// 단말 노드 체인은 삽입이 모두 끝난 뒤 재구성되므로 여기서는 연결하지 않는다.
+				child = (child instanceof PointLeafNode)
+						? ((PointLeafNode<T,P>)child).copy(m_epoch, false)
+						: ((PointNonLeafNode<T,P>)child).copy(m_epoch);
+				m_node.setChild(i, child);
+			}
+			
+			if ( child instanceof PointNonLeafNode ) {
+				subTasks.add(new ParallelInsertTask<>((PointNonLeafNode<T,P>)child, group, m_epoch));
+			}
+			else {
+				ParallelInsertTask<T,P> task = insertIntoLeaf(i, (PointLeafNode<T,P>)child, group);
+				if ( task != null ) {
+					subTasks.add(task);
+				}
+			}
+		}
+		
+		if ( m_values.size() < SEQUENTIAL_THRESHOLD ) {
+			for ( ParallelInsertTask<T,P> task: subTasks ) {
+				task.compute();
+			}
+		}
+		else {
+			invokeAll(subTasks);
+		}
+		
+		// 하위 작업들이 모두 끝났으므로, 하위 노드들의 통계 정보를 이용하여 갱신한다.
+		m_node.updateStatistics();
+	}
+	
+	/**
+	 * 주어진 단말노드에 데이터들을 차례대로 삽입한다.
+	 * 삽입 도중 단말노드가 분할되면, 분할된 노드로 남은 데이터를 삽입하는 작업을 반환한다.
+	 */
+	private ParallelInsertTask<T,P> insertIntoLeaf(int childIdx, PointLeafNode<T,P> leaf, List<T> values) {
+		for ( int i =0; i < values.size(); ++i ) {
+			if ( !leaf.insert(values.get(i)) ) {
+				PointNonLeafNode<T,P> splitted = leaf.split(false);
+				m_node.setChild(childIdx, splitted);
+				
+				return new ParallelInsertTask<>(splitted, values.subList(i, values.size()), m_epoch);
+			}
+		}
+		
+		return null;
+	}
+}
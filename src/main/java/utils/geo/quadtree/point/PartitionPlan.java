@@ -0,0 +1,134 @@
+package utils.geo.quadtree.point;
+
+import java.io.Serializable;
+import java.util.List;
+
+import org.locationtech.jts.geom.Envelope;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * QuadTree의 단말 노드들을 단말 노드 체인 순서대로 묶어 나눈 분할 계획.
+ * <p>
+ * 각 분할(chunk)은 연속된 단말 노드들로 구성되며, 분할에 속한 단말 노드들의 quad-key 범위,
+ * 영역 그리고 데이터 갯수를 갖는다. 분할들의 quad-key 범위는 서로 겹치지 않고 연속적이다.
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ * @see PointQuadTree#partitionPlan(int)
+ */
+public final class PartitionPlan implements Serializable {
+	private static final long serialVersionUID = 1L;
+	
+	private final List<Chunk> m_chunks;
+	private final long m_valueCount;
+	
+	PartitionPlan(List<Chunk> chunks) {
+		m_chunks = ImmutableList.copyOf(chunks);
+		m_valueCount = chunks.stream().mapToLong(Chunk::getValueCount).sum();
+	}
+	
+	/**
+	 * 분할 목록을 quad-key 순서대로 반환한다.
+	 * 
+	 * @return	분할 목록
+	 */
+	public List<Chunk> getChunks() {
+		return m_chunks;
+	}
+	
+	public int getChunkCount() {
+		return m_chunks.size();
+	}
+	
+	public Chunk getChunk(int index) {
+		return m_chunks.get(index);
+	}
+	
+	/**
+	 * 모든 분할에 포함된 데이터 갯수의 합을 반환한다.
+	 * 
+	 * @return	데이터 갯수
+	 */
+	public long getValueCount() {
+		return m_valueCount;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%s: chunks=%d, count=%d", getClass().getSimpleName(),
+								m_chunks.size(), m_valueCount);
+	}
+	
+	/**
+	 * 연속된 단말 노드들로 구성된 하나의 분할.
+	 */
+	public static final class Chunk implements Serializable {
+		private static final long serialVersionUID = 1L;
+		
+		private final int m_index;
+		private final Envelope m_bounds;
+		private final long m_valueCount;
+		private final int m_leafCount;
+		private final long m_fromKey;
+		private final long m_toKey;
+		
+		Chunk(int index, Envelope bounds, long valueCount, int leafCount, long fromKey, long toKey) {
+			m_index = index;
+			m_bounds = bounds;
+			m_valueCount = valueCount;
+			m_leafCount = leafCount;
+			m_fromKey = fromKey;
+			m_toKey = toKey;
+		}
+		
+		/**
+		 * 분할 계획에서의 본 분할의 순번을 반환한다.
+		 * 
+		 * @return	순번
+		 */
+		public int getIndex() {
+			return m_index;
+		}
+		
+		/**
+		 * 본 분할에 속한 단말 노드 영역들을 모두 포함하는 최소 사각 영역을 반환한다.
+		 * 
+		 * @return	분할 영역
+		 */
+		public Envelope getBounds() {
+			return new Envelope(m_bounds);
+		}
+		
+		public long getValueCount() {
+			return m_valueCount;
+		}
+		
+		public int getLeafNodeCount() {
+			return m_leafCount;
+		}
+		
+		/**
+		 * 본 분할의 시작 quad-key를 반환한다.
+		 * 
+		 * @return	quad-key (포함)
+		 */
+		public long getFromKey() {
+			return m_fromKey;
+		}
+		
+		/**
+		 * 본 분할의 종료 quad-key를 반환한다.
+		 * 
+		 * @return	quad-key (포함)
+		 */
+		public long getToKey() {
+			return m_toKey;
+		}
+		
+		@Override
+		public String toString() {
+			return String.format("chunk[%d]: bounds=%s, count=%d, leaves=%d, keys=[%d, %d]",
+									m_index, m_bounds, m_valueCount, m_leafCount, m_fromKey, m_toKey);
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package utils.geo.quadtree.point;
 
 import java.util.Iterator;
+import java.util.List;
 import java.util.function.Function;
 
 import javax.annotation.Nullable;
@@ -23,27 +24,51 @@ public class PointLeafNode<T extends PointValue, P extends PointPartition<T>> ex
 	private static final Logger s_logger = LoggerFactory.getLogger(PointLeafNode.class);
 	
 	private final @Nullable Function<Envelope,P> m_partSupplier;
+	private final SplitStrategy m_splitStrategy;
 	private final P m_partition;
-	private PointLeafNode<T,P> m_prev;
-	private PointLeafNode<T,P> m_next;
+	private volatile PointLeafNode<T,P> m_prev;
+	private volatile PointLeafNode<T,P> m_next;
 	
 	PointLeafNode(Envelope bounds, P partition) {
 		super(bounds);
 		
 		m_partSupplier = null;
+		m_splitStrategy = SplitStrategy.MIDPOINT;
 		m_partition = partition;
 	}
 	
 	public PointLeafNode(Envelope bounds, Function<Envelope,P> partSupplier) {
+		this(bounds, partSupplier, SplitStrategy.MIDPOINT);
+	}
+	
+	/**
+	 * 단말노드를 생성한다.
+	 * 
+	 * @param bounds	노드 영역
+	 * @param partSupplier	partition 생성기
+	 * @param splitStrategy	본 단말노드와 분할로 생성될 하위 단말노드들이 사용할 분할 전략
+	 */
+	public PointLeafNode(Envelope bounds, Function<Envelope,P> partSupplier, SplitStrategy splitStrategy) {
 		super(bounds);
 		
+		Preconditions.checkArgument(splitStrategy != null, "splitStrategy is null");
+		
 		m_partSupplier = partSupplier;
+		m_splitStrategy = splitStrategy;
 		m_partition = partSupplier.apply(bounds);
 	}
 	
 	public P getPartition() {
 		return m_partition;
 	}
+	
+	@Nullable Function<Envelope,P> getPartitionSupplier() {
+		return m_partSupplier;
+	}
+	
+	public SplitStrategy getSplitStrategy() {
+		return m_splitStrategy;
+	}
 
 	@Override
 	public int getValueCount() {
@@ -70,6 +95,46 @@ public class PointLeafNode<T extends PointValue, P extends PointPartition<T>> ex
 		}
 	}
 	
+	/**
+	 * 본 단말노드에 저장된 데이터 중 주어진 질의 영역과 겹치는 데이터를 visitor에게 전달한다.
+	 * 
+	 * @param key	질의 영역
+	 * @param visitor	데이터를 전달받을 visitor
+	 * @return	탐색이 visitor에 의해 중단된 경우는 {@code false}.
+	 */
+	boolean visit(Envelope key, PointVisitor<? super T> visitor) {
+		Envelope bounds = getBounds();
+		if ( !bounds.intersects(key) ) {
+			return true;
+		}
+		else if ( key.contains(bounds) ) {
+			// 단말노드 영역이 질의 영역에 완전히 포함되는 경우는 point별 검사가 필요없다.
+			return m_partition.visit(visitor);
+		}
+		else {
+			return m_partition.visitIntersects(key, visitor);
+		}
+	}
+	
+	/**
+	 * 본 단말노드에 저장된 데이터 중 주어진 질의 영역과 겹치는 데이터의 갯수를 반환한다.
+	 * 
+	 * @param key	질의 영역
+	 * @return	데이터 갯수
+	 */
+	int count(Envelope key) {
+		Envelope bounds = getBounds();
+		if ( !bounds.intersects(key) ) {
+			return 0;
+		}
+		else if ( key.contains(bounds) ) {
+			return m_partition.size();
+		}
+		else {
+			return m_partition.count(key);
+		}
+	}
+	
 	boolean insert(T value) throws TooBigValueException {
 		return insert(value, true);
 	}
@@ -88,29 +153,38 @@ public class PointLeafNode<T extends PointValue, P extends PointPartition<T>> ex
 		}
 	}
 	
+	boolean remove(T value) {
+		return m_partition.remove(value);
+	}
+	
 	boolean expand() {
 		return m_partition.expand();
 	}
 	
 	PointNonLeafNode<T,P> split() {
+		return split(true);
+	}
+	
+	/**
+	 * 본 단말노드를 4개의 단말노드로 분할하고, 이들을 하위 노드로 하는 non-leaf 노드를 반환한다.
+	 * 
+	 * @param linkLeaves	분할로 생성된 단말노드들을 단말 노드 체인에 연결할지 여부.
+	 * 					{@code false}인 경우는 호출자가 별도로 체인을 재구성하여야 한다.
+	 * @return	분할된 non-leaf 노드
+	 */
+	PointNonLeafNode<T,P> split(boolean linkLeaves) {
 		Envelope bounds = getBounds();
-		double midX = bounds.getMinX() + bounds.getWidth()/2;
-		double midY = bounds.getMinY() + bounds.getHeight()/2;
-		Envelope[] splits = new Envelope[] {
-			new Envelope(bounds.getMinX(), midX, bounds.getMinY(), midY),
-			new Envelope(midX, bounds.getMaxX(), bounds.getMinY(), midY),
-			new Envelope(bounds.getMinX(), midX, midY, bounds.getMaxY()),
-			new Envelope(midX, bounds.getMaxX(), midY, bounds.getMaxY()),
-		};
+		List<Coordinate> coords = m_partition.values().map(PointValue::getCoordinate).toList();
+		Envelope[] splits = m_splitStrategy.split(bounds, coords);
 		
 		@SuppressWarnings("unchecked")
 		PointLeafNode<T,P>[] childNodes = FStream.of(splits)
-												.map(envl -> new PointLeafNode<>(envl, m_partSupplier))
+												.map(envl -> new PointLeafNode<>(envl, m_partSupplier,
+																				m_splitStrategy))
 												.toArray(PointLeafNode.class);
 		for ( int i =0; i < childNodes.length; ++i ) {
-			PointLeafNode<T,P> node = childNodes[i];
-			PointQuadTree.link((i == 0) ? m_prev : childNodes[i-1], node);
-			PointQuadTree.link(node, (i == childNodes.length-1) ? m_next : childNodes[i+1]);
+			childNodes[i].setQuadKey(getChildQuadKey(i), getLevel() + 1);
+			childNodes[i].setEpoch(getEpoch());
 		}
 		
 		Iterator<T> iter = m_partition.values().iterator();
@@ -131,6 +205,18 @@ public class PointLeafNode<T extends PointValue, P extends PointPartition<T>> ex
 				}
 			}
 		}
+		
+		if ( linkLeaves ) {
+			// 하위 노드들을 모두 채운 뒤에 단말 노드 체인에 연결한다.
+			// 체인을 따라 순회하는 쪽에서 비어있는 노드나 끊어진 체인을 보지 않도록
+			// 새 노드들 사이를 먼저 연결하고, 마지막으로 이전 노드와 연결한다.
+			for ( int i =0; i < childNodes.length-1; ++i ) {
+				PointQuadTree.link(childNodes[i], childNodes[i+1]);
+			}
+			PointQuadTree.link(childNodes[childNodes.length-1], m_next);
+			PointQuadTree.link(m_prev, childNodes[0]);
+		}
+		
 		if ( s_logger.isDebugEnabled() ) {
 			String details = FStream.of(childNodes)
 									.zipWithIndex()
@@ -139,7 +225,62 @@ public class PointLeafNode<T extends PointValue, P extends PointPartition<T>> ex
 			s_logger.debug(String.format("splitted: %d -> %s", getValueCount(), details));
 		}
 		
-		return new PointNonLeafNode<>(bounds, childNodes);
+		// 분할 직전 데이터 수의 절반 이하로 줄어들면 다시 병합되도록 한다.
+		PointNonLeafNode<T,P> splitted = new PointNonLeafNode<>(bounds, childNodes, getValueCount() / 2);
+		splitted.setQuadKey(getQuadKey(), getLevel());
+		splitted.setEpoch(getEpoch());
+		
+		return splitted;
+	}
+	
+	/**
+	 * 본 단말노드와 동일한 데이터를 갖는 새 단말노드를 생성한다.
+	 * partition은 partition 생성기를 통해 새로 생성되며, 저장된 데이터들이 모두 복사된다.
+	 * 
+	 * @param epoch	복사된 노드에 부여할 epoch.
+	 * @param linkLeaves	복사된 단말노드로 단말 노드 체인에서 본 노드를 대체할지 여부.
+	 * @return	복사된 단말노드
+	 * @throws UnsupportedOperationException	partition 생성기가 없는 단말노드인 경우.
+	 */
+	PointLeafNode<T,P> copy(long epoch, boolean linkLeaves) {
+		if ( m_partSupplier == null ) {
+			throw new UnsupportedOperationException("cannot copy a leaf node without partition supplier: "
+													+ this);
+		}
+		
+		PointLeafNode<T,P> copied = new PointLeafNode<>(getBounds(), m_partSupplier, m_splitStrategy);
+		Iterator<T> iter = m_partition.values().iterator();
+		while ( iter.hasNext() ) {
+			T value = iter.next();
+			while ( !copied.insert(value, false) ) {
+				if ( !copied.expand() ) {
+					throw new AssertionError("fails to copy node: " + this
+											+ " because parition insertion failed");
+				}
+			}
+		}
+		copied.setQuadKey(getQuadKey(), getLevel());
+		copied.setEpoch(epoch);
+		
+		if ( linkLeaves ) {
+			PointQuadTree.link(copied, m_next);
+			PointQuadTree.link(m_prev, copied);
+		}
+		
+		return copied;
+	}
+	
+	/**
+	 * 주어진 영역을 중심점을 기준으로 4개의 사분면으로 분할한다.
+	 * 반환되는 사분면의 순서는 단말 노드 체인의 순서와 동일하다.
+	 * 
+	 * @param bounds	분할할 영역
+	 * @return	분할된 4개의 사분면 영역
+	 */
+	static Envelope[] splitBounds(Envelope bounds) {
+		double midX = bounds.getMinX() + bounds.getWidth()/2;
+		double midY = bounds.getMinY() + bounds.getHeight()/2;
+		return SplitStrategy.quadrants(bounds, midX, midY);
 	}
 	
 	public PointLeafNode<T,P> getPreviousLeafNode() {
@@ -9,7 +9,13 @@ import utils.Utilities;
  * @author Kang-Woo Lee (ETRI)
  */
 public abstract class PointNode<T extends PointValue, P extends PointPartition<T>> {
+	/** quad-key로 표현할 수 있는 최대 노드 레벨. */
+	public static final int MAX_QUAD_KEY_LEVEL = 31;
+	
 	private final Envelope m_bounds;
+	private long m_quadKey = 0;
+	private int m_level = 0;
+	private long m_epoch = 0;	// 본 노드가 생성(복사)된 시점의 QuadTree epoch
 	
 	public abstract int getValueCount();
 	public abstract int getDepth();
@@ -23,4 +29,88 @@ public abstract class PointNode<T extends PointValue, P extends PointPartition<T
 	public Envelope getBounds() {
 		return m_bounds;
 	}
+	
+	/**
+	 * 본 노드의 quad-key를 반환한다.
+	 * <p>
+	 * quad-key는 최상위 노드로부터 본 노드까지의 경로를 Morton 순서로 표현한 값으로,
+	 * 레벨마다 하위 노드 순번(SW=0, SE=1, NW=2, NE=3)을 2비트씩 상위 비트부터 채우고
+	 * 나머지 하위 비트는 0으로 채운 값이다. 따라서 단말 노드 체인의 순서는 quad-key 순서와 같으며,
+	 * 본 노드 하위의 모든 노드들의 quad-key는 {@link #getQuadKey()}와 {@link #getLastQuadKey()}
+	 * 사이의 값을 갖는다.
+	 * {@link #MAX_QUAD_KEY_LEVEL}보다 깊은 레벨의 노드는 해당 레벨 조상 노드의 quad-key를 공유한다.
+	 * 
+	 * @return	quad-key
+	 */
+	public long getQuadKey() {
+		return m_quadKey;
+	}
+	
+	/**
+	 * 본 노드 하위의 노드들이 가질 수 있는 가장 큰 quad-key를 반환한다.
+	 * 
+	 * @return	quad-key
+	 */
+	public long getLastQuadKey() {
+		int shift = 2 * (MAX_QUAD_KEY_LEVEL - Math.min(m_level, MAX_QUAD_KEY_LEVEL));
+		return m_quadKey | ((1L << shift) - 1);
+	}
+	
+	/**
+	 * 본 노드의 레벨을 반환한다. 최상위 노드의 레벨은 0이다.
+	 * 
+	 * @return	노드 레벨
+	 */
+	public int getLevel() {
+		return m_level;
+	}
+	
+	void setQuadKey(long quadKey, int level) {
+		m_quadKey = quadKey;
+		m_level = level;
+	}
+	
+	/**
+	 * 본 노드가 생성된 시점의 QuadTree epoch을 반환한다.
+	 * QuadTree의 현재 epoch보다 작은 epoch의 노드는 snapshot과 공유될 수 있기 때문에
+	 * 갱신하기 전에 복사하여야 한다.
+	 * 
+	 * @return	epoch
+	 * @see PointQuadTree#snapshot()
+	 */
+	long getEpoch() {
+		return m_epoch;
+	}
+	
+	void setEpoch(long epoch) {
+		m_epoch = epoch;
+	}
+	
+	/**
+	 * 본 노드의 주어진 순번의 하위 노드가 가질 quad-key를 반환한다.
+	 * 
+	 * @param childIdx	하위 노드 순번
+	 * @return	quad-key
+	 */
+	long getChildQuadKey(int childIdx) {
+		if ( m_level >= MAX_QUAD_KEY_LEVEL ) {
+			return m_quadKey;
+		}
+		
+		return m_quadKey | ((long)childIdx << (2 * (MAX_QUAD_KEY_LEVEL - m_level - 1)));
+	}
+	
+	/**
+	 * 주어진 quad-key가 본 노드의 하위 노드들 중 몇 번째 노드에 해당하는지 반환한다.
+	 * 
+	 * @param quadKey	quad-key
+	 * @return	하위 노드 순번
+	 */
+	int getChildIndex(long quadKey) {
+		if ( m_level >= MAX_QUAD_KEY_LEVEL ) {
+			return 0;
+		}
+		
+		return (int)((quadKey >>> (2 * (MAX_QUAD_KEY_LEVEL - m_level - 1))) & 3);
+	}
 }
\ No newline at end of file
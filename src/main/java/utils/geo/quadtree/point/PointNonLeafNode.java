@@ -1,7 +1,10 @@
 package utils.geo.quadtree.point;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.function.Function;
 
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Envelope;
@@ -18,35 +21,170 @@ import utils.stream.FStream;
  */
 public class PointNonLeafNode<T extends PointValue, P extends PointPartition<T>> extends PointNode<T,P> {
 	private static final Logger s_logger = LoggerFactory.getLogger(PointNonLeafNode.class);
+	private static final VarHandle CHILDREN = MethodHandles.arrayElementVarHandle(PointNode[].class);
 	
 	private final PointNode<T,P>[] m_children;
+	private final int m_mergeThreshold;
+	
+	// 하위 트리에 대한 통계 정보. 삽입/삭제시마다 갱신된다.
+	private int m_count;
+	private int m_depth;
+	private Envelope m_dataBounds;	// 하위 트리에 저장된 데이터들의 MBR
 	
-	@SuppressWarnings("unchecked")
 	PointNonLeafNode(Envelope bounds, PointNode<T,P>[] children) {
+		this(bounds, children, 0);
+	}
+	
+	/**
+	 * non-leaf 노드를 생성한다.
+	 * 
+	 * @param bounds	노드 영역
+	 * @param children	하위 노드들
+	 * @param mergeThreshold	하위 노드들이 모두 단말노드이고 이들에 저장된 데이터 수의 합이
+	 * 					본 값 이하가 되면 하나의 단말노드로 병합된다.
+	 */
+	@SuppressWarnings("unchecked")
+	PointNonLeafNode(Envelope bounds, PointNode<T,P>[] children, int mergeThreshold) {
 		super(bounds);
 
+		m_mergeThreshold = mergeThreshold;
 		m_children = new PointNode[children.length];
 		for ( int i =0; i < children.length; ++i ) {
 			m_children[i] = children[i];
 		}
+		updateStatistics();
 	}
 
+	@SuppressWarnings("unchecked")
+	private PointNonLeafNode(PointNonLeafNode<T,P> src, long epoch) {
+		super(src.getBounds());
+		
+		m_mergeThreshold = src.m_mergeThreshold;
+		m_children = new PointNode[src.m_children.length];
+		for ( int i =0; i < m_children.length; ++i ) {
+			m_children[i] = src.getChild(i);
+		}
+		m_count = src.m_count;
+		m_depth = src.m_depth;
+		m_dataBounds = new Envelope(src.m_dataBounds);
+		
+		setQuadKey(src.getQuadKey(), src.getLevel());
+		setEpoch(epoch);
+	}
+	
+	/**
+	 * 본 노드와 동일한 하위 노드들을 갖는 새 non-leaf 노드를 생성한다.
+	 * 하위 노드들은 복사되지 않고 공유된다.
+	 * 
+	 * @param epoch	복사된 노드에 부여할 epoch.
+	 * @return	복사된 non-leaf 노드
+	 */
+	PointNonLeafNode<T,P> copy(long epoch) {
+		return new PointNonLeafNode<>(this, epoch);
+	}
+
+	/**
+	 * 하위 트리에 저장된 데이터의 갯수를 반환한다.
+	 * 삽입/삭제시마다 갱신된 값을 반환하기 때문에 하위 트리를 순회하지 않는다.
+	 * 
+	 * @return	데이터 갯수
+	 */
 	@Override
 	public int getValueCount() {
-		return Stream.of(m_children).mapToInt(PointNode::getValueCount).sum();
+		return m_count;
 	}
 
+	/**
+	 * 하위 트리의 깊이를 반환한다.
+	 * 삽입/삭제시마다 갱신된 값을 반환하기 때문에 하위 트리를 순회하지 않는다.
+	 * 
+	 * @return	트리 깊이
+	 */
 	@Override
 	public int getDepth() {
-		return FStream.of(m_children).mapToInt(node -> node.getDepth()).maxValue() + 1;
+		return m_depth;
+	}
+	
+	/**
+	 * 하위 트리에 저장된 데이터들의 MBR을 반환한다.
+	 * 노드 영역({@link #getBounds()})과 달리 실제 데이터가 존재하는 영역만을 포함하며,
+	 * 데이터가 없는 경우는 null envelope이 반환된다.
+	 * 
+	 * @return	데이터 MBR
+	 */
+	public Envelope getDataBounds() {
+		return new Envelope(m_dataBounds);
+	}
+	
+	/**
+	 * 하위 트리에 저장된 데이터들의 MBR을 복사하지 않고 반환한다.
+	 * 노드 방문시마다 호출되는 탐색 코드에서 사용하기 위한 것으로, 반환된 envelope은 수정하면 안된다.
+	 * 
+	 * @return	데이터 MBR
+	 */
+	Envelope getDataBoundsRef() {
+		return m_dataBounds;
+	}
+	
+	/**
+	 * 하위 노드들의 정보를 이용하여 데이터 갯수, 깊이, 데이터 MBR을 다시 계산한다.
+	 * 하위 노드들의 통계 정보는 이미 갱신된 상태이어야 한다.
+	 */
+	void updateStatistics() {
+		int count = 0;
+		int depth = 0;
+		Envelope dataBounds = new Envelope();
+		for ( int i =0; i < m_children.length; ++i ) {
+			PointNode<T,P> child = getChild(i);
+			count += child.getValueCount();
+			depth = Math.max(depth, child.getDepth());
+			dataBounds.expandToInclude(getDataBounds(child));
+		}
+		
+		m_count = count;
+		m_depth = depth + 1;
+		m_dataBounds = dataBounds;
 	}
 	
 	public PointNode<T,P>[] getChildrenNode() {
 		return m_children;
 	}
 	
+	/**
+	 * 주어진 순번의 하위 노드를 반환한다.
+	 * 다른 쓰레드에서 {@link #setChild(int, PointNode)}를 통해 교체된 노드도 안전하게 읽을 수 있다.
+	 * 
+	 * @param idx	하위 노드 순번
+	 * @return	하위 노드
+	 */
+	@SuppressWarnings("unchecked")
+	public PointNode<T,P> getChild(int idx) {
+		return (PointNode<T,P>)CHILDREN.getAcquire(m_children, idx);
+	}
+	
+	void setChild(int idx, PointNode<T,P> child) {
+		CHILDREN.setRelease(m_children, idx, child);
+	}
+	
+	/**
+	 * 주어진 좌표를 포함하는 하위 노드의 순번을 반환한다.
+	 * 좌표가 여러 하위 노드의 경계에 걸친 경우는 가장 작은 순번이 반환된다.
+	 * 
+	 * @param coord	좌표
+	 * @return	하위 노드 순번. 포함하는 하위 노드가 없는 경우는 -1.
+	 */
+	int findChildIndex(Coordinate coord) {
+		for ( int i =0; i < m_children.length; ++i ) {
+			if ( getChild(i).getBounds().intersects(coord) ) {
+				return i;
+			}
+		}
+		
+		return -1;
+	}
+	
 	public PointLeafNode<T,P> getFirstLeafNode() {
-		PointNode<T,P> first = m_children[0];
+		PointNode<T,P> first = getChild(0);
 		if ( first instanceof PointNonLeafNode ) {
 			return ((PointNonLeafNode<T,P>)first).getFirstLeafNode();
 		}
@@ -56,7 +194,7 @@ public class PointNonLeafNode<T extends PointValue, P extends PointPartition<T>>
 	}
 
 	public PointLeafNode<T,P> getLastLeafNode() {
-		PointNode<T,P> last = m_children[m_children.length-1];
+		PointNode<T,P> last = getChild(m_children.length-1);
 		if ( last instanceof PointNonLeafNode ) {
 			return ((PointNonLeafNode<T,P>)last).getLastLeafNode();
 		}
@@ -67,9 +205,9 @@ public class PointNonLeafNode<T extends PointValue, P extends PointPartition<T>>
 
 	public void collectIntersectingLeafNodes(final Envelope query,
 												List<PointLeafNode<T,P>> collecteds) {
-		for ( PointNode<T,P> child: m_children ) {
-			boolean intersects = child.getBounds().intersects(query);
-			if ( intersects ) {
+		for ( int i =0; i < m_children.length; ++i ) {
+			PointNode<T,P> child = getChild(i);
+			if ( mayIntersect(child, query) ) {
 				if ( child instanceof PointLeafNode ) {
 					collecteds.add((PointLeafNode<T,P>)child);
 				}
@@ -81,9 +219,84 @@ public class PointNonLeafNode<T extends PointValue, P extends PointPartition<T>>
 		}
 	}
 
+	/**
+	 * 하위 노드들에 저장된 데이터 중 주어진 질의 영역과 겹치는 데이터를 visitor에게 전달한다.
+	 * 
+	 * @param key	질의 영역
+	 * @param visitor	데이터를 전달받을 visitor
+	 * @return	탐색이 visitor에 의해 중단된 경우는 {@code false}.
+	 */
+	boolean visit(Envelope key, PointVisitor<? super T> visitor) {
+		if ( key.contains(m_dataBounds) ) {
+			// 하위 트리의 모든 데이터가 질의 영역에 포함되므로 데이터별 검사가 필요없다.
+			return visitAll(visitor);
+		}
+		
+		for ( int i =0; i < m_children.length; ++i ) {
+			PointNode<T,P> child = getChild(i);
+			if ( !mayIntersect(child, key) ) {
+				continue;
+			}
+			
+			boolean cont = (child instanceof PointLeafNode)
+							? ((PointLeafNode<T,P>)child).visit(key, visitor)
+							: ((PointNonLeafNode<T,P>)child).visit(key, visitor);
+			if ( !cont ) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+
+	/**
+	 * 하위 노드들에 저장된 모든 데이터를 visitor에게 전달한다.
+	 * 
+	 * @param visitor	데이터를 전달받을 visitor
+	 * @return	탐색이 visitor에 의해 중단된 경우는 {@code false}.
+	 */
+	boolean visitAll(PointVisitor<? super T> visitor) {
+		for ( int i =0; i < m_children.length; ++i ) {
+			PointNode<T,P> child = getChild(i);
+			boolean cont = (child instanceof PointLeafNode)
+							? ((PointLeafNode<T,P>)child).getPartition().visit(visitor)
+							: ((PointNonLeafNode<T,P>)child).visitAll(visitor);
+			if ( !cont ) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * 하위 노드들에 저장된 데이터 중 주어진 질의 영역과 겹치는 데이터의 갯수를 반환한다.
+	 * 데이터 MBR이 질의 영역에 완전히 포함되는 하위 트리는 저장된 데이터 갯수를 그대로 사용한다.
+	 * 
+	 * @param key	질의 영역
+	 * @return	데이터 갯수
+	 */
+	long count(Envelope key) {
+		if ( key.contains(m_dataBounds) ) {
+			return m_count;
+		}
+		
+		long count = 0;
+		for ( int i =0; i < m_children.length; ++i ) {
+			PointNode<T,P> child = getChild(i);
+			if ( mayIntersect(child, key) ) {
+				count += (child instanceof PointLeafNode)
+						? ((PointLeafNode<T,P>)child).count(key)
+						: ((PointNonLeafNode<T,P>)child).count(key);
+			}
+		}
+		
+		return count;
+	}
+
 	public PointLeafNode<T,P> getFirstIntersectsLeafNode(final Envelope query) {
 		for ( int i = 0; i < m_children.length; ++i ) {
-			PointNode<T,P> child = m_children[i];
+			PointNode<T,P> child = getChild(i);
 			
 			if ( child.getBounds().intersects(query) ) {
 				if ( child instanceof PointLeafNode ) {
@@ -109,34 +322,34 @@ public class PointNonLeafNode<T extends PointValue, P extends PointPartition<T>>
 	public PointLeafNode<T,P> insert(T value) {
 		final Coordinate coord = value.getCoordinate();
 		
-		for ( int i =0; i < m_children.length; ++i ) {
-			PointNode<T,P> child = m_children[i];
-			
-			if ( child.getBounds().intersects(coord) ) {
-				if ( child instanceof PointLeafNode ) {
-					// 단말노드인 경우는 split이 발생할 수도 있다.
-					PointLeafNode<T,P> leaf = (PointLeafNode<T,P>)child;
-					if ( leaf.insert(value) ) {
-						// split이 발생되지 않은 경우.
-						return leaf;
-					}
-					else {
-						// split이 발생된 경우
-						// split으로 생성된 parent non-leaf 노드를 child로 설정한다.
-						// 아래 line에서 non-leaf 노드를 기준으로 삽입을 시도한다.
-						try {
-							child = leaf.split();
-							m_children[i] = child;
-						}
-						catch ( TooBigValueException e ) {
-							throw e;
-						}
-					}
+		int idx = findChildIndex(coord);
+		if ( idx >= 0 ) {
+			PointNode<T,P> child = getChild(idx);
+			if ( child instanceof PointLeafNode ) {
+				// 단말노드인 경우는 split이 발생할 수도 있다.
+				PointLeafNode<T,P> leaf = (PointLeafNode<T,P>)child;
+				if ( leaf.insert(value) ) {
+					// split이 발생되지 않은 경우.
+					++m_count;
+					m_dataBounds.expandToInclude(coord);
+					return leaf;
+				}
+				else {
+					// split이 발생된 경우
+					// split으로 생성된 parent non-leaf 노드를 child로 설정한다.
+					// 아래 line에서 non-leaf 노드를 기준으로 삽입을 시도한다.
+					child = leaf.split();
+					setChild(idx, child);
 				}
-				
-				// child가 non-leaf 노드인 경우.
-				return ((PointNonLeafNode<T,P>)child).insert(value);
 			}
+			
+			// child가 non-leaf 노드인 경우.
+			PointLeafNode<T,P> inserted = ((PointNonLeafNode<T,P>)child).insert(value);
+			++m_count;
+			m_dataBounds.expandToInclude(coord);
+			m_depth = Math.max(m_depth, child.getDepth() + 1);
+			
+			return inserted;
 		}
 		
 		// 본 non-leaf 노드 영역에 주어진 데이터가 포함되는 것으로 계산되지만
@@ -152,6 +365,119 @@ public class PointNonLeafNode<T extends PointValue, P extends PointPartition<T>>
 		throw new IllegalStateException("unexpected state for insert: " + msg);
 	}
 	
+	/**
+	 * 하위 노드들에서 주어진 값을 삭제한다.
+	 * 삭제로 인해 데이터 수가 병합 기준 이하로 줄어든 하위 non-leaf 노드는
+	 * 하나의 단말노드로 병합된다.
+	 * 
+	 * @param value	삭제할 값
+	 * @return	삭제여부
+	 */
+	boolean remove(T value) {
+		int idx = findChildIndex(value.getCoordinate());
+		if ( idx < 0 ) {
+			return false;
+		}
+		
+		PointNode<T,P> child = getChild(idx);
+		if ( child instanceof PointLeafNode ) {
+			if ( !((PointLeafNode<T,P>)child).remove(value) ) {
+				return false;
+			}
+		}
+		else {
+			PointNonLeafNode<T,P> nonLeaf = (PointNonLeafNode<T,P>)child;
+			if ( !nonLeaf.remove(value) ) {
+				return false;
+			}
+			
+			PointLeafNode<T,P> merged = nonLeaf.merge();
+			if ( merged != null ) {
+				setChild(idx, merged);
+			}
+		}
+		
+		--m_count;
+		Coordinate coord = value.getCoordinate();
+		if ( coord.x == m_dataBounds.getMinX() || coord.x == m_dataBounds.getMaxX()
+			|| coord.y == m_dataBounds.getMinY() || coord.y == m_dataBounds.getMaxY() ) {
+			// 삭제된 데이터가 MBR 경계에 위치한 경우는 MBR이 줄어들 수 있다.
+			updateStatistics();
+		}
+		else {
+			m_depth = FStream.of(m_children).mapToInt(PointNode::getDepth).maxValue() + 1;
+		}
+		return true;
+	}
+	
+	/**
+	 * 하위 노드들이 모두 단말노드이고 저장된 데이터 수의 합이 병합 기준 이하인 경우,
+	 * 하위 노드들의 데이터를 모두 포함하는 단말노드를 생성하고 단말 노드 체인에서
+	 * 하위 노드들을 생성된 단말노드로 대체한다.
+	 * 
+	 * @return	병합된 단말노드. 병합 조건을 만족하지 않거나 병합이 불가능한 경우는 {@code null}.
+	 */
+	PointLeafNode<T,P> merge() {
+		int total = 0;
+		for ( int i =0; i < m_children.length; ++i ) {
+			PointNode<T,P> child = getChild(i);
+			if ( !(child instanceof PointLeafNode) ) {
+				return null;
+			}
+			total += child.getValueCount();
+		}
+		if ( total > m_mergeThreshold ) {
+			return null;
+		}
+		
+		PointLeafNode<T,P> first = (PointLeafNode<T,P>)getChild(0);
+		PointLeafNode<T,P> last = (PointLeafNode<T,P>)getChild(m_children.length-1);
+		Function<Envelope,P> supplier = first.getPartitionSupplier();
+		if ( supplier == null ) {
+			return null;
+		}
+		
+		PointLeafNode<T,P> merged = new PointLeafNode<>(getBounds(), supplier, first.getSplitStrategy());
+		merged.setQuadKey(getQuadKey(), getLevel());
+		merged.setEpoch(getEpoch());
+		for ( int i =0; i < m_children.length; ++i ) {
+			Iterator<T> iter = ((PointLeafNode<T,P>)getChild(i)).values().iterator();
+			while ( iter.hasNext() ) {
+				if ( !merged.insert(iter.next(), false) ) {
+					// 병합된 partition에 모든 데이터를 넣을 수 없는 경우는 병합하지 않는다.
+					return null;
+				}
+			}
+		}
+		
+		PointQuadTree.link(merged, last.getNextLeafNode());
+		PointQuadTree.link(first.getPreviousLeafNode(), merged);
+		
+		if ( s_logger.isDebugEnabled() ) {
+			s_logger.debug("merged: bounds={}, count={}", getBounds(), total);
+		}
+		
+		return merged;
+	}
+	
+	/**
+	 * 주어진 하위 노드에 질의 영역과 겹치는 데이터가 존재할 수 있는지 여부를 반환한다.
+	 * non-leaf 노드의 경우는 노드 영역 대신 데이터 MBR을 사용하여 판단한다.
+	 */
+	static <T extends PointValue, P extends PointPartition<T>>
+	boolean mayIntersect(PointNode<T,P> child, Envelope key) {
+		return (child instanceof PointNonLeafNode)
+				? ((PointNonLeafNode<T,P>)child).m_dataBounds.intersects(key)
+				: child.getBounds().intersects(key);
+	}
+	
+	private static <T extends PointValue, P extends PointPartition<T>>
+	Envelope getDataBounds(PointNode<T,P> node) {
+		return (node instanceof PointNonLeafNode)
+				? ((PointNonLeafNode<T,P>)node).m_dataBounds
+				: ((PointLeafNode<T,P>)node).getPartition().getBounds();
+	}
+	
 	@Override
 	public String toString() {
 		return String.format("%s: bounds=%s, count=%d", getClass().getSimpleName(), getBounds(),
@@ -1,5 +1,7 @@
 package utils.geo.quadtree.point;
 
+import java.util.Iterator;
+
 import org.locationtech.jts.geom.Envelope;
 
 import utils.stream.FStream;
@@ -42,6 +44,63 @@ public interface PointPartition<T extends PointValue> {
 		return values().filter(v -> query.intersects(v.getCoordinate()));
 	}
 	
+	/**
+	 * 파티션에 저장된 모든 point를 주어진 visitor에게 차례대로 전달한다.
+	 * 기본 구현은 {@link #values()}를 사용하며, 구현 클래스는 객체 생성 없이
+	 * 전달하도록 재정의할 수 있다.
+	 * 
+	 * @param visitor	point를 전달받을 visitor
+	 * @return	모든 point를 전달한 경우는 {@code true}, visitor에 의해 중단된 경우는 {@code false}.
+	 */
+	public default boolean visit(PointVisitor<? super T> visitor) {
+		Iterator<T> iter = values().iterator();
+		while ( iter.hasNext() ) {
+			if ( !visitor.visit(iter.next()) ) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * 파티션에 저장된 point들 중에서 주어진 query와 겹치는 point들을
+	 * 주어진 visitor에게 차례대로 전달한다.
+	 * 기본 구현은 {@link #values()}를 사용하며, 구현 클래스는 객체 생성 없이
+	 * 전달하도록 재정의할 수 있다.
+	 * 
+	 * @param query	질의 영역
+	 * @param visitor	point를 전달받을 visitor
+	 * @return	모든 point를 전달한 경우는 {@code true}, visitor에 의해 중단된 경우는 {@code false}.
+	 */
+	public default boolean visitIntersects(Envelope query, PointVisitor<? super T> visitor) {
+		Iterator<T> iter = values().iterator();
+		while ( iter.hasNext() ) {
+			T value = iter.next();
+			if ( query.intersects(value.getCoordinate()) && !visitor.visit(value) ) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * 파티션에 저장된 point들 중에서 주어진 query와 겹치는 point의 갯수를 반환한다.
+	 * 
+	 * @param query	질의 영역
+	 * @return	point 갯수
+	 */
+	public default int count(Envelope query) {
+		int[] count = new int[] {0};
+		visitIntersects(query, v -> {
+			++count[0];
+			return true;
+		});
+		
+		return count[0];
+	}
+	
 	/**
 	 * 파티션에 새 point를 추가한다.
 	 * 파티션 용량이 넘치는 경우 추가가 실패되고, {@code false}가 반환된다.
@@ -63,6 +122,17 @@ public interface PointPartition<T extends PointValue> {
 		return add(value);
 	}
 	
+	/**
+	 * 파티션에서 주어진 point를 삭제한다.
+	 * 기본 구현은 삭제를 지원하지 않으며 {@link UnsupportedOperationException}을 발생시킨다.
+	 * 
+	 * @param value		삭제할 point
+	 * @return	삭제여부. 주어진 point가 파티션에 없는 경우는 {@code false}.
+	 */
+	public default boolean remove(T value) {
+		throw new UnsupportedOperationException("remove is not supported: " + getClass().getName());
+	}
+	
 	/**
 	 * 파티션에 새 point 추가시 용량부족으로 실패한 경우, 용량 확장을 시도한다.
 	 * 용량 확장이 실패한 경우는 {@code false}를 반환한다.
@@ -1,16 +1,27 @@
 package utils.geo.quadtree.point;
 
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collector;
 
+import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Point;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 
+import utils.geo.quadtree.EnvelopedValue;
 import utils.geo.quadtree.TooBigValueException;
 import utils.stream.FStream;
 
@@ -25,6 +36,9 @@ public class PointQuadTree<T extends PointValue, P extends PointPartition<T>> {
 	
 	private Envelope m_rootBounds;	// QuadTree에 포함된 모든 데이터를 포함하는 최소 넓이 타일의 사각영역
 	private PointNode<T,P> m_root;
+	private long m_epoch = 0;		// snapshot이 생성될 때마다 증가되는 값
+	// snapshot 생성과 삽입/삭제를 상호 배제시키기 위한 lock
+	private final ReentrantLock m_writeLock = new ReentrantLock();
 	
 	/**
 	 * QuadTree를 생성한다.
@@ -34,20 +48,122 @@ public class PointQuadTree<T extends PointValue, P extends PointPartition<T>> {
 	 * 						데이터 삽입과정에서 새로운 단말노드가 생성되어 partition이 필요할 때 활용된다.
 	 */
 	public PointQuadTree(Envelope rootBounds, Function<Envelope,P> partitionSupplier) {
-		m_root = new PointLeafNode<T,P>(rootBounds, partitionSupplier);
+		this(rootBounds, partitionSupplier, SplitStrategy.MIDPOINT);
+	}
+	
+	/**
+	 * 주어진 분할 전략을 사용하는 QuadTree를 생성한다.
+	 * 
+	 * @param rootBounds	QuadTree 최상위 노드의 영역.
+	 * @param partitionSupplier	생성될 QuadTree가 사용할 partition 생성기.
+	 * @param splitStrategy	단말노드 분할시 사용할 분할 전략.
+	 * @see SplitStrategy#MIDPOINT
+	 * @see SplitStrategy#MEDIAN
+	 * @see SplitStrategy#SLIDING_MIDPOINT
+	 */
+	public PointQuadTree(Envelope rootBounds, Function<Envelope,P> partitionSupplier,
+						SplitStrategy splitStrategy) {
+		m_root = new PointLeafNode<T,P>(rootBounds, partitionSupplier, splitStrategy);
 		m_rootBounds = rootBounds;
 	}
 	
 	/**
 	 * QuadTree를 생성한다.
+	 * <p>
+	 * 주어진 노드 하위의 모든 노드들에는 주어진 노드를 최상위 노드로 하는 quad-key가 다시 부여된다.
+	 * 이때 노드들의 quad-key가 그 자리에서 변경되기 때문에, 다른 QuadTree에 속한 하위 노드는
+	 * 최상위 노드로 사용할 수 없다. 하위 노드의 단말 노드 체인은 노드 외부의 단말노드들과
+	 * 연결되어 있기 때문에 이를 통해 판별한다.
 	 * 
 	 * @param root	생성될 QuadTree의 최상위 노드.
+	 * @throws IllegalArgumentException	주어진 노드가 다른 QuadTree에 속한 하위 노드인 경우.
 	 */
 	public PointQuadTree(PointNode<T,P> root) {
 		Preconditions.checkArgument(root != null, "root is null");
+		Preconditions.checkArgument(isDetached(root), "root is a sub-node of another tree: %s", root);
 
 		m_root = root;
 		m_rootBounds = root.getBounds();
+		assignQuadKeys(root, 0, 0);
+	}
+	
+	/**
+	 * 주어진 데이터들을 모두 포함하는 QuadTree를 일괄 생성한다.
+	 * 최상위 노드의 영역은 주어진 데이터들의 MBR로 설정된다.
+	 * 
+	 * @param values	QuadTree에 삽입할 데이터들.
+	 * @param partitionSupplier	생성될 QuadTree가 사용할 partition 생성기.
+	 * @return	생성된 QuadTree
+	 * @throws TooBigValueException	삽입할 데이터가 너무커서 단말노드에 저장할 수 없는 경우.
+	 * @see #bulkLoad(Envelope, Iterable, Function)
+	 */
+	public static <T extends PointValue, P extends PointPartition<T>>
+	PointQuadTree<T,P> bulkLoad(Iterable<T> values, Function<Envelope,P> partitionSupplier)
+		throws TooBigValueException {
+		Preconditions.checkArgument(values != null, "values is null");
+		
+		Envelope rootBounds = new Envelope();
+		for ( T value: values ) {
+			rootBounds.expandToInclude(value.getCoordinate());
+		}
+		Preconditions.checkArgument(!rootBounds.isNull(), "values is empty");
+		
+		return bulkLoad(rootBounds, values, partitionSupplier);
+	}
+	
+	/**
+	 * 주어진 데이터들을 모두 포함하는 QuadTree를 일괄 생성한다.
+	 * <p>
+	 * 데이터를 하나씩 {@link #insert(PointValue)}하는 경우는 단말노드가 분할될 때마다
+	 * 저장된 데이터들이 하위 노드들로 다시 삽입되지만, 본 메소드는 입력 데이터들을
+	 * 사분면 단위로 한번씩만 분할하여 단말노드와 단말노드 체인을 직접 구성한다.
+	 * 
+	 * @param rootBounds	QuadTree 최상위 노드의 영역.
+	 * @param values	QuadTree에 삽입할 데이터들.
+	 * @param partitionSupplier	생성될 QuadTree가 사용할 partition 생성기.
+	 * @return	생성된 QuadTree
+	 * @throws TooBigValueException	삽입할 데이터가 너무커서 단말노드에 저장할 수 없거나,
+	 * 						단말노드 용량보다 많은 데이터가 같은 좌표를 갖는 경우.
+	 * @throws IllegalArgumentException	{@code rootBounds} 밖의 좌표를 갖는 데이터가 있는 경우.
+	 */
+	public static <T extends PointValue, P extends PointPartition<T>>
+	PointQuadTree<T,P> bulkLoad(Envelope rootBounds, Iterable<T> values,
+								Function<Envelope,P> partitionSupplier) throws TooBigValueException {
+		return bulkLoad(rootBounds, values, partitionSupplier, SplitStrategy.MIDPOINT);
+	}
+	
+	/**
+	 * 주어진 분할 전략을 사용하여 주어진 데이터들을 모두 포함하는 QuadTree를 일괄 생성한다.
+	 * 
+	 * @param rootBounds	QuadTree 최상위 노드의 영역.
+	 * @param values	QuadTree에 삽입할 데이터들.
+	 * @param partitionSupplier	생성될 QuadTree가 사용할 partition 생성기.
+	 * @param splitStrategy	노드 분할시 사용할 분할 전략.
+	 * @return	생성된 QuadTree
+	 * @throws TooBigValueException	삽입할 데이터가 너무커서 단말노드에 저장할 수 없거나,
+	 * 						단말노드 용량보다 많은 데이터가 같은 좌표를 갖는 경우.
+	 * @throws IllegalArgumentException	{@code rootBounds} 밖의 좌표를 갖는 데이터가 있는 경우.
+	 * @see #bulkLoad(Envelope, Iterable, Function)
+	 */
+	public static <T extends PointValue, P extends PointPartition<T>>
+	PointQuadTree<T,P> bulkLoad(Envelope rootBounds, Iterable<T> values,
+								Function<Envelope,P> partitionSupplier, SplitStrategy splitStrategy)
+		throws TooBigValueException {
+		Preconditions.checkArgument(rootBounds != null, "rootBounds is null");
+		Preconditions.checkArgument(values != null, "values is null");
+		Preconditions.checkArgument(partitionSupplier != null, "partitionSupplier is null");
+		Preconditions.checkArgument(splitStrategy != null, "splitStrategy is null");
+		
+		@SuppressWarnings("unchecked")
+		T[] valueArray = (T[])Iterables.toArray(values, PointValue.class);
+		for ( T value: valueArray ) {
+			Preconditions.checkArgument(rootBounds.intersects(value.getCoordinate()),
+										"value is out of bounds: bounds=%s, value=%s", rootBounds, value);
+		}
+		PointNode<T,P> root = new PointQuadTreeBuilder<T,P>(partitionSupplier, splitStrategy)
+										.build(rootBounds, valueArray);
+		
+		return new PointQuadTree<>(root);
 	}
 	
 	/**
@@ -59,6 +175,10 @@ public class PointQuadTree<T extends PointValue, P extends PointPartition<T>> {
 		return m_rootBounds;
 	}
 	
+	PointNode<T,P> getRootNode() {
+		return m_root;
+	}
+	
 	public int getDepth() {
 		return m_root.getDepth();
 	}
@@ -75,17 +195,70 @@ public class PointQuadTree<T extends PointValue, P extends PointPartition<T>> {
 	public PointLeafNode<T,P> insert(T value) throws TooBigValueException {
 		Preconditions.checkArgument(value != null);
 		
-		while ( m_root instanceof PointLeafNode ) {
-			PointLeafNode<T,P> lroot = (PointLeafNode<T,P>)m_root;
-			if ( lroot.insert(value) ) {
-				return lroot;
+		m_writeLock.lock();
+		try {
+			prepareWrite(value.getCoordinate());
+			while ( m_root instanceof PointLeafNode ) {
+				PointLeafNode<T,P> lroot = (PointLeafNode<T,P>)m_root;
+				if ( lroot.insert(value) ) {
+					return lroot;
+				}
+				
+				// 현재 단말노드에 더 이상 값을 넣을 수 없는 경우는 노드를 분할시킨다.
+				m_root = lroot.split();
 			}
 			
-			// 현재 단말노드에 더 이상 값을 넣을 수 없는 경우는 노드를 분할시킨다.
-			m_root = lroot.split();
+			return ((PointNonLeafNode<T,P>)m_root).insert(value);
 		}
+		finally {
+			m_writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * 주어진 데이터들을 병렬로 삽입한다.
+	 * <p>
+	 * 삽입할 데이터들을 각 non-leaf 노드의 사분면별로 나누고, 사분면별 하위 트리에 대한 삽입을
+	 * 주어진 fork-join pool을 통해 병렬로 수행한다. 서로 다른 사분면의 하위 트리들은
+	 * 공유하는 노드가 없기 때문에 하위 트리 사이의 동기화는 필요없다.
+	 * 단말 노드 체인은 모든 삽입이 완료된 후 한번에 재구성된다.
+	 * <p>
+	 * 본 메소드 수행 중에는 다른 쓰레드에서 본 QuadTree를 접근하여서는 안된다.
+	 * 
+	 * @param values	삽입할 공간 데이터들.
+	 * @param pool	병렬 삽입에 사용할 fork-join pool.
+	 * @throws TooBigValueException	삽입할 데이터가 너무커서 단말노드에 저장할 수 없는 경우.
+	 */
+	public void insertAll(Collection<T> values, ForkJoinPool pool) throws TooBigValueException {
+		Preconditions.checkArgument(values != null, "values is null");
+		Preconditions.checkArgument(pool != null, "ForkJoinPool is null");
 		
-		return ((PointNonLeafNode<T,P>)m_root).insert(value);
+		m_writeLock.lock();
+		try {
+			// 최상위 노드가 단말노드인 동안은 분할될 때까지 하나씩 삽입한다.
+			Iterator<T> iter = values.iterator();
+			while ( m_root instanceof PointLeafNode && iter.hasNext() ) {
+				insert(iter.next());
+			}
+			if ( !iter.hasNext() ) {
+				return;
+			}
+			
+			if ( m_root.getEpoch() < m_epoch ) {
+				m_root = ((PointNonLeafNode<T,P>)m_root).copy(m_epoch);
+			}
+			
+			List<T> remains = Lists.newArrayList(iter);
+			try {
+				pool.invoke(new ParallelInsertTask<>((PointNonLeafNode<T,P>)m_root, remains, m_epoch));
+			}
+			finally {
+				relinkLeafNodes(m_root);
+			}
+		}
+		finally {
+			m_writeLock.unlock();
+		}
 	}
 	
 	/**
@@ -114,7 +287,7 @@ public class PointQuadTree<T extends PointValue, P extends PointPartition<T>> {
 	 * @return	단말 노드 순환자
 	 */
 	public FStream<PointLeafNode<T,P>> streamLeafNodes() {
-		return FStream.from(new LeafNodeIterator<>(this));
+		return FStream.from(new LeafNodeIterator<>(getFirstLeafNode()));
 	}
 
 	/**
@@ -165,11 +338,636 @@ public class PointQuadTree<T extends PointValue, P extends PointPartition<T>> {
 						.flatMap(node -> node.query(key));
 	}
 	
+	/**
+	 * QuadTree에 저장된 모든 데이터 중 주어진 질의 사각형과 겹치는 데이터를 visitor에게 차례대로 전달한다.
+	 * <p>
+	 * {@link #query(Envelope)}와 달리 단말노드 리스트나 스트림 객체를 생성하지 않고 노드를 직접 순회한다.
+	 * 단말노드 영역이 질의 사각형에 완전히 포함되는 경우는 point별 겹침 검사를 생략한다.
+	 * visitor가 {@code false}를 반환하면 탐색은 즉시 중단된다.
+	 * 
+	 * @param key	질의 box.
+	 * @param visitor	질의 결과를 전달받을 visitor.
+	 * @return	모든 결과를 전달한 경우는 {@code true}, visitor에 의해 중단된 경우는 {@code false}.
+	 */
+	public boolean query(Envelope key, PointVisitor<? super T> visitor) {
+		Preconditions.checkArgument(key != null, "search key");
+		Preconditions.checkArgument(visitor != null, "visitor is null");
+		
+		return (m_root instanceof PointLeafNode)
+				? ((PointLeafNode<T,P>)m_root).visit(key, visitor)
+				: ((PointNonLeafNode<T,P>)m_root).visit(key, visitor);
+	}
+	
+	/**
+	 * QuadTree에 저장된 모든 데이터 중 주어진 질의 사각형과 겹치는 데이터에 대해 주어진 작업을 수행한다.
+	 * 
+	 * @param key	질의 box.
+	 * @param action	질의 결과 데이터에 대해 수행할 작업.
+	 * @see #query(Envelope, PointVisitor)
+	 */
+	public void forEach(Envelope key, Consumer<? super T> action) {
+		Preconditions.checkArgument(action != null, "action is null");
+		
+		query(key, value -> {
+			action.accept(value);
+			return true;
+		});
+	}
+	
+	/**
+	 * 여러 개의 질의 사각형에 대한 질의를 한번의 순회로 수행한다.
+	 * <p>
+	 * 질의마다 최상위 노드부터 다시 탐색하지 않고, 노드를 방문할 때 해당 노드와 겹치는 질의들만을
+	 * 하위 노드로 전달하여 상위 노드들의 탐색을 공유한다. 결과는 질의 순번과 함께 전달되며,
+	 * 전달 순서는 질의 순번 순이 아닌 단말노드 방문 순서를 따른다.
+	 * 
+	 * @param keys	질의 box 리스트.
+	 * @param consumer	질의 결과를 전달받을 consumer. 질의 순번과 결과 데이터가 전달된다.
+	 */
+	public void queryBatch(List<Envelope> keys, BiConsumer<Integer,? super T> consumer) {
+		checkBatchArguments(keys, consumer);
+		
+		new BatchQueryTask<T,P>(keys, consumer, m_root, false).compute();
+	}
+	
+	/**
+	 * 여러 개의 질의 사각형에 대한 질의를 한번의 순회로 수행하되,
+	 * 하위 트리별 탐색을 주어진 fork-join pool을 통해 병렬로 수행한다.
+	 * <p>
+	 * 주어진 consumer는 여러 쓰레드에서 동시에 호출될 수 있으며, 본 메소드 수행 중에는
+	 * 다른 쓰레드에서 본 QuadTree를 갱신하여서는 안된다.
+	 * 
+	 * @param keys	질의 box 리스트.
+	 * @param consumer	질의 결과를 전달받을 consumer. 질의 순번과 결과 데이터가 전달된다.
+	 * @param pool	병렬 탐색에 사용할 fork-join pool.
+	 * @see #queryBatch(List, BiConsumer)
+	 */
+	public void queryBatch(List<Envelope> keys, BiConsumer<Integer,? super T> consumer, ForkJoinPool pool) {
+		checkBatchArguments(keys, consumer);
+		Preconditions.checkArgument(pool != null, "ForkJoinPool is null");
+		
+		pool.invoke(new BatchQueryTask<T,P>(keys, consumer, m_root, true));
+	}
+	
+	private static void checkBatchArguments(List<Envelope> keys, BiConsumer<Integer,?> consumer) {
+		Preconditions.checkArgument(keys != null, "search keys");
+		Preconditions.checkArgument(!keys.contains(null), "search keys contain null");
+		Preconditions.checkArgument(consumer != null, "consumer is null");
+	}
+	
+	/**
+	 * 본 QuadTree와 주어진 QuadTree에 저장된 데이터들 중에서 서로의 거리가 주어진 거리 이내인
+	 * 데이터 쌍들을 찾는다.
+	 * <p>
+	 * 한쪽 트리의 데이터마다 다른 트리를 질의하지 않고 두 트리를 동시에 순회하며,
+	 * 영역 사이의 최소 거리가 주어진 거리보다 먼 노드 쌍은 하위 노드를 방문하지 않는다.
+	 * 거리는 평면 좌표계의 유클리드 거리로 계산된다.
+	 * 
+	 * @param other	결합할 QuadTree.
+	 * @param distance	최대 거리.
+	 * @param consumer	찾은 데이터 쌍을 전달받을 consumer.
+	 */
+	public <U extends PointValue, Q extends PointPartition<U>>
+	void join(PointQuadTree<U,Q> other, double distance, BiConsumer<? super T,? super U> consumer) {
+		checkJoinArguments(other, distance, consumer);
+		
+		new SpatialJoinTask<>(m_root, other.m_root, distance, consumer, false).compute();
+	}
+	
+	/**
+	 * 본 QuadTree와 주어진 QuadTree에 저장된 데이터들 중에서 서로의 거리가 주어진 거리 이내인
+	 * 데이터 쌍들을 찾되, 분할된 노드 쌍들의 결합을 주어진 fork-join pool을 통해 병렬로 수행한다.
+	 * <p>
+	 * 주어진 consumer는 여러 쓰레드에서 동시에 호출될 수 있으며, 본 메소드 수행 중에는
+	 * 다른 쓰레드에서 두 QuadTree를 갱신하여서는 안된다.
+	 * 
+	 * @param other	결합할 QuadTree.
+	 * @param distance	최대 거리.
+	 * @param consumer	찾은 데이터 쌍을 전달받을 consumer.
+	 * @param pool	병렬 수행에 사용할 fork-join pool.
+	 * @see #join(PointQuadTree, double, BiConsumer)
+	 */
+	public <U extends PointValue, Q extends PointPartition<U>>
+	void join(PointQuadTree<U,Q> other, double distance, BiConsumer<? super T,? super U> consumer,
+				ForkJoinPool pool) {
+		checkJoinArguments(other, distance, consumer);
+		Preconditions.checkArgument(pool != null, "ForkJoinPool is null");
+		
+		pool.invoke(new SpatialJoinTask<>(m_root, other.m_root, distance, consumer, true));
+	}
+	
+	/**
+	 * 주어진 영역 데이터들 각각에 대해, 영역과의 거리가 주어진 거리 이내인 데이터들을 찾는다.
+	 * 
+	 * @param values	결합할 영역 데이터들.
+	 * @param distance	최대 거리.
+	 * @param consumer	찾은 데이터 쌍을 전달받을 consumer.
+	 */
+	public <U extends EnvelopedValue>
+	void joinEnvelopes(Iterable<U> values, double distance, BiConsumer<? super T,? super U> consumer) {
+		Preconditions.checkArgument(values != null, "values is null");
+		Preconditions.checkArgument(distance >= 0, "invalid distance: " + distance);
+		Preconditions.checkArgument(consumer != null, "consumer is null");
+		
+		final double dist2 = distance * distance;
+		for ( U value: values ) {
+			Envelope envl = value.getEnvelope();
+			Envelope key = new Envelope(envl);
+			key.expandBy(distance);
+			
+			query(key, pv -> {
+				Coordinate coord = pv.getCoordinate();
+				double dx = Math.max(0, Math.max(envl.getMinX() - coord.x, coord.x - envl.getMaxX()));
+				double dy = Math.max(0, Math.max(envl.getMinY() - coord.y, coord.y - envl.getMaxY()));
+				if ( dx*dx + dy*dy <= dist2 ) {
+					consumer.accept(pv, value);
+				}
+				return true;
+			});
+		}
+	}
+	
+	private static void checkJoinArguments(PointQuadTree<?,?> other, double distance,
+											BiConsumer<?,?> consumer) {
+		Preconditions.checkArgument(other != null, "other tree is null");
+		Preconditions.checkArgument(distance >= 0, "invalid distance: " + distance);
+		Preconditions.checkArgument(consumer != null, "consumer is null");
+	}
+	
+	/**
+	 * QuadTree에 저장된 데이터 중 주어진 질의 사각형과 겹치는 데이터의 갯수를 반환한다.
+	 * <p>
+	 * 데이터 MBR이 질의 사각형에 완전히 포함되는 하위 트리나 단말노드는 미리 계산된 데이터 갯수를
+	 * 사용하며, 질의 사각형의 경계에 걸친 단말노드의 partition만 검사한다.
+	 * 
+	 * @param key	질의 box.
+	 * @return	데이터 갯수
+	 */
+	public long count(Envelope key) {
+		Preconditions.checkArgument(key != null, "search key");
+		
+		return (m_root instanceof PointLeafNode)
+				? ((PointLeafNode<T,P>)m_root).count(key)
+				: ((PointNonLeafNode<T,P>)m_root).count(key);
+	}
+	
+	/**
+	 * QuadTree에 저장된 데이터 중 주어진 질의 사각형과 겹치는 데이터들에 대해
+	 * 주어진 {@link Collector}를 적용한 결과를 반환한다.
+	 * <p>
+	 * 결과 스트림을 생성하지 않고 {@link #query(Envelope, PointVisitor)}와 동일하게 노드를 직접 순회하며,
+	 * 질의 사각형에 완전히 포함되는 하위 트리의 데이터는 데이터별 겹침 검사 없이 누적된다.
+	 * 
+	 * @param key	질의 box.
+	 * @param collector	질의 결과 데이터에 적용할 collector.
+	 * @return	집계 결과
+	 */
+	public <A,R> R aggregate(Envelope key, Collector<? super T,A,R> collector) {
+		Preconditions.checkArgument(collector != null, "collector is null");
+		
+		A container = collector.supplier().get();
+		BiConsumer<A,? super T> accumulator = collector.accumulator();
+		query(key, value -> {
+			accumulator.accept(container, value);
+			return true;
+		});
+		
+		return collector.finisher().apply(container);
+	}
+	
+	/**
+	 * 주어진 영역을 {@code cols} x {@code rows}개의 격자로 나누고, 셀별로 포함된 데이터의 갯수를 반환한다.
+	 * <p>
+	 * 셀마다 질의를 반복하지 않고 QuadTree를 한번만 순회하며, 데이터 MBR이 하나의 셀에
+	 * 완전히 포함되는 노드는 하위 노드를 방문하지 않고 노드의 데이터 갯수를 그대로 사용한다.
+	 * 
+	 * @param extent	격자 영역.
+	 * @param cols	격자의 열 수.
+	 * @param rows	격자의 행 수.
+	 * @return	셀별 데이터 갯수. 행 우선(row-major) 순서이며, 0번 행은 최소 y 좌표 쪽의 행이다.
+	 */
+	public long[] aggregateGrid(Envelope extent, int cols, int rows) {
+		checkGridArguments(extent, cols, rows);
+		
+		long[] grid = new long[cols * rows];
+		new GridAggregator<T,P>(extent, cols, rows).count(m_root, grid);
+		return grid;
+	}
+	
+	/**
+	 * 주어진 영역을 {@code cols} x {@code rows}개의 격자로 나누고, 셀별로 포함된 데이터들에 대한
+	 * 주어진 함수 값의 합을 반환한다.
+	 * 
+	 * @param extent	격자 영역.
+	 * @param cols	격자의 열 수.
+	 * @param rows	격자의 행 수.
+	 * @param weight	데이터별 합산할 값을 계산하는 함수.
+	 * @return	셀별 합산 값. 행 우선(row-major) 순서이며, 0번 행은 최소 y 좌표 쪽의 행이다.
+	 * @see #aggregateGrid(Envelope, int, int)
+	 */
+	public double[] aggregateGrid(Envelope extent, int cols, int rows, ToDoubleFunction<? super T> weight) {
+		checkGridArguments(extent, cols, rows);
+		Preconditions.checkArgument(weight != null, "weight function is null");
+		
+		double[] grid = new double[cols * rows];
+		new GridAggregator<T,P>(extent, cols, rows).sum(m_root, weight, grid);
+		return grid;
+	}
+	
+	private static void checkGridArguments(Envelope extent, int cols, int rows) {
+		Preconditions.checkArgument(extent != null && extent.getWidth() > 0 && extent.getHeight() > 0,
+									"invalid grid extent: %s", extent);
+		Preconditions.checkArgument(cols > 0 && rows > 0, "invalid grid size: %sx%s", cols, rows);
+		Preconditions.checkArgument((long)cols * rows <= Integer.MAX_VALUE,
+									"too large grid: %sx%s", cols, rows);
+	}
+	
+	/**
+	 * QuadTree에서 주어진 데이터를 삭제한다.
+	 * <p>
+	 * 삭제 후 하위 단말노드들에 저장된 데이터 수가 분할 당시의 절반 이하로 줄어든
+	 * non-leaf 노드는 하나의 단말노드로 병합되며, 병합은 상위 노드로 연쇄적으로 진행된다.
+	 * 단말 노드 체인도 병합된 단말노드를 기준으로 갱신된다.
+	 * 
+	 * @param value	삭제할 데이터.
+	 * @return	삭제여부. 주어진 데이터가 QuadTree에 없는 경우는 {@code false}.
+	 * @throws UnsupportedOperationException	사용 중인 partition이 삭제를 지원하지 않는 경우.
+	 */
+	public boolean remove(T value) {
+		Preconditions.checkArgument(value != null, "value is null");
+		
+		m_writeLock.lock();
+		try {
+			prepareWrite(value.getCoordinate());
+			if ( m_root instanceof PointLeafNode ) {
+				return ((PointLeafNode<T,P>)m_root).remove(value);
+			}
+			
+			PointNonLeafNode<T,P> root = (PointNonLeafNode<T,P>)m_root;
+			if ( !root.remove(value) ) {
+				return false;
+			}
+			
+			PointLeafNode<T,P> merged = root.merge();
+			if ( merged != null ) {
+				m_root = merged;
+			}
+			return true;
+		}
+		finally {
+			m_writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * 현재 시점의 QuadTree에 대한 읽기 전용 snapshot을 생성한다.
+	 * <p>
+	 * snapshot 생성시 노드를 복사하지 않기 때문에 생성 비용은 트리 크기와 무관하다.
+	 * 대신 snapshot 생성 이후의 삽입/삭제는 갱신할 노드와 최상위 노드까지의 경로에 있는 노드들을
+	 * 먼저 복사한 뒤(path copying) 복사된 노드를 갱신하기 때문에, snapshot이 참조하는 노드들은
+	 * 변경되지 않는다. 단말노드의 복사는 partition 생성기를 통해 partition을 새로 생성하여 수행된다.
+	 * <p>
+	 * 단말 노드 체인은 QuadTree의 현재 상태를 기준으로 유지되기 때문에, snapshot은 체인을 사용하지 않고
+	 * 노드들을 깊이 우선으로 순회한다. 따라서 snapshot은 삽입/삭제를 수행하는 쓰레드와 별도의 쓰레드에서
+	 * 동기화 없이 사용할 수 있다.
+	 * <p>
+	 * snapshot 생성은 삽입/삭제 연산({@link #insert}, {@link #insertAll}, {@link #remove},
+	 * {@link #update})과 상호 배제되기 때문에, 삽입/삭제가 진행 중인 경우에도 다른 쓰레드에서
+	 * 본 메소드를 호출할 수 있다. 진행 중인 삽입/삭제는 완료된 뒤에 snapshot에 반영된다.
+	 * 
+	 * @return	snapshot
+	 */
+	public PointQuadTreeSnapshot<T,P> snapshot() {
+		m_writeLock.lock();
+		try {
+			PointQuadTreeSnapshot<T,P> snapshot = new PointQuadTreeSnapshot<>(m_root);
+			++m_epoch;
+			
+			return snapshot;
+		}
+		finally {
+			m_writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * 주어진 좌표의 데이터를 삽입/삭제하기 전에, 최상위 노드부터 해당 단말노드까지의 경로 중에서
+	 * snapshot과 공유될 수 있는 노드들을 복사한다. {@code m_writeLock}을 획득한 상태에서 호출되어야 한다.
+	 */
+	private void prepareWrite(Coordinate coord) {
+		if ( m_epoch == 0 ) {
+			// snapshot이 생성된 적이 없는 경우.
+			return;
+		}
+		
+		if ( m_root.getEpoch() < m_epoch ) {
+			m_root = copyNode(m_root);
+		}
+		
+		PointNode<T,P> node = m_root;
+		while ( node instanceof PointNonLeafNode ) {
+			PointNonLeafNode<T,P> nonLeaf = (PointNonLeafNode<T,P>)node;
+			int idx = nonLeaf.findChildIndex(coord);
+			if ( idx < 0 ) {
+				return;
+			}
+			
+			node = nonLeaf.getChild(idx);
+			if ( node.getEpoch() < m_epoch ) {
+				node = copyNode(node);
+				nonLeaf.setChild(idx, node);
+			}
+		}
+	}
+	
+	private PointNode<T,P> copyNode(PointNode<T,P> node) {
+		return (node instanceof PointLeafNode) ? ((PointLeafNode<T,P>)node).copy(m_epoch, true)
+												: ((PointNonLeafNode<T,P>)node).copy(m_epoch);
+	}
+	
+	/**
+	 * QuadTree에 저장된 데이터의 위치를 변경한다.
+	 * 기존 데이터를 삭제하고 위치가 변경된 데이터를 삽입한다.
+	 * 위치가 변경된 데이터를 삽입하지 못한 경우는 기존 데이터가 다시 삽입되어,
+	 * 예외가 발생하더라도 기존 데이터가 유실되지 않는다.
+	 * 
+	 * @param old	QuadTree에 저장된 기존 데이터.
+	 * @param moved	위치가 변경된 데이터.
+	 * @return	변경여부. 기존 데이터가 QuadTree에 없는 경우는 {@code false}가 반환되고,
+	 * 			{@code moved}도 삽입되지 않는다.
+	 * @throws IllegalArgumentException	{@code moved}의 좌표가 없거나 QuadTree 영역 밖에 있는 경우.
+	 * @throws TooBigValueException	삽입할 데이터가 너무커서 단말노드에 저장할 수 없는 경우.
+	 */
+	public boolean update(T old, T moved) throws TooBigValueException {
+		Preconditions.checkArgument(old != null, "old value is null");
+		Preconditions.checkArgument(moved != null, "moved value is null");
+		Coordinate coord = moved.getCoordinate();
+		Preconditions.checkArgument(coord != null, "moved value has no coordinate: %s", moved);
+		Preconditions.checkArgument(m_rootBounds.intersects(coord),
+									"moved value is out of bounds: bounds=%s, value=%s", m_rootBounds, moved);
+		
+		// snapshot이 삭제와 삽입 사이의 상태를 보지 않도록 두 연산을 하나로 묶는다.
+		m_writeLock.lock();
+		try {
+			if ( !remove(old) ) {
+				return false;
+			}
+			
+			try {
+				insert(moved);
+			}
+			catch ( TooBigValueException | RuntimeException e ) {
+				// 위치가 변경된 데이터를 삽입하지 못한 경우는 기존 데이터를 복구한다.
+				try {
+					insert(old);
+				}
+				catch ( TooBigValueException | RuntimeException e2 ) {
+					e.addSuppressed(e2);
+				}
+				throw e;
+			}
+			
+			return true;
+		}
+		finally {
+			m_writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * 주어진 기준점에서 가장 가까운 {@code k}개의 데이터를 거리 순으로 반환한다.
+	 * 
+	 * @param center	기준점
+	 * @param k		검색할 데이터의 최대 갯수
+	 * @return	데이터 리스트
+	 */
+	public List<T> nearest(Coordinate center, int k) {
+		return nearest(center, k, Double.POSITIVE_INFINITY);
+	}
+	
+	/**
+	 * 주어진 기준점에서 {@code maxDistance} 이내에 있는 데이터들 중 가장 가까운 {@code k}개의
+	 * 데이터를 거리 순으로 반환한다.
+	 * 거리는 QuadTree에 저장된 데이터의 좌표계에서의 유클리드 거리를 사용한다.
+	 * 
+	 * @param center	기준점
+	 * @param k		검색할 데이터의 최대 갯수
+	 * @param maxDistance	검색 최대 거리
+	 * @return	데이터 리스트
+	 */
+	public List<T> nearest(Coordinate center, int k, double maxDistance) {
+		Preconditions.checkArgument(center != null, "center is null");
+		Preconditions.checkArgument(k > 0, "invalid k: " + k);
+		Preconditions.checkArgument(maxDistance >= 0, "invalid maxDistance: " + maxDistance);
+		
+		return new NearestNeighborSearch<T,P>(new NearestNeighborSearch.PlanarMetric(center), k, maxDistance)
+					.search(m_root);
+	}
+	
+	/**
+	 * 주어진 기준점에서 WGS84 타원체 상의 거리가 가장 가까운 {@code k}개의 데이터를 거리 순으로 반환한다.
+	 * QuadTree에 저장된 데이터와 기준점은 모두 EPSG:4326 좌표체계로 기술되어야 한다.
+	 * 
+	 * @param center	기준점
+	 * @param k		검색할 데이터의 최대 갯수
+	 * @return	데이터 리스트
+	 */
+	public List<T> nearestWgs84(Point center, int k) {
+		return nearestWgs84(center, k, Double.POSITIVE_INFINITY);
+	}
+	
+	/**
+	 * 주어진 기준점에서 WGS84 타원체 상의 거리로 {@code maxMeters} 이내에 있는 데이터들 중
+	 * 가장 가까운 {@code k}개의 데이터를 거리 순으로 반환한다.
+	 * QuadTree에 저장된 데이터와 기준점은 모두 EPSG:4326 좌표체계로 기술되어야 한다.
+	 * <p>
+	 * 노드와 데이터는 구면 거리로 계산한 거리 하한 값으로 먼저 걸러지고,
+	 * 걸러지지 않은 데이터에 대해서만 타원체 상의 거리가 계산된다.
+	 * 
+	 * @param center	기준점
+	 * @param k		검색할 데이터의 최대 갯수
+	 * @param maxMeters	검색 최대 거리 (단위: 미터)
+	 * @return	데이터 리스트
+	 */
+	public List<T> nearestWgs84(Point center, int k, double maxMeters) {
+		Preconditions.checkArgument(center != null, "center is null");
+		Preconditions.checkArgument(k > 0, "invalid k: " + k);
+		Preconditions.checkArgument(maxMeters >= 0, "invalid maxMeters: " + maxMeters);
+		
+		return new NearestNeighborSearch<T,P>(new Wgs84Metric(center.getCoordinate()), k, maxMeters)
+					.search(m_root);
+	}
+	
+	/**
+	 * 주어진 기준점에서 WGS84 타원체 상의 거리로 {@code meters} 이내에 있는 모든 데이터를 반환한다.
+	 * QuadTree에 저장된 데이터와 기준점은 모두 EPSG:4326 좌표체계로 기술되어야 한다.
+	 * 반환되는 데이터는 거리 순으로 정렬되지 않는다.
+	 * 
+	 * @param center	기준점
+	 * @param meters	검색 거리 (단위: 미터)
+	 * @return	데이터 리스트
+	 */
+	public List<T> withinDistance(Point center, double meters) {
+		Preconditions.checkArgument(center != null, "center is null");
+		Preconditions.checkArgument(meters >= 0, "invalid meters: " + meters);
+		
+		List<T> founds = Lists.newArrayList();
+		new NearestNeighborSearch<T,P>(new Wgs84Metric(center.getCoordinate()), Integer.MAX_VALUE, meters)
+			.collectWithin(m_root, founds);
+		return founds;
+	}
+	
 	@Override
 	public String toString() {
 		return String.format("root_bounds=%s", m_rootBounds);
 	}
 	
+	/**
+	 * quad-key가 주어진 범위에 속하는 단말 노드들을 단말 노드 체인 순서대로 반환한다.
+	 * <p>
+	 * {@code fromKey}에 해당하는 단말노드까지 한번 내려간 뒤, 단말 노드 체인을 따라
+	 * quad-key가 {@code toKey}보다 큰 단말노드가 나올 때까지 순회한다.
+	 * 첫번째 단말노드는 {@code fromKey}보다 작은 quad-key를 가질 수 있으나,
+	 * 해당 단말노드의 quad-key 범위는 {@code fromKey}를 포함한다.
+	 * 
+	 * @param fromKey	시작 quad-key (포함).
+	 * @param toKey		종료 quad-key (포함).
+	 * @return	단말 노드 스트림
+	 * @see PointNode#getQuadKey()
+	 */
+	public FStream<PointLeafNode<T,P>> scanRange(long fromKey, long toKey) {
+		Preconditions.checkArgument(fromKey >= 0 && fromKey <= toKey,
+									"invalid quad-key range: [%s, %s]", fromKey, toKey);
+		
+		PointNode<T,P> node = m_root;
+		while ( node instanceof PointNonLeafNode ) {
+			node = ((PointNonLeafNode<T,P>)node).getChild(node.getChildIndex(fromKey));
+		}
+		
+		return FStream.from(new LeafNodeIterator<>((PointLeafNode<T,P>)node, toKey));
+	}
+	
+	/**
+	 * 단말 노드 체인 순서대로 연속된 단말 노드들을 묶어, 데이터 갯수가 균등한
+	 * 최대 {@code targetPartitions}개의 분할로 나눈 분할 계획을 생성한다.
+	 * <p>
+	 * 분할 경계는 누적 데이터 갯수가 전체 갯수의 {@code 1/targetPartitions} 배수를 넘는 단말노드에서
+	 * 정해지기 때문에, 단말노드 하나에 저장된 데이터 수 만큼의 편차가 발생할 수 있다.
+	 * 데이터가 많은 단말노드 하나가 여러 분할 경계를 넘는 경우는 넘어선 경계들이 모두 그 단말노드에서
+	 * 마감되기 때문에, 단말노드의 수가 {@code targetPartitions}보다 작거나 데이터가 일부 단말노드에
+	 * 몰려 있는 경우는 더 적은 수의 분할이 생성된다.
+	 * <p>
+	 * {@link PointNode#MAX_QUAD_KEY_LEVEL}보다 깊은 단말노드들은 조상 노드의 quad-key를 공유하기 때문에
+	 * quad-key 범위로 구분할 수 없다. 따라서 같은 quad-key를 갖는 연속된 단말노드들 사이에서는
+	 * 분할을 마감하지 않고, 이들을 모두 하나의 분할에 포함시킨다.
+	 * 
+	 * @param targetPartitions	목표 분할 수.
+	 * @return	분할 계획
+	 * @see #buildSubTree(PartitionPlan.Chunk, Function)
+	 */
+	public PartitionPlan partitionPlan(int targetPartitions) {
+		Preconditions.checkArgument(targetPartitions > 0, "invalid partition count: " + targetPartitions);
+		
+		final long total = m_root.getValueCount();
+		List<PartitionPlan.Chunk> chunks = Lists.newArrayList();
+		
+		Envelope bounds = null;
+		long count = 0;
+		long accum = 0;
+		int leafCount = 0;
+		long fromKey = 0;
+		int nextBoundary = 1;	// 다음 분할 경계의 순번 (1 ~ targetPartitions-1)
+		PointLeafNode<T,P> leaf = getFirstLeafNode();
+		while ( leaf != null ) {
+			if ( bounds == null ) {
+				bounds = new Envelope(leaf.getBounds());
+				fromKey = leaf.getQuadKey();
+			}
+			else {
+				bounds.expandToInclude(leaf.getBounds());
+			}
+			count += leaf.getValueCount();
+			accum += leaf.getValueCount();
+			++leafCount;
+			
+			PointLeafNode<T,P> next = leaf.getNextLeafNode();
+			
+			// 현재까지의 누적 갯수가 다음 분할 경계를 넘거나, 마지막 단말노드인 경우 분할을 마감한다.
+			// 단, 다음 단말노드가 같은 quad-key를 공유하는 경우는 scanRange()로 두 분할을 구분할 수 없기
+			// 때문에 마감을 다음 단말노드로 미룬다.
+			boolean crossed = nextBoundary < targetPartitions
+							&& accum >= (total * nextBoundary) / targetPartitions;
+			if ( next == null
+				|| (crossed && count > 0 && next.getQuadKey() != leaf.getQuadKey()) ) {
+				chunks.add(new PartitionPlan.Chunk(chunks.size(), bounds, count, leafCount,
+													fromKey, leaf.getLastQuadKey()));
+				bounds = null;
+				count = 0;
+				leafCount = 0;
+				
+				// 현재 단말노드가 넘어선 분할 경계들을 모두 마감시킨다.
+				while ( nextBoundary < targetPartitions
+						&& accum >= (total * nextBoundary) / targetPartitions ) {
+					++nextBoundary;
+				}
+			}
+			leaf = next;
+		}
+		
+		return new PartitionPlan(chunks);
+	}
+	
+	/**
+	 * 분할 계획의 주어진 분할에 속한 데이터들로 구성된 QuadTree를 생성한다.
+	 * 분할에 속한 단말노드들은 {@link #scanRange(long, long)}을 통해 찾으며,
+	 * 생성된 QuadTree의 최상위 노드 영역은 분할의 영역과 같다.
+	 * 생성된 QuadTree는 본 QuadTree와 동일한 분할 전략({@link SplitStrategy})을 사용한다.
+	 * 
+	 * @param chunk	분할 정보.
+	 * @param partitionSupplier	생성될 QuadTree가 사용할 partition 생성기.
+	 * @return	생성된 QuadTree
+	 * @throws TooBigValueException	삽입할 데이터가 너무커서 단말노드에 저장할 수 없는 경우.
+	 * @see #partitionPlan(int)
+	 */
+	public PointQuadTree<T,P> buildSubTree(PartitionPlan.Chunk chunk, Function<Envelope,P> partitionSupplier)
+		throws TooBigValueException {
+		Preconditions.checkArgument(chunk != null, "chunk is null");
+		
+		List<T> values = scanRange(chunk.getFromKey(), chunk.getToKey())
+							.flatMap(PointLeafNode::values)
+							.toList();
+		SplitStrategy strategy = getFirstLeafNode().getSplitStrategy();
+		return bulkLoad(chunk.getBounds(), values, partitionSupplier, strategy);
+	}
+	
+	/**
+	 * 주어진 노드 하위의 모든 노드들에 quad-key를 다시 부여한다.
+	 */
+	static <T extends PointValue, P extends PointPartition<T>>
+	void assignQuadKeys(PointNode<T,P> node, long quadKey, int level) {
+		node.setQuadKey(quadKey, level);
+		if ( node instanceof PointNonLeafNode ) {
+			PointNonLeafNode<T,P> nonLeaf = (PointNonLeafNode<T,P>)node;
+			for ( int i =0; i < QUAD; ++i ) {
+				assignQuadKeys(nonLeaf.getChild(i), node.getChildQuadKey(i), level + 1);
+			}
+		}
+	}
+	
+	/**
+	 * 주어진 노드 하위의 단말 노드 체인이 노드 외부의 단말노드와 연결되어 있지 않은지 여부를 반환한다.
+	 */
+	private static <T extends PointValue, P extends PointPartition<T>> boolean isDetached(PointNode<T,P> node) {
+		PointLeafNode<T,P> first = (node instanceof PointNonLeafNode)
+								? ((PointNonLeafNode<T,P>)node).getFirstLeafNode()
+								: (PointLeafNode<T,P>)node;
+		PointLeafNode<T,P> last = (node instanceof PointNonLeafNode)
+								? ((PointNonLeafNode<T,P>)node).getLastLeafNode()
+								: (PointLeafNode<T,P>)node;
+		
+		return first.getPreviousLeafNode() == null && last.getNextLeafNode() == null;
+	}
+	
 	static <T extends PointValue, P extends PointPartition<T>>
 	void link(PointNode<T,P> prev, PointNode<T,P> next) {
 		PointLeafNode<T,P> lprev = (prev != null && prev instanceof PointNonLeafNode)
@@ -187,17 +985,58 @@ public class PointQuadTree<T extends PointValue, P extends PointPartition<T>> {
 		}
 	}
 	
-	private static class LeafNodeIterator<T extends PointValue, P extends PointPartition<T>>
+	/**
+	 * 주어진 노드 하위의 모든 단말 노드들을 quad-key 순서대로 단말 노드 체인으로 연결한다.
+	 * 
+	 * @param root	최상위 노드
+	 */
+	static <T extends PointValue, P extends PointPartition<T>> void relinkLeafNodes(PointNode<T,P> root) {
+		List<PointLeafNode<T,P>> leaves = Lists.newArrayList();
+		collectLeafNodes(root, leaves);
+		
+		PointLeafNode<T,P> prev = null;
+		for ( PointLeafNode<T,P> leaf: leaves ) {
+			leaf.setPreviousLeafNode(prev);
+			if ( prev != null ) {
+				prev.setNextLeafNode(leaf);
+			}
+			prev = leaf;
+		}
+		if ( prev != null ) {
+			prev.setNextLeafNode(null);
+		}
+	}
+	
+	private static <T extends PointValue, P extends PointPartition<T>>
+	void collectLeafNodes(PointNode<T,P> node, List<PointLeafNode<T,P>> collecteds) {
+		if ( node instanceof PointLeafNode ) {
+			collecteds.add((PointLeafNode<T,P>)node);
+		}
+		else {
+			PointNonLeafNode<T,P> nonLeaf = (PointNonLeafNode<T,P>)node;
+			for ( int i =0; i < QUAD; ++i ) {
+				collectLeafNodes(nonLeaf.getChild(i), collecteds);
+			}
+		}
+	}
+	
+	static class LeafNodeIterator<T extends PointValue, P extends PointPartition<T>>
 														implements Iterator<PointLeafNode<T,P>> {
 		private PointLeafNode<T,P> m_next;
+		private final long m_lastKey;
+		
+		LeafNodeIterator(PointLeafNode<T,P> first) {
+			this(first, Long.MAX_VALUE);
+		}
 		
-		private LeafNodeIterator(PointQuadTree<T,P> tree) {
-			m_next = tree.getFirstLeafNode();
+		LeafNodeIterator(PointLeafNode<T,P> first, long lastKey) {
+			m_next = first;
+			m_lastKey = lastKey;
 		}
 
 		@Override
 		public boolean hasNext() {
-			return m_next != null;
+			return m_next != null && m_next.getQuadKey() <= m_lastKey;
 		}
 
 		@Override
@@ -0,0 +1,163 @@
+package utils.geo.quadtree.point;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+
+import utils.geo.quadtree.TooBigValueException;
+
+/**
+ * 주어진 데이터 전체를 이용하여 QuadTree를 한번에 구성하는 클래스.
+ * <p>
+ * 데이터 배열을 사분면 단위로 제자리(in-place) 분할해가면서 하위 노드를 구성하기 때문에,
+ * 단말 노드 분할 과정에서 partition에 저장된 데이터를 하위 partition으로 다시 삽입하는
+ * 작업이 발생하지 않는다.
+ * <p>
+ * 하나의 단말노드에 넣을 수 없는 데이터 갯수가 한번 확인되면, 그 이상의 데이터를 갖는 구간은
+ * 단말노드를 만들어 보지 않고 바로 분할한다. 이는 partition의 용량이 영역에 따라 달라지지
+ * 않는 것을 가정하며, 그렇지 않은 경우에도 생성된 QuadTree는 올바르지만 단말노드 하나로
+ * 충분한 구간이 분할될 수 있다.
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+class PointQuadTreeBuilder<T extends PointValue, P extends PointPartition<T>> {
+	private final Function<Envelope,P> m_partSupplier;
+	private final SplitStrategy m_splitStrategy;
+	private int m_overflowCount = Integer.MAX_VALUE;	// 단말노드 하나에 넣을 수 없는 최소 데이터 갯수
+	
+	PointQuadTreeBuilder(Function<Envelope,P> partSupplier, SplitStrategy splitStrategy) {
+		m_partSupplier = partSupplier;
+		m_splitStrategy = splitStrategy;
+	}
+	
+	/**
+	 * 주어진 데이터들을 포함하는 QuadTree의 최상위 노드를 생성한다.
+	 * 생성된 노드들의 단말 노드 체인도 함께 구성된다.
+	 * 
+	 * @param bounds	최상위 노드의 영역
+	 * @param values	삽입할 데이터 배열. 분할 과정에서 배열 내 데이터의 순서가 변경된다.
+	 * @return	최상위 노드
+	 * @throws TooBigValueException	삽입할 데이터가 너무커서 단말노드에 저장할 수 없는 경우.
+	 */
+	PointNode<T,P> build(Envelope bounds, T[] values) throws TooBigValueException {
+		PointNode<T,P> root = build(bounds, values, 0, values.length);
+		PointQuadTree.relinkLeafNodes(root);
+		
+		return root;
+	}
+	
+	private PointNode<T,P> build(Envelope bounds, T[] values, int start, int end)
+		throws TooBigValueException {
+		// 주어진 범위의 데이터를 모두 하나의 단말노드에 넣을 수 있는 경우는
+		// 단말노드를 생성하고, 그렇지 않은 경우는 사분면별로 데이터를 나눠 하위 노드를 구성한다.
+		if ( end - start < m_overflowCount ) {
+			PointLeafNode<T,P> leaf = new PointLeafNode<>(bounds, m_partSupplier, m_splitStrategy);
+			int idx = start;
+			while ( idx < end && leaf.insert(values[idx]) ) {
+				++idx;
+			}
+			if ( idx == end ) {
+				return leaf;
+			}
+			m_overflowCount = idx - start + 1;
+		}
+		
+		// 모든 데이터가 같은 좌표를 갖는 경우는 분할하더라도 한 사분면에 모두 모이기 때문에
+		// 단말노드에 넣을 수 있을 때까지 분할이 끝없이 반복된다.
+		Coordinate first = values[start].getCoordinate();
+		int idx = start + 1;
+		while ( idx < end && values[idx].getCoordinate().equals2D(first) ) {
+			++idx;
+		}
+		if ( idx == end ) {
+			String msg = String.format("%d values at the same coordinate: coord=%s, bounds=%s",
+										end - start, first, bounds);
+			throw new TooBigValueException(msg);
+		}
+		
+		List<Coordinate> coords = new AbstractList<Coordinate>() {
+			@Override
+			public Coordinate get(int index) {
+				return values[start + index].getCoordinate();
+			}
+
+			@Override
+			public int size() {
+				return end - start;
+			}
+		};
+		Envelope[] quads = m_splitStrategy.split(bounds, coords);
+		int[] offsets = partition(quads, values, start, end);
+		
+		@SuppressWarnings("unchecked")
+		PointNode<T,P>[] children = new PointNode[quads.length];
+		for ( int i =0; i < quads.length; ++i ) {
+			children[i] = build(quads[i], values, offsets[i], offsets[i+1]);
+		}
+		
+		return new PointNonLeafNode<>(bounds, children, (m_overflowCount - 1) / 2);
+	}
+	
+	/**
+	 * 주어진 범위의 데이터들을 사분면 순서대로 재배치한다.
+	 * 
+	 * @return	각 사분면에 해당하는 데이터의 시작 위치. 마지막 원소는 {@code end}이다.
+	 */
+	private int[] partition(Envelope[] quads, T[] values, int start, int end) {
+		int mid = partition(quads, values, start, end, 2);
+		int[] offsets = new int[] {
+			start, partition(quads, values, start, mid, 1),
+			mid, partition(quads, values, mid, end, 3),
+			end
+		};
+		return offsets;
+	}
+	
+	/**
+	 * 주어진 범위의 데이터들 중에서 사분면 순번이 {@code pivot}보다 작은 데이터들을 앞쪽으로
+	 * 재배치하고, 나머지 데이터들의 시작 위치를 반환한다.
+	 */
+	private int partition(Envelope[] quads, T[] values, int start, int end, int pivot) {
+		int left = start;
+		int right = end - 1;
+		while ( true ) {
+			while ( left <= right && quadrantOf(quads, values[left]) < pivot ) {
+				++left;
+			}
+			while ( left <= right && quadrantOf(quads, values[right]) >= pivot ) {
+				--right;
+			}
+			if ( left >= right ) {
+				return left;
+			}
+			
+			T tmp = values[left];
+			values[left] = values[right];
+			values[right] = tmp;
+			++left;
+			--right;
+		}
+	}
+	
+	/**
+	 * 주어진 데이터가 삽입될 사분면의 순번을 반환한다.
+	 * {@link PointNonLeafNode#insert(PointValue)}와 동일하게, 여러 사분면의 경계에 걸친 경우는
+	 * 가장 작은 순번의 사분면이 선택된다.
+	 */
+	private int quadrantOf(Envelope[] quads, T value) {
+		Coordinate coord = value.getCoordinate();
+		for ( int i =0; i < quads.length; ++i ) {
+			if ( quads[i].intersects(coord) ) {
+				return i;
+			}
+		}
+		
+		Envelope bounds = new Envelope(quads[0]);
+		bounds.expandToInclude(quads[quads.length-1]);
+		String msg = String.format("bounds=%s, value=%s", bounds, value);
+		throw new IllegalArgumentException("value is out of bounds: " + msg);
+	}
+}
@@ -0,0 +1,166 @@
+package utils.geo.quadtree.point;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.locationtech.jts.geom.Envelope;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+import utils.stream.FStream;
+
+/**
+ * 특정 시점의 {@link PointQuadTree}에 대한 읽기 전용 snapshot.
+ * <p>
+ * snapshot이 참조하는 노드들은 원본 QuadTree가 갱신되더라도 변경되지 않는다.
+ * 원본 QuadTree의 단말 노드 체인은 갱신될 수 있기 때문에, snapshot은 체인 대신
+ * 노드들을 깊이 우선(quad-key 순서)으로 순회하며, 체인에 연결된 단말 노드 객체를 외부에 노출하지 않는다.
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ * @see PointQuadTree#snapshot()
+ */
+public class PointQuadTreeSnapshot<T extends PointValue, P extends PointPartition<T>> {
+	private final PointNode<T,P> m_root;
+	
+	PointQuadTreeSnapshot(PointNode<T,P> root) {
+		m_root = root;
+	}
+	
+	public Envelope getRootBounds() {
+		return m_root.getBounds();
+	}
+	
+	public int getDepth() {
+		return m_root.getDepth();
+	}
+	
+	/**
+	 * snapshot에 포함된 데이터의 갯수를 반환한다.
+	 * 
+	 * @return	데이터 갯수
+	 */
+	public int getValueCount() {
+		return m_root.getValueCount();
+	}
+	
+	/**
+	 * snapshot에 포함된 모든 단말 노드들의 partition을 quad-key 순서대로 반환한다.
+	 * <p>
+	 * 단말 노드는 원본 QuadTree의 단말 노드 체인에 연결되어 있어 snapshot 이후의 갱신 내용을
+	 * 참조할 수 있기 때문에, 단말 노드 대신 partition을 반환한다.
+	 * 반환된 partition은 snapshot과 공유되므로 수정하면 안된다.
+	 * 
+	 * @return	partition 스트림
+	 */
+	public FStream<P> streamPartitions() {
+		return FStream.from(new DepthFirstLeafNodeIterator<>(m_root)).map(PointLeafNode::getPartition);
+	}
+	
+	/**
+	 * snapshot에 포함된 모든 데이터들의 스트림을 반환한다.
+	 * 
+	 * @return	테이터 스트림
+	 */
+	public FStream<T> streamValues() {
+		return FStream.from(new DepthFirstLeafNodeIterator<>(m_root)).flatMap(PointLeafNode::values);
+	}
+	
+	/**
+	 * snapshot에 포함된 데이터 중 주어진 질의 사각형과 겹치는 데이터를 접근하는 순환자를 반환한다.
+	 * <p>
+	 * {@link PointQuadTree#query(Envelope)}와 같이 non-leaf 노드의 데이터 MBR을 이용하여
+	 * 질의 사각형과 겹치지 않는 하위 트리는 방문하지 않는다.
+	 * 
+	 * @param key	질의 box.
+	 * @return	데이터 순환자
+	 */
+	public FStream<T> query(Envelope key) {
+		Preconditions.checkArgument(key != null, "search key");
+		
+		List<PointLeafNode<T,P>> leaves = Lists.newArrayList();
+		if ( m_root instanceof PointLeafNode ) {
+			if ( m_root.getBounds().intersects(key) ) {
+				leaves.add((PointLeafNode<T,P>)m_root);
+			}
+		}
+		else {
+			((PointNonLeafNode<T,P>)m_root).collectIntersectingLeafNodes(key, leaves);
+		}
+		
+		return FStream.from(leaves).flatMap(leaf -> leaf.query(key));
+	}
+	
+	/**
+	 * snapshot에 포함된 데이터 중 주어진 질의 사각형과 겹치는 데이터를 visitor에게 차례대로 전달한다.
+	 * 
+	 * @param key	질의 box.
+	 * @param visitor	질의 결과를 전달받을 visitor.
+	 * @return	모든 결과를 전달한 경우는 {@code true}, visitor에 의해 중단된 경우는 {@code false}.
+	 * @see PointQuadTree#query(Envelope, PointVisitor)
+	 */
+	public boolean query(Envelope key, PointVisitor<? super T> visitor) {
+		Preconditions.checkArgument(key != null, "search key");
+		Preconditions.checkArgument(visitor != null, "visitor is null");
+		
+		return (m_root instanceof PointLeafNode)
+				? ((PointLeafNode<T,P>)m_root).visit(key, visitor)
+				: ((PointNonLeafNode<T,P>)m_root).visit(key, visitor);
+	}
+	
+	/**
+	 * snapshot에 포함된 데이터 중 주어진 질의 사각형과 겹치는 데이터의 갯수를 반환한다.
+	 * 
+	 * @param key	질의 box.
+	 * @return	데이터 갯수
+	 * @see PointQuadTree#count(Envelope)
+	 */
+	public long count(Envelope key) {
+		Preconditions.checkArgument(key != null, "search key");
+		
+		return (m_root instanceof PointLeafNode)
+				? ((PointLeafNode<T,P>)m_root).count(key)
+				: ((PointNonLeafNode<T,P>)m_root).count(key);
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%s: root_bounds=%s, count=%d", getClass().getSimpleName(),
+								m_root.getBounds(), m_root.getValueCount());
+	}
+	
+	private static class DepthFirstLeafNodeIterator<T extends PointValue, P extends PointPartition<T>>
+																implements Iterator<PointLeafNode<T,P>> {
+		private final Deque<PointNode<T,P>> m_stack = new ArrayDeque<>();
+		
+		DepthFirstLeafNodeIterator(PointNode<T,P> root) {
+			m_stack.push(root);
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return !m_stack.isEmpty();
+		}
+		
+		@Override
+		public PointLeafNode<T,P> next() {
+			if ( m_stack.isEmpty() ) {
+				throw new NoSuchElementException();
+			}
+			
+			PointNode<T,P> node = m_stack.pop();
+			while ( node instanceof PointNonLeafNode ) {
+				PointNonLeafNode<T,P> nonLeaf = (PointNonLeafNode<T,P>)node;
+				for ( int i = PointQuadTree.QUAD-1; i > 0; --i ) {
+					m_stack.push(nonLeaf.getChild(i));
+				}
+				node = nonLeaf.getChild(0);
+			}
+			
+			return (PointLeafNode<T,P>)node;
+		}
+	}
+}
@@ -0,0 +1,36 @@
+package utils.geo.quadtree.point;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.locationtech.jts.geom.Coordinate;
+
+/**
+ * {@link MappedPointQuadTree} 파일에 point 데이터를 저장하고 읽기 위한 codec.
+ * <p>
+ * point의 좌표는 {@link MappedPointQuadTree}가 별도로 저장하기 때문에, codec은 좌표를 제외한
+ * 나머지 정보(payload)만 기록한다.
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+public interface PointValueCodec<T extends PointValue> {
+	/**
+	 * 주어진 데이터의 payload를 기록한다.
+	 * 
+	 * @param value	기록할 데이터
+	 * @param out	출력 대상
+	 * @throws IOException	기록 중 오류가 발생한 경우.
+	 */
+	public void encode(T value, DataOutput out) throws IOException;
+	
+	/**
+	 * 주어진 좌표와 payload로부터 데이터 객체를 생성한다.
+	 * 
+	 * @param coord	데이터의 좌표
+	 * @param payload	{@link #encode(PointValue, DataOutput)}로 기록된 payload.
+	 * 					position은 payload의 시작이고, limit는 payload의 끝이다.
+	 * @return	데이터 객체
+	 */
+	public T decode(Coordinate coord, ByteBuffer payload);
+}
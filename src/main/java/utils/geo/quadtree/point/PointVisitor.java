@@ -0,0 +1,17 @@
+package utils.geo.quadtree.point;
+
+/**
+ * QuadTree 질의 결과를 하나씩 전달받는 visitor.
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+@FunctionalInterface
+public interface PointVisitor<T extends PointValue> {
+	/**
+	 * 질의 결과 데이터를 전달받는다.
+	 * 
+	 * @param value	질의 결과 데이터
+	 * @return	탐색을 계속할지 여부. {@code false}인 경우는 탐색이 즉시 중단된다.
+	 */
+	public boolean visit(T value);
+}
@@ -0,0 +1,134 @@
+package utils.geo.quadtree.point;
+
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+
+import com.google.common.collect.Lists;
+
+/**
+ * 두 QuadTree에 저장된 데이터들 중에서 서로의 거리가 주어진 거리 이내인 쌍을 찾는 작업.
+ * <p>
+ * 두 트리를 동시에 내려가면서, 영역 사이의 최소 거리가 주어진 거리보다 먼 노드 쌍은
+ * 더 이상 탐색하지 않는다. 두 노드 중 non-leaf 노드이면서 데이터 영역이 넓은 쪽의 하위 노드들로
+ * 노드 쌍을 분할하며, 두 노드가 모두 단말노드인 경우만 데이터 쌍을 직접 비교한다.
+ * <p>
+ * 병렬로 수행되는 경우는 분할된 노드 쌍들을 별도의 작업으로 생성한다.
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+class SpatialJoinTask<T extends PointValue, P extends PointPartition<T>,
+						U extends PointValue, Q extends PointPartition<U>> extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+	
+	/** 노드 쌍 중 작은 쪽의 데이터 수가 본 값보다 작은 경우는 하위 작업을 fork하지 않고 직접 수행한다. */
+	static final int SEQUENTIAL_THRESHOLD = 1024;
+	
+	private final PointNode<T,P> m_left;
+	private final PointNode<U,Q> m_right;
+	private final double m_distance;
+	private final BiConsumer<? super T,? super U> m_consumer;
+	private final boolean m_parallel;
+	
+	SpatialJoinTask(PointNode<T,P> left, PointNode<U,Q> right, double distance,
+					BiConsumer<? super T,? super U> consumer, boolean parallel) {
+		m_left = left;
+		m_right = right;
+		m_distance = distance;
+		m_consumer = consumer;
+		m_parallel = parallel;
+	}
+	
+	@Override
+	protected void compute() {
+		// 두 노드가 모두 단말노드인 경우는 더 이상 분할할 수 없기 때문에 직접 수행한다.
+		if ( m_parallel
+			&& (m_left instanceof PointNonLeafNode || m_right instanceof PointNonLeafNode)
+			&& Math.min(m_left.getValueCount(), m_right.getValueCount()) >= SEQUENTIAL_THRESHOLD ) {
+			List<SpatialJoinTask<T,P,U,Q>> subTasks = Lists.newArrayList();
+			split(m_left, m_right, (left, right) -> {
+				subTasks.add(new SpatialJoinTask<>(left, right, m_distance, m_consumer, true));
+			});
+			invokeAll(subTasks);
+		}
+		else {
+			join(m_left, m_right);
+		}
+	}
+	
+	private void join(PointNode<T,P> left, PointNode<U,Q> right) {
+		if ( left instanceof PointLeafNode && right instanceof PointLeafNode ) {
+			joinLeaves((PointLeafNode<T,P>)left, (PointLeafNode<U,Q>)right);
+		}
+		else {
+			split(left, right, this::join);
+		}
+	}
+	
+	/**
+	 * 주어진 노드 쌍을 하위 노드 쌍들로 분할하고, 거리 조건을 만족할 수 있는 쌍들을 전달한다.
+	 */
+	private void split(PointNode<T,P> left, PointNode<U,Q> right,
+						BiConsumer<PointNode<T,P>,PointNode<U,Q>> pairConsumer) {
+		Envelope leftBounds = getSearchBounds(left);
+		Envelope rightBounds = getSearchBounds(right);
+		
+		boolean splitLeft = (right instanceof PointLeafNode)
+							|| (left instanceof PointNonLeafNode && leftBounds.getArea() >= rightBounds.getArea());
+		if ( splitLeft ) {
+			PointNonLeafNode<T,P> nonLeaf = (PointNonLeafNode<T,P>)left;
+			for ( int i =0; i < PointQuadTree.QUAD; ++i ) {
+				PointNode<T,P> child = nonLeaf.getChild(i);
+				if ( isCandidate(getSearchBounds(child), rightBounds) ) {
+					pairConsumer.accept(child, right);
+				}
+			}
+		}
+		else {
+			PointNonLeafNode<U,Q> nonLeaf = (PointNonLeafNode<U,Q>)right;
+			for ( int i =0; i < PointQuadTree.QUAD; ++i ) {
+				PointNode<U,Q> child = nonLeaf.getChild(i);
+				if ( isCandidate(leftBounds, getSearchBounds(child)) ) {
+					pairConsumer.accept(left, child);
+				}
+			}
+		}
+	}
+	
+	private void joinLeaves(PointLeafNode<T,P> left, PointLeafNode<U,Q> right) {
+		if ( left.getValueCount() == 0 || right.getValueCount() == 0 ) {
+			return;
+		}
+		
+		final double dist2 = m_distance * m_distance;
+		List<U> rights = right.values().toList();
+		left.getPartition().visit(lv -> {
+			Coordinate lc = lv.getCoordinate();
+			for ( U rv: rights ) {
+				Coordinate rc = rv.getCoordinate();
+				double dx = lc.x - rc.x;
+				double dy = lc.y - rc.y;
+				if ( dx*dx + dy*dy <= dist2 ) {
+					m_consumer.accept(lv, rv);
+				}
+			}
+			return true;
+		});
+	}
+	
+	private boolean isCandidate(Envelope left, Envelope right) {
+		return !left.isNull() && !right.isNull() && left.distance(right) <= m_distance;
+	}
+	
+	/**
+	 * 거리 하한 계산에 사용할 노드의 영역을 반환한다.
+	 * non-leaf 노드는 노드 영역 대신 실제 데이터의 MBR을 사용한다.
+	 */
+	private static Envelope getSearchBounds(PointNode<?,?> node) {
+		return (node instanceof PointNonLeafNode) ? ((PointNonLeafNode<?,?>)node).getDataBoundsRef()
+												: node.getBounds();
+	}
+}
@@ -0,0 +1,108 @@
+package utils.geo.quadtree.point;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+
+/**
+ * 단말노드 분할시 분할 기준점을 결정하는 전략.
+ * <p>
+ * 분할된 4개 하위 영역은 항상 분할 대상 영역을 빈틈없이 덮으며,
+ * 하위 영역의 순서는 단말 노드 체인의 순서(SW, SE, NW, NE)를 따른다.
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+@FunctionalInterface
+public interface SplitStrategy {
+	/**
+	 * 주어진 영역을 4개의 하위 영역으로 분할한다.
+	 * 
+	 * @param bounds	분할할 영역
+	 * @param coords	분할할 영역에 포함된 데이터들의 좌표
+	 * @return	분할된 4개의 하위 영역
+	 */
+	public Envelope[] split(Envelope bounds, List<Coordinate> coords);
+	
+	/**
+	 * 영역의 중심점을 기준으로 분할한다.
+	 */
+	public static final SplitStrategy MIDPOINT = (bounds, coords) -> PointLeafNode.splitBounds(bounds);
+	
+	/**
+	 * 데이터 좌표의 x, y 중간값(median)을 기준으로 분할한다.
+	 * 중간값이 영역의 경계와 같은 축은 중심점을 기준으로 분할한다.
+	 */
+	public static final SplitStrategy MEDIAN = (bounds, coords) -> {
+		int n = coords.size();
+		if ( n == 0 ) {
+			return PointLeafNode.splitBounds(bounds);
+		}
+		
+		double[] xs = new double[n];
+		double[] ys = new double[n];
+		for ( int i =0; i < n; ++i ) {
+			Coordinate coord = coords.get(i);
+			xs[i] = coord.x;
+			ys[i] = coord.y;
+		}
+		Arrays.sort(xs);
+		Arrays.sort(ys);
+		
+		double x = (xs[(n-1)/2] + xs[n/2]) / 2;
+		double y = (ys[(n-1)/2] + ys[n/2]) / 2;
+		return quadrants(bounds, orMidpoint(x, bounds.getMinX(), bounds.getMaxX()),
+						orMidpoint(y, bounds.getMinY(), bounds.getMaxY()));
+	};
+	
+	/**
+	 * 영역의 중심점을 기준으로 분할하되, 데이터가 모두 분할선의 한쪽에 몰려있는 축은
+	 * 분할선을 데이터 범위의 중심으로 옮겨 비어있는 하위 영역이 생기지 않도록 한다.
+	 */
+	public static final SplitStrategy SLIDING_MIDPOINT = (bounds, coords) -> {
+		double midX = bounds.getMinX() + bounds.getWidth()/2;
+		double midY = bounds.getMinY() + bounds.getHeight()/2;
+		
+		Envelope extent = new Envelope();
+		for ( Coordinate coord: coords ) {
+			extent.expandToInclude(coord);
+		}
+		if ( extent.isNull() ) {
+			return quadrants(bounds, midX, midY);
+		}
+		
+		double x = (extent.getMinX() > midX || extent.getMaxX() <= midX)
+					? orMidpoint(extent.getMinX() + extent.getWidth()/2, bounds.getMinX(), bounds.getMaxX())
+					: midX;
+		double y = (extent.getMinY() > midY || extent.getMaxY() <= midY)
+					? orMidpoint(extent.getMinY() + extent.getHeight()/2, bounds.getMinY(), bounds.getMaxY())
+					: midY;
+		return quadrants(bounds, x, y);
+	};
+	
+	/**
+	 * 주어진 기준점을 중심으로 영역을 4개의 사분면으로 분할한다.
+	 * 
+	 * @param bounds	분할할 영역
+	 * @param x		분할 기준점의 x 좌표
+	 * @param y		분할 기준점의 y 좌표
+	 * @return	분할된 4개의 사분면 영역
+	 */
+	public static Envelope[] quadrants(Envelope bounds, double x, double y) {
+		return new Envelope[] {
+			new Envelope(bounds.getMinX(), x, bounds.getMinY(), y),
+			new Envelope(x, bounds.getMaxX(), bounds.getMinY(), y),
+			new Envelope(bounds.getMinX(), x, y, bounds.getMaxY()),
+			new Envelope(x, bounds.getMaxX(), y, bounds.getMaxY()),
+		};
+	}
+	
+	/**
+	 * 분할 좌표가 영역의 경계와 같거나 벗어나서 폭이 0인 하위 영역이 생기는 경우는
+	 * 영역의 중심 좌표를 대신 사용한다.
+	 */
+	private static double orMidpoint(double v, double min, double max) {
+		return (v > min && v < max) ? v : min + (max - min)/2;
+	}
+}
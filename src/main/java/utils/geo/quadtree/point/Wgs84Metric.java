@@ -0,0 +1,93 @@
+package utils.geo.quadtree.point;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+
+import utils.geo.util.GeoClientUtils;
+
+/**
+ * EPSG:4326 좌표계로 저장된 데이터에 대한 WGS84 타원체 상의 거리 척도 (단위: 미터).
+ * <p>
+ * 노드 영역 및 데이터까지의 거리 하한 값은 반지름이 {@link #MIN_RADIUS}인 구면 상의 거리로
+ * 계산한다. WGS84 타원체의 모든 곡률 반경은 이 값보다 크기 때문에, 구면 거리는
+ * 항상 타원체 상의 거리보다 작거나 같다. 정확한 타원체 거리는 하한 값으로 걸러지지 않은
+ * 데이터에 대해서만 {@link GeoClientUtils#distanceWgs84(Coordinate, Coordinate)}로 계산된다.
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+class Wgs84Metric implements NearestNeighborSearch.Metric {
+	/** WGS84 타원체의 최소 곡률 반경 (적도에서의 자오선 곡률 반경, a(1-e^2)). */
+	static final double MIN_RADIUS = 6_335_439.327;
+	
+	private final Coordinate m_center;
+	private final double m_lon;		// radian
+	private final double m_lat;		// radian
+	private final double m_sinLat;
+	private final double m_cosLat;
+	
+	Wgs84Metric(Coordinate center) {
+		m_center = center;
+		m_lon = Math.toRadians(center.x);
+		m_lat = Math.toRadians(center.y);
+		m_sinLat = Math.sin(m_lat);
+		m_cosLat = Math.cos(m_lat);
+	}
+
+	@Override
+	public double minDistance(Envelope bounds) {
+		double minLat = Math.toRadians(bounds.getMinY());
+		double maxLat = Math.toRadians(bounds.getMaxY());
+		
+		if ( m_center.x >= bounds.getMinX() && m_center.x <= bounds.getMaxX() ) {
+			// 기준점의 경도가 영역에 포함되는 경우는 같은 경도 상의 가장 가까운 위도까지의 거리가 최소이다.
+			double lat = clamp(m_lat, minLat, maxLat);
+			return MIN_RADIUS * Math.abs(m_lat - lat);
+		}
+		
+		// 그렇지 않은 경우는 영역의 좌/우 경계 자오선 상의 가장 가까운 지점들 중 가까운 쪽을 사용한다.
+		return Math.min(distanceToMeridian(Math.toRadians(bounds.getMinX()), minLat, maxLat),
+						distanceToMeridian(Math.toRadians(bounds.getMaxX()), minLat, maxLat));
+	}
+
+	@Override
+	public double minDistance(Coordinate coord) {
+		return MIN_RADIUS * angle(Math.toRadians(coord.x), Math.toRadians(coord.y));
+	}
+
+	@Override
+	public double distance(Coordinate coord) {
+		return GeoClientUtils.distanceWgs84(m_center, coord);
+	}
+	
+	/**
+	 * 주어진 경도의 자오선 중 [minLat, maxLat] 구간에서 기준점과 가장 가까운 지점까지의
+	 * 구면 거리를 계산한다.
+	 */
+	private double distanceToMeridian(double lon, double minLat, double maxLat) {
+		// 자오선을 포함하는 대원(great circle) 상에서 기준점과 가장 가까운 지점의 위도.
+		// 대원 상의 거리는 이 지점에서 멀어질수록 증가하다가 대척점에서 최대가 되므로,
+		// 이 지점이 구간에 포함되지 않으면 구간의 양 끝점 중 하나가 최소이다.
+		double nearest = Math.atan2(m_sinLat, m_cosLat * Math.cos(lon - m_lon));
+		if ( nearest >= minLat && nearest <= maxLat ) {
+			return MIN_RADIUS * angle(lon, nearest);
+		}
+		else {
+			return MIN_RADIUS * Math.min(angle(lon, minLat), angle(lon, maxLat));
+		}
+	}
+	
+	/**
+	 * 기준점과 주어진 지점 사이의 구면 상의 중심각을 haversine 공식으로 계산한다.
+	 */
+	private double angle(double lon, double lat) {
+		double sinDLat = Math.sin((lat - m_lat) / 2);
+		double sinDLon = Math.sin((lon - m_lon) / 2);
+		double h = sinDLat*sinDLat + m_cosLat * Math.cos(lat) * sinDLon*sinDLon;
+		
+		return 2 * Math.asin(Math.min(1, Math.sqrt(h)));
+	}
+	
+	private static double clamp(double v, double min, double max) {
+		return (v < min) ? min : (v > max) ? max : v;
+	}
+}
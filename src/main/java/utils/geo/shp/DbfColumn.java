@@ -0,0 +1,365 @@
+package utils.geo.shp;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+
+import javax.annotation.Nullable;
+
+/**
+ * {@link DbfColumnReader}가 읽은 하나의 batch에 포함된 한 컬럼의 값들.
+ * <p>
+ * 숫자 컬럼은 필드 정의에 따라 {@link IntColumn}, {@link LongColumn}, {@link DoubleColumn}으로
+ * 읽히며, 값은 boxing 없이 primitive 배열에 저장된다. 빈 값 등으로 해석할 수 없는 숫자 값은
+ * null로 표시되고 배열에는 0이 저장된다. 그 밖의 컬럼은 {@link StringColumn}으로 읽히며,
+ * 문자열은 {@link StringColumn#get(int)}가 호출된 행에 대해서만 변환된다.
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+public abstract class DbfColumn {
+	private final String m_name;
+	protected final int m_rowCount;
+	private final BitSet m_nulls = new BitSet();
+	
+	protected DbfColumn(String name, int rowCount) {
+		m_name = name;
+		m_rowCount = rowCount;
+	}
+	
+	public String getName() {
+		return m_name;
+	}
+	
+	public int getRowCount() {
+		return m_rowCount;
+	}
+	
+	/**
+	 * 주어진 행의 값이 null인지 여부를 반환한다.
+	 * 
+	 * @param row	batch 내 행 번호 (0부터 시작)
+	 * @return	null 여부
+	 */
+	public boolean isNull(int row) {
+		return m_nulls.get(row);
+	}
+	
+	/**
+	 * 주어진 행의 값을 객체 형태로 반환한다.
+	 * 
+	 * @param row	batch 내 행 번호 (0부터 시작)
+	 * @return	컬럼 값. null인 경우는 {@code null}.
+	 */
+	public abstract @Nullable Object getObject(int row);
+	
+	/**
+	 * 레코드 버퍼의 주어진 위치에서 필드 값을 읽어 주어진 행에 저장한다.
+	 */
+	abstract void load(int row, byte[] buffer, int offset, int length);
+	
+	protected void setNull(int row) {
+		m_nulls.set(row);
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%s[%s]: rows=%d", getClass().getSimpleName(), m_name, m_rowCount);
+	}
+	
+	public static final class IntColumn extends DbfColumn {
+		private final int[] m_values;
+		
+		IntColumn(String name, int rowCount) {
+			super(name, rowCount);
+			
+			m_values = new int[rowCount];
+		}
+		
+		public int get(int row) {
+			return m_values[row];
+		}
+		
+		/**
+		 * 컬럼 값이 저장된 배열을 반환한다. null인 행에는 0이 저장되어 있다.
+		 * 
+		 * @return	값 배열
+		 */
+		public int[] values() {
+			return m_values;
+		}
+		
+		@Override
+		public @Nullable Integer getObject(int row) {
+			return isNull(row) ? null : m_values[row];
+		}
+		
+		@Override
+		void load(int row, byte[] buffer, int offset, int length) {
+			long value = parseLong(buffer, offset, length);
+			if ( value == NULL_LONG || value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ) {
+				setNull(row);
+			}
+			else {
+				m_values[row] = (int)value;
+			}
+		}
+	}
+	
+	public static final class LongColumn extends DbfColumn {
+		private final long[] m_values;
+		
+		LongColumn(String name, int rowCount) {
+			super(name, rowCount);
+			
+			m_values = new long[rowCount];
+		}
+		
+		public long get(int row) {
+			return m_values[row];
+		}
+		
+		/**
+		 * 컬럼 값이 저장된 배열을 반환한다. null인 행에는 0이 저장되어 있다.
+		 * 
+		 * @return	값 배열
+		 */
+		public long[] values() {
+			return m_values;
+		}
+		
+		@Override
+		public @Nullable Long getObject(int row) {
+			return isNull(row) ? null : m_values[row];
+		}
+		
+		@Override
+		void load(int row, byte[] buffer, int offset, int length) {
+			long value = parseLong(buffer, offset, length);
+			if ( value == NULL_LONG ) {
+				setNull(row);
+			}
+			else {
+				m_values[row] = value;
+			}
+		}
+	}
+	
+	public static final class DoubleColumn extends DbfColumn {
+		private final double[] m_values;
+		
+		DoubleColumn(String name, int rowCount) {
+			super(name, rowCount);
+			
+			m_values = new double[rowCount];
+		}
+		
+		public double get(int row) {
+			return m_values[row];
+		}
+		
+		/**
+		 * 컬럼 값이 저장된 배열을 반환한다. null인 행에는 0이 저장되어 있다.
+		 * 
+		 * @return	값 배열
+		 */
+		public double[] values() {
+			return m_values;
+		}
+		
+		@Override
+		public @Nullable Double getObject(int row) {
+			return isNull(row) ? null : m_values[row];
+		}
+		
+		@Override
+		void load(int row, byte[] buffer, int offset, int length) {
+			double value = parseDouble(buffer, offset, length);
+			if ( Double.isNaN(value) ) {
+				setNull(row);
+			}
+			else {
+				m_values[row] = value;
+			}
+		}
+	}
+	
+	/**
+	 * 문자열 컬럼.
+	 * <p>
+	 * 필드의 원본 바이트만 복사해 두고, 문자열 변환은 {@link #get(int)}가 처음 호출될 때
+	 * 해당 행에 대해서만 수행한다. 변환된 문자열은 앞뒤 공백이 제거된다.
+	 */
+	public static final class StringColumn extends DbfColumn {
+		private final Charset m_charset;
+		private final int m_width;
+		private final byte[] m_bytes;
+		private final String[] m_values;
+		
+		StringColumn(String name, int rowCount, int width, Charset charset) {
+			super(name, rowCount);
+			
+			m_charset = charset;
+			m_width = width;
+			m_bytes = new byte[rowCount * width];
+			m_values = new String[rowCount];
+		}
+		
+		public String get(int row) {
+			String value = m_values[row];
+			if ( value == null ) {
+				int start = row * m_width;
+				int end = start + m_width;
+				while ( start < end && isBlank(m_bytes[start]) ) {
+					++start;
+				}
+				while ( end > start && isBlank(m_bytes[end-1]) ) {
+					--end;
+				}
+				m_values[row] = value = new String(m_bytes, start, end - start, m_charset);
+			}
+			
+			return value;
+		}
+		
+		/**
+		 * 주어진 행의 원본 바이트를 담은 배열 내 시작 위치를 반환한다.
+		 * 원본 바이트는 {@link #getBytes()} 배열의 이 위치부터 {@link #getWidth()} 길이만큼이다.
+		 * 
+		 * @param row	batch 내 행 번호 (0부터 시작)
+		 * @return	배열 내 시작 위치
+		 */
+		public int getByteOffset(int row) {
+			return row * m_width;
+		}
+		
+		public byte[] getBytes() {
+			return m_bytes;
+		}
+		
+		public int getWidth() {
+			return m_width;
+		}
+		
+		@Override
+		public String getObject(int row) {
+			return get(row);
+		}
+		
+		@Override
+		void load(int row, byte[] buffer, int offset, int length) {
+			System.arraycopy(buffer, offset, m_bytes, row * m_width, length);
+		}
+	}
+	
+	private static final long NULL_LONG = Long.MIN_VALUE;
+	
+	/**
+	 * 공백으로 채워진 ASCII 정수 필드를 해석한다.
+	 * 빈 값이거나 정수로 해석할 수 없는 경우는 {@link #NULL_LONG}을 반환한다.
+	 */
+	private static long parseLong(byte[] buf, int offset, int length) {
+		int idx = offset;
+		int end = offset + length;
+		while ( idx < end && isBlank(buf[idx]) ) {
+			++idx;
+		}
+		while ( end > idx && isBlank(buf[end-1]) ) {
+			--end;
+		}
+		
+		boolean negative = false;
+		if ( idx < end && (buf[idx] == '-' || buf[idx] == '+') ) {
+			negative = buf[idx++] == '-';
+		}
+		// 부호 제외 18자리까지는 long 범위를 넘지 않는다.
+		if ( idx >= end || end - idx > 18 ) {
+			return NULL_LONG;
+		}
+		
+		long value = 0;
+		for (; idx < end; ++idx ) {
+			int digit = buf[idx] - '0';
+			if ( digit < 0 || digit > 9 ) {
+				return NULL_LONG;
+			}
+			value = value * 10 + digit;
+		}
+		
+		return negative ? -value : value;
+	}
+	
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+		1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22,
+	};
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+	
+	/**
+	 * 공백으로 채워진 ASCII 실수 필드를 해석한다.
+	 * 빈 값이거나 실수로 해석할 수 없는 경우는 {@link Double#NaN}을 반환한다.
+	 * <p>
+	 * 가수부가 2^53 미만이고 소수점 이하 자릿수가 22 이하인 일반적인 경우는 문자열 객체를
+	 * 생성하지 않고 직접 계산한다. 두 값 모두 double로 정확히 표현되기 때문에 나눗셈 결과는
+	 * {@link Double#parseDouble(String)}과 동일하다. 그 밖의 경우는
+	 * {@link Double#parseDouble(String)}을 사용한다.
+	 */
+	private static double parseDouble(byte[] buf, int offset, int length) {
+		int start = offset;
+		int end = offset + length;
+		while ( start < end && isBlank(buf[start]) ) {
+			++start;
+		}
+		while ( end > start && isBlank(buf[end-1]) ) {
+			--end;
+		}
+		if ( start >= end ) {
+			return Double.NaN;
+		}
+		
+		int idx = start;
+		boolean negative = false;
+		if ( buf[idx] == '-' || buf[idx] == '+' ) {
+			negative = buf[idx++] == '-';
+		}
+		
+		long mantissa = 0;
+		int scale = -1;
+		int ndigits = 0;
+		for (; idx < end; ++idx ) {
+			byte b = buf[idx];
+			if ( b == '.' && scale < 0 ) {
+				scale = 0;
+			}
+			else if ( b >= '0' && b <= '9' ) {
+				mantissa = mantissa * 10 + (b - '0');
+				if ( scale >= 0 ) {
+					++scale;
+				}
+				if ( ++ndigits > 18 ) {
+					break;
+				}
+			}
+			else {
+				break;
+			}
+		}
+		
+		if ( idx == end && ndigits > 0 && mantissa < MAX_EXACT_MANTISSA
+			&& scale < POWERS_OF_TEN.length ) {
+			double value = (scale > 0) ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+			return negative ? -value : value;
+		}
+		
+		// 지수 표기, 긴 가수부 등은 일반 변환을 사용한다.
+		try {
+			return Double.parseDouble(new String(buf, start, end - start, StandardCharsets.US_ASCII));
+		}
+		catch ( NumberFormatException e ) {
+			return Double.NaN;
+		}
+	}
+	
+	private static boolean isBlank(byte b) {
+		return b == ' ' || b == 0;
+	}
+}
@@ -0,0 +1,89 @@
+package utils.geo.shp;
+
+import java.util.BitSet;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * {@link DbfColumnReader}가 한번에 읽은 연속된 행들의 선택된 컬럼 값들.
+ * <p>
+ * batch 내 행 번호는 0부터 시작하며, '.dbf' 파일 내 행 번호는 {@code getStartRow() + row}이다.
+ * '.dbf' 파일의 행 번호는 '.shp' 파일의 레코드 순번({@link ShpRecord#getRecordIndex()})과 같다.
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+public final class DbfColumnBatch {
+	private final int m_startRow;
+	private final int m_rowCount;
+	private final DbfColumn[] m_columns;
+	private final BitSet m_deleted;
+	
+	DbfColumnBatch(int startRow, int rowCount, DbfColumn[] columns, BitSet deleted) {
+		m_startRow = startRow;
+		m_rowCount = rowCount;
+		m_columns = columns;
+		m_deleted = deleted;
+	}
+	
+	/**
+	 * batch의 첫번째 행의 '.dbf' 파일 내 행 번호를 반환한다.
+	 * 
+	 * @return	행 번호 (0부터 시작)
+	 */
+	public int getStartRow() {
+		return m_startRow;
+	}
+	
+	public int getRowCount() {
+		return m_rowCount;
+	}
+	
+	public int getColumnCount() {
+		return m_columns.length;
+	}
+	
+	/**
+	 * 주어진 순번의 컬럼을 반환한다. 컬럼 순번은 reader 생성시 지정한 컬럼 순서를 따른다.
+	 * 
+	 * @param idx	컬럼 순번
+	 * @return	컬럼 객체
+	 */
+	public DbfColumn getColumn(int idx) {
+		Preconditions.checkElementIndex(idx, m_columns.length);
+		
+		return m_columns[idx];
+	}
+	
+	/**
+	 * 주어진 이름의 컬럼을 반환한다. 컬럼 이름은 대소문자를 구분하지 않는다.
+	 * 
+	 * @param name	컬럼 이름
+	 * @return	컬럼 객체
+	 * @throws IllegalArgumentException	해당 이름의 컬럼이 선택되지 않은 경우.
+	 */
+	public DbfColumn getColumn(String name) {
+		for ( DbfColumn col: m_columns ) {
+			if ( col.getName().equalsIgnoreCase(name) ) {
+				return col;
+			}
+		}
+		
+		throw new IllegalArgumentException("unselected dbf column: " + name);
+	}
+	
+	/**
+	 * 주어진 행이 '.dbf' 파일에서 삭제 표시된 행인지 여부를 반환한다.
+	 * 
+	 * @param row	batch 내 행 번호 (0부터 시작)
+	 * @return	삭제 여부
+	 */
+	public boolean isDeleted(int row) {
+		return m_deleted.get(row);
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%s: rows=[%d, %d), columns=%d", getClass().getSimpleName(),
+								m_startRow, m_startRow + m_rowCount, m_columns.length);
+	}
+}
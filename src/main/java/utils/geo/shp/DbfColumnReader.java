@@ -0,0 +1,260 @@
+package utils.geo.shp;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import org.geotools.data.shapefile.dbf.DbaseFileHeader;
+
+import com.google.common.base.Preconditions;
+
+import utils.geo.shp.DbfColumn.DoubleColumn;
+import utils.geo.shp.DbfColumn.IntColumn;
+import utils.geo.shp.DbfColumn.LongColumn;
+import utils.geo.shp.DbfColumn.StringColumn;
+
+/**
+ * '.dbf' 파일에서 선택된 컬럼들만 batch 단위로 읽는 reader.
+ * <p>
+ * {@link org.geotools.data.shapefile.dbf.DbaseFileReader}는 행마다 모든 필드를 객체로
+ * 변환하지만, 본 reader는 선택된 컬럼에 해당하는 바이트 구간만 해석한다. 숫자 컬럼은
+ * primitive 배열로 읽히고, 문자열 컬럼은 원본 바이트만 복사한 뒤 실제로 접근되는 행에 대해서만
+ * 문자열로 변환한다. 컬럼 타입은 다음과 같이 결정된다.
+ * <ul>
+ * 	<li>'N' 타입이고 소수점 이하 자릿수가 0인 경우: 길이가 10 미만이면 {@link IntColumn},
+ * 		19 미만이면 {@link LongColumn}, 그 이상이면 {@link DoubleColumn}.
+ * 	<li>그 밖의 'N', 'F' 타입: {@link DoubleColumn}.
+ * 	<li>나머지 타입 ('C', 'D', 'L' 등): {@link StringColumn}.
+ * </ul>
+ * <p>
+ * 행 번호는 '.shp' 파일의 레코드 순번과 같기 때문에 {@link #read(int, int)}를 이용하면
+ * {@link ShpRecordSpliterator}로 나눈 레코드 구간에 해당하는 속성 정보만 읽을 수 있다.
+ * {@link #read(int, int)}는 파일 위치를 지정하여 읽기 때문에 여러 쓰레드에서 동시에 호출할 수 있다.
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class DbfColumnReader implements Closeable {
+	public static final int DEFAULT_BATCH_SIZE = 4096;
+	
+	private final FileChannel m_channel;
+	private final Charset m_charset;
+	private final int m_headerLength;
+	private final int m_recordLength;
+	private final int m_recordCount;
+	private final String[] m_names;
+	private final char[] m_types;
+	private final int[] m_widths;
+	private final int[] m_decimals;
+	private final int[] m_offsets;			// 레코드 내 필드 시작 위치
+	
+	private int m_nextRow = 0;
+	
+	/**
+	 * 주어진 '.dbf' 파일에서 선택된 컬럼들을 읽는 reader를 생성한다.
+	 * 
+	 * @param dbfFile	'.dbf' 파일 경로
+	 * @param header	'.dbf' 파일의 헤더
+	 * @param charset	문자열 컬럼의 문자 코드
+	 * @param columns	읽을 컬럼 이름들. 대소문자를 구분하지 않는다.
+	 * @return	reader 객체
+	 * @throws IOException	파일을 여는 도중 오류가 발생한 경우.
+	 * @throws IllegalArgumentException	헤더에 정의되지 않은 컬럼 이름이 포함된 경우.
+	 */
+	public static DbfColumnReader open(File dbfFile, DbaseFileHeader header, Charset charset,
+										List<String> columns) throws IOException {
+		Preconditions.checkArgument(dbfFile != null, "dbfFile is null");
+		Preconditions.checkArgument(header != null, "DbaseFileHeader is null");
+		Preconditions.checkArgument(charset != null, "Charset is null");
+		Preconditions.checkArgument(columns != null && !columns.isEmpty(), "no columns are selected");
+		
+		FileChannel channel = FileChannel.open(dbfFile.toPath(), StandardOpenOption.READ);
+		try {
+			return new DbfColumnReader(channel, header, charset, columns);
+		}
+		catch ( RuntimeException e ) {
+			channel.close();
+			throw e;
+		}
+	}
+	
+	private DbfColumnReader(FileChannel channel, DbaseFileHeader header, Charset charset,
+							List<String> columns) {
+		m_channel = channel;
+		m_charset = charset;
+		m_headerLength = header.getHeaderLength();
+		m_recordLength = header.getRecordLength();
+		m_recordCount = header.getNumRecords();
+		
+		// 각 레코드는 삭제 표시 1 바이트로 시작한다.
+		int nfields = header.getNumFields();
+		int[] fieldOffsets = new int[nfields];
+		for ( int i = 0, offset = 1; i < nfields; ++i ) {
+			fieldOffsets[i] = offset;
+			offset += header.getFieldLength(i);
+		}
+		
+		int ncols = columns.size();
+		m_names = new String[ncols];
+		m_types = new char[ncols];
+		m_widths = new int[ncols];
+		m_decimals = new int[ncols];
+		m_offsets = new int[ncols];
+		for ( int i = 0; i < ncols; ++i ) {
+			int fidx = findField(header, columns.get(i));
+			m_names[i] = header.getFieldName(fidx);
+			m_types[i] = Character.toUpperCase(header.getFieldType(fidx));
+			m_widths[i] = header.getFieldLength(fidx);
+			m_decimals[i] = header.getFieldDecimalCount(fidx);
+			m_offsets[i] = fieldOffsets[fidx];
+		}
+	}
+	
+	@Override
+	public void close() throws IOException {
+		m_channel.close();
+	}
+	
+	/**
+	 * '.dbf' 파일에 포함된 전체 행의 갯수를 반환한다.
+	 * 
+	 * @return	행 갯수
+	 */
+	public int getRecordCount() {
+		return m_recordCount;
+	}
+	
+	public int getColumnCount() {
+		return m_names.length;
+	}
+	
+	/**
+	 * 주어진 순번의 컬럼의 헤더에 정의된 이름을 반환한다.
+	 * 
+	 * @param idx	컬럼 순번
+	 * @return	컬럼 이름
+	 */
+	public String getColumnName(int idx) {
+		Preconditions.checkElementIndex(idx, m_names.length);
+		
+		return m_names[idx];
+	}
+	
+	/**
+	 * 다음 batch를 읽는다.
+	 * 
+	 * @param maxRows	읽을 최대 행 수
+	 * @return	읽은 batch. 더 이상 읽을 행이 없는 경우는 {@code null}.
+	 * @throws IOException	파일을 읽는 도중 오류가 발생한 경우.
+	 */
+	public @Nullable DbfColumnBatch next(int maxRows) throws IOException {
+		Preconditions.checkArgument(maxRows > 0, "invalid maxRows: " + maxRows);
+		
+		if ( m_nextRow >= m_recordCount ) {
+			return null;
+		}
+		
+		DbfColumnBatch batch = read(m_nextRow, Math.min(maxRows, m_recordCount - m_nextRow));
+		m_nextRow += batch.getRowCount();
+		
+		return batch;
+	}
+	
+	/**
+	 * {@link #next(int)}로 다음에 읽을 행을 지정한다.
+	 * 
+	 * @param row	행 번호 (0부터 시작)
+	 */
+	public void seek(int row) {
+		Preconditions.checkPositionIndex(row, m_recordCount);
+		
+		m_nextRow = row;
+	}
+	
+	/**
+	 * 주어진 구간의 행들을 읽는다. 본 메소드는 {@link #next(int)}가 읽을 위치에 영향을 주지 않는다.
+	 * 
+	 * @param startRow	읽을 첫번째 행 번호 (0부터 시작)
+	 * @param rowCount	읽을 행 수
+	 * @return	읽은 batch
+	 * @throws IOException	파일을 읽는 도중 오류가 발생한 경우.
+	 */
+	public DbfColumnBatch read(int startRow, int rowCount) throws IOException {
+		Preconditions.checkPositionIndexes(startRow, startRow + rowCount, m_recordCount);
+		Preconditions.checkArgument((long)rowCount * m_recordLength <= Integer.MAX_VALUE,
+									"too many rows for a batch: " + rowCount);
+		
+		byte[] bytes = new byte[rowCount * m_recordLength];
+		readFully(ByteBuffer.wrap(bytes), m_headerLength + (long)startRow * m_recordLength);
+		
+		DbfColumn[] columns = new DbfColumn[m_names.length];
+		for ( int i = 0; i < columns.length; ++i ) {
+			columns[i] = newColumn(i, rowCount);
+		}
+		
+		BitSet deleted = new BitSet();
+		for ( int row = 0, start = 0; row < rowCount; ++row, start += m_recordLength ) {
+			if ( bytes[start] == '*' ) {
+				deleted.set(row);
+			}
+			for ( int i = 0; i < columns.length; ++i ) {
+				columns[i].load(row, bytes, start + m_offsets[i], m_widths[i]);
+			}
+		}
+		
+		return new DbfColumnBatch(startRow, rowCount, columns, deleted);
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%s: columns=%s, next=%d/%d", getClass().getSimpleName(),
+								String.join(",", m_names), m_nextRow, m_recordCount);
+	}
+	
+	private DbfColumn newColumn(int idx, int rowCount) {
+		switch ( m_types[idx] ) {
+			case 'N':
+				if ( m_decimals[idx] == 0 ) {
+					if ( m_widths[idx] < 10 ) {
+						return new IntColumn(m_names[idx], rowCount);
+					}
+					else if ( m_widths[idx] < 19 ) {
+						return new LongColumn(m_names[idx], rowCount);
+					}
+				}
+				return new DoubleColumn(m_names[idx], rowCount);
+			case 'F':
+				return new DoubleColumn(m_names[idx], rowCount);
+			default:
+				return new StringColumn(m_names[idx], rowCount, m_widths[idx], m_charset);
+		}
+	}
+	
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		while ( buffer.hasRemaining() ) {
+			int nread = m_channel.read(buffer, position);
+			if ( nread < 0 ) {
+				throw new EOFException("truncated dbf file: position=" + position);
+			}
+			position += nread;
+		}
+	}
+	
+	private static int findField(DbaseFileHeader header, String name) {
+		for ( int i = 0; i < header.getNumFields(); ++i ) {
+			if ( header.getFieldName(i).equalsIgnoreCase(name) ) {
+				return i;
+			}
+		}
+		
+		throw new IllegalArgumentException("unknown dbf column: " + name);
+	}
+}
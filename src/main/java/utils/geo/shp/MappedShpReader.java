@@ -0,0 +1,267 @@
+package utils.geo.shp;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+
+import javax.annotation.Nullable;
+
+import org.geotools.data.shapefile.shp.ShapeHandler;
+import org.geotools.data.shapefile.shp.ShapefileException;
+import org.geotools.data.shapefile.shp.ShapefileHeader;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * '.shp' 파일을 memory-map하여 레코드를 순차적으로 읽는 reader.
+ * <p>
+ * 레코드마다 객체를 생성하는 {@link org.geotools.data.shapefile.shp.ShapefileReader}와 달리,
+ * 모든 레코드는 하나의 {@link ShpRecord} flyweight 객체를 통해 map된 버퍼를 직접 접근한다.
+ * JTS {@link org.locationtech.jts.geom.Geometry} 객체는 {@link ShpRecord#toGeometry()}가
+ * 호출된 경우에만 생성된다. MBR만 필요한 경우는 {@link #nextBounds(double[], int)}를 사용하면
+ * 레코드 헤더와 MBR 부분만 접근하고 레코드 본문은 읽지 않는다.
+ * <p>
+ * 하나의 map 영역은 2GB를 넘을 수 없기 때문에, 파일은 일정 크기의 구간 단위로 map된다.
+ * 읽을 레코드가 현재 map된 구간을 벗어나는 경우는 해당 레코드의 시작 위치부터 다시 map한다.
+ * 이전 구간의 map 해제는 GC에 맡기기 때문에, {@link ShpRecord#getCoordinates()}로 얻은
+ * 버퍼는 reader가 닫힌 뒤에도 안전하게 접근할 수 있다.
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class MappedShpReader implements Closeable {
+	static final int HEADER_LENGTH = 100;
+	static final int RECORD_HEADER_LENGTH = 8;
+	private static final int BOUNDS_CONTENT_LENGTH = 4 + 32;	// shape type + MBR
+	public static final long DEFAULT_SEGMENT_SIZE = 256L * 1024 * 1024;
+	
+	private final FileChannel m_channel;
+	private final ShapefileHeader m_header;
+	private final long m_fileLength;
+	private final long m_segmentSize;
+	private final GeometryFactory m_geomFact;
+	private final ShpRecord m_record;
+	private @Nullable ShapeHandler m_handler;
+	
+	private ByteBuffer m_buffer;		// 현재 map된 구간 (little-endian)
+	private long m_mapStart;
+	private long m_nextOffset = HEADER_LENGTH;
+	private int m_nextIndex = 0;
+	
+	/**
+	 * 주어진 '.shp' 파일에 대한 reader를 생성한다.
+	 * 
+	 * @param shpFile	'.shp' 파일 경로
+	 * @param geomFact	공간 객체 생성에 사용할 {@link GeometryFactory}.
+	 * @return	reader 객체
+	 * @throws IOException	파일을 여는 도중 오류가 발생한 경우.
+	 */
+	public static MappedShpReader open(File shpFile, GeometryFactory geomFact) throws IOException {
+		return open(shpFile, geomFact, DEFAULT_SEGMENT_SIZE);
+	}
+	
+	/**
+	 * 주어진 '.shp' 파일에 대한 reader를 생성한다.
+	 * 
+	 * @param shpFile	'.shp' 파일 경로
+	 * @param geomFact	공간 객체 생성에 사용할 {@link GeometryFactory}.
+	 * @param segmentSize	한번에 map할 파일 구간의 크기.
+	 * @return	reader 객체
+	 * @throws IOException	파일을 여는 도중 오류가 발생한 경우.
+	 */
+	public static MappedShpReader open(File shpFile, GeometryFactory geomFact, long segmentSize)
+		throws IOException {
+		Preconditions.checkArgument(shpFile != null, "shpFile is null");
+		Preconditions.checkArgument(geomFact != null, "GeometryFactory is null");
+		Preconditions.checkArgument(segmentSize >= HEADER_LENGTH && segmentSize <= Integer.MAX_VALUE,
+									"invalid segment size: " + segmentSize);
+		
+		FileChannel channel = FileChannel.open(shpFile.toPath(), StandardOpenOption.READ);
+		try {
+			return new MappedShpReader(channel, geomFact, segmentSize);
+		}
+		catch ( IOException | RuntimeException e ) {
+			channel.close();
+			throw e;
+		}
+	}
+	
+	private MappedShpReader(FileChannel channel, GeometryFactory geomFact, long segmentSize)
+		throws IOException {
+		m_channel = channel;
+		m_geomFact = geomFact;
+		m_segmentSize = segmentSize;
+		m_record = new ShpRecord(this);
+		
+		long size = channel.size();
+		if ( size < HEADER_LENGTH ) {
+			throw new ShapefileException("too short shp file: size=" + size);
+		}
+		
+		m_buffer = map(0, Math.min(size, segmentSize));
+		m_header = new ShapefileHeader();
+		m_header.read(m_buffer.duplicate(), true);
+		
+		// 헤더에 기록된 파일 길이는 16bit word 단위이다.
+		m_fileLength = Math.min(size, m_header.getFileLength() * 2L);
+	}
+	
+	@Override
+	public void close() throws IOException {
+		m_channel.close();
+	}
+	
+	public ShapefileHeader getHeader() {
+		return m_header;
+	}
+	
+	/**
+	 * 헤더를 포함한 '.shp' 파일의 유효 길이를 반환한다.
+	 * 
+	 * @return	바이트 길이
+	 */
+	public long getFileLength() {
+		return m_fileLength;
+	}
+	
+	/**
+	 * 다음 레코드를 읽는다.
+	 * <p>
+	 * 반환되는 {@link ShpRecord} 객체는 재사용되기 때문에, 다음 {@link #next()}나
+	 * {@link #seek(int, long)} 호출 전까지만 유효하다.
+	 * 
+	 * @return	레코드. 더 이상 레코드가 없는 경우는 {@code null}.
+	 * @throws IOException	레코드를 읽는 도중 오류가 발생한 경우.
+	 */
+	public @Nullable ShpRecord next() throws IOException {
+		return readRecord(Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * 다음 레코드의 MBR을 주어진 배열에 (minX, minY, maxX, maxY) 순서로 기록한다.
+	 * NULL 레코드인 경우는 {@link Double#NaN}이 기록된다.
+	 * <p>
+	 * 레코드 헤더, shape type과 MBR에 해당하는 영역만 접근하고 좌표 등 레코드 본문은 접근하지
+	 * 않는다. 본 메소드 호출 후에는 이전에 반환된 {@link ShpRecord}는 더 이상 유효하지 않다.
+	 * 
+	 * @param bounds	MBR이 기록될 배열
+	 * @param offset	배열 내 기록 시작 위치
+	 * @return	MBR을 읽은 경우는 {@code true}, 더 이상 레코드가 없는 경우는 {@code false}.
+	 * @throws IOException	레코드를 읽는 도중 오류가 발생한 경우.
+	 */
+	public boolean nextBounds(double[] bounds, int offset) throws IOException {
+		ShpRecord rec = readRecord(BOUNDS_CONTENT_LENGTH);
+		if ( rec == null ) {
+			return false;
+		}
+		
+		rec.readBounds(bounds, offset);
+		return true;
+	}
+	
+	/**
+	 * 다음 레코드들의 MBR을 차례대로 주어진 배열에 기록한다.
+	 * 레코드별로 4개의 값이 (minX, minY, maxX, maxY) 순서로 기록된다.
+	 * 
+	 * @param bounds	MBR이 기록될 배열
+	 * @param offset	배열 내 기록 시작 위치
+	 * @param count		읽을 최대 레코드 갯수
+	 * @return	MBR을 읽은 레코드 갯수. 더 이상 레코드가 없는 경우는 {@code count}보다 작다.
+	 * @throws IOException	레코드를 읽는 도중 오류가 발생한 경우.
+	 * @see #nextBounds(double[], int)
+	 */
+	public int nextBounds(double[] bounds, int offset, int count) throws IOException {
+		Preconditions.checkArgument(count >= 0 && offset + 4L*count <= bounds.length,
+									"invalid bounds array range: offset=" + offset + ", count=" + count);
+		
+		int nread = 0;
+		while ( nread < count && nextBounds(bounds, offset + 4*nread) ) {
+			++nread;
+		}
+		return nread;
+	}
+	
+	/**
+	 * 다음에 읽을 레코드를 지정한다.
+	 * 
+	 * @param recordIndex	다음에 읽을 레코드의 순번 (0부터 시작).
+	 * @param offset	다음에 읽을 레코드의 '.shp' 파일 내 시작 위치.
+	 */
+	public void seek(int recordIndex, long offset) {
+		Preconditions.checkArgument(recordIndex >= 0, "invalid record index: " + recordIndex);
+		Preconditions.checkArgument(offset >= HEADER_LENGTH && offset <= m_fileLength,
+									"invalid record offset: " + offset);
+		
+		m_nextIndex = recordIndex;
+		m_nextOffset = offset;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%s: length=%d, next=%d(%d)", getClass().getSimpleName(),
+								m_fileLength, m_nextIndex, m_nextOffset);
+	}
+	
+	ShapeHandler getShapeHandler() throws ShapefileException {
+		if ( m_handler == null ) {
+			m_handler = m_header.getShapeType().getShapeHandler(m_geomFact);
+		}
+		
+		return m_handler;
+	}
+	
+	/**
+	 * 다음 레코드를 읽는다. 레코드 본문은 앞쪽 {@code maxContentLength} 바이트만 접근 가능하도록 map된다.
+	 */
+	private @Nullable ShpRecord readRecord(int maxContentLength) throws IOException {
+		if ( m_nextOffset + RECORD_HEADER_LENGTH > m_fileLength ) {
+			return null;
+		}
+		
+		ensureMapped(m_nextOffset, RECORD_HEADER_LENGTH);
+		int pos = (int)(m_nextOffset - m_mapStart);
+		// 레코드 헤더는 big-endian으로 기록되며, 길이는 16bit word 단위이다.
+		int recordNo = Integer.reverseBytes(m_buffer.getInt(pos));
+		int length = Integer.reverseBytes(m_buffer.getInt(pos + 4)) * 2;
+		if ( length < 4 || length > Integer.MAX_VALUE - RECORD_HEADER_LENGTH ) {
+			String msg = String.format("offset=%d, length=%d", m_nextOffset, length);
+			throw new ShapefileException("invalid shp record: " + msg);
+		}
+		
+		ensureMapped(m_nextOffset, RECORD_HEADER_LENGTH + Math.min(length, maxContentLength));
+		pos = (int)(m_nextOffset - m_mapStart);
+		m_record.set(m_buffer, pos + RECORD_HEADER_LENGTH, length, m_nextIndex, recordNo, m_nextOffset);
+		
+		m_nextOffset += RECORD_HEADER_LENGTH + length;
+		++m_nextIndex;
+		
+		return m_record;
+	}
+	
+	private void ensureMapped(long offset, int length) throws IOException {
+		long mapEnd = m_mapStart + m_buffer.capacity();
+		if ( offset >= m_mapStart && offset + length <= mapEnd ) {
+			return;
+		}
+		
+		long size = Math.min(m_fileLength - offset, Math.max(m_segmentSize, length));
+		if ( size < length ) {
+			String msg = String.format("offset=%d, length=%d, file_length=%d", offset, length, m_fileLength);
+			throw new ShapefileException("truncated shp record: " + msg);
+		}
+		
+		m_buffer = map(offset, size);
+	}
+	
+	private ByteBuffer map(long offset, long size) throws IOException {
+		ByteBuffer buffer = m_channel.map(MapMode.READ_ONLY, offset, size);
+		m_mapStart = offset;
+		
+		return buffer.order(ByteOrder.LITTLE_ENDIAN);
+	}
+}
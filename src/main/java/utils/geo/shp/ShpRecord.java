@@ -0,0 +1,322 @@
+package utils.geo.shp;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+
+import org.geotools.data.shapefile.shp.ShapeHandler;
+import org.geotools.data.shapefile.shp.ShapeType;
+import org.geotools.data.shapefile.shp.ShapefileException;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+
+/**
+ * '.shp' 파일에 저장된 하나의 레코드를 접근하는 flyweight 객체.
+ * <p>
+ * 레코드의 내용은 복사되지 않고 {@link MappedShpReader}가 map한 버퍼를 직접 접근한다.
+ * 하나의 {@link ShpRecord} 객체는 reader에 의해 재사용되기 때문에, 본 객체가 제공하는 정보는
+ * 다음 레코드를 읽기 전까지만 유효하다. 레코드를 보관하여야 하는 경우는 {@link #toGeometry()}나
+ * {@link #getEnvelope()} 등을 통해 별도의 객체로 변환하여야 한다.
+ * <p>
+ * 좌표 접근 메소드들은 x, y 좌표만을 제공한다. z, m 값이 필요한 경우는 {@link #toGeometry()}를 사용한다.
+ * <p>
+ * GeoTools의 {@link ShapeType}은 MULTIPATCH(31) 타입을 정의하지 않기 때문에, MULTIPATCH 레코드의
+ * {@link #getShapeType()}은 {@link ShapeType#UNDEFINED}를 반환한다. MULTIPATCH 레코드 여부는
+ * {@link #isMultiPatch()}로 확인하며, MBR과 part 및 좌표 접근 메소드는 MULTIPATCH 레코드도 지원한다.
+ * {@link #toGeometry()}는 MULTIPATCH 레코드를 지원하지 않는다.
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+public final class ShpRecord {
+	private static final int BOUNDS_OFFSET = 4;
+	private static final int NUM_PARTS_OFFSET = 36;
+	private static final int MULTIPATCH_TYPE_ID = 31;
+	
+	private final MappedShpReader m_reader;
+	private ByteBuffer m_buffer;
+	private int m_start;
+	private int m_length;
+	private int m_index;
+	private int m_recordNo;
+	private long m_offset;
+	private int m_typeId;
+	private ShapeType m_type;
+	
+	ShpRecord(MappedShpReader reader) {
+		m_reader = reader;
+	}
+	
+	void set(ByteBuffer buffer, int start, int length, int index, int recordNo, long offset) {
+		m_buffer = buffer;
+		m_start = start;
+		m_length = length;
+		m_index = index;
+		m_recordNo = recordNo;
+		m_offset = offset;
+		m_typeId = buffer.getInt(start);
+		m_type = ShapeType.forID(m_typeId);
+	}
+	
+	/**
+	 * 레코드의 순번을 반환한다. 순번은 0부터 시작하며 '.dbf' 파일의 행 번호와 동일하다.
+	 * 
+	 * @return	레코드 순번
+	 */
+	public int getRecordIndex() {
+		return m_index;
+	}
+	
+	/**
+	 * 레코드 헤더에 기록된 레코드 번호를 반환한다. 레코드 번호는 1부터 시작한다.
+	 * 
+	 * @return	레코드 번호
+	 */
+	public int getRecordNumber() {
+		return m_recordNo;
+	}
+	
+	/**
+	 * '.shp' 파일 내에서 본 레코드(헤더 포함)의 시작 위치를 반환한다.
+	 * 
+	 * @return	바이트 단위 위치
+	 */
+	public long getFileOffset() {
+		return m_offset;
+	}
+	
+	/**
+	 * 레코드 헤더를 제외한 레코드 내용의 바이트 길이를 반환한다.
+	 * 
+	 * @return	바이트 길이
+	 */
+	public int getContentLength() {
+		return m_length;
+	}
+	
+	public ShapeType getShapeType() {
+		return m_type;
+	}
+	
+	public boolean isNull() {
+		return m_type == ShapeType.NULL;
+	}
+	
+	public boolean isMultiPatch() {
+		return m_typeId == MULTIPATCH_TYPE_ID;
+	}
+	
+	/**
+	 * 레코드 MBR의 최소 x 좌표를 반환한다. NULL 레코드인 경우는 {@link Double#NaN}을 반환한다.
+	 * 
+	 * @return	최소 x 좌표
+	 */
+	public double getMinX() {
+		if ( isNull() ) {
+			return Double.NaN;
+		}
+		return m_type.isPointType() ? getX(0) : getDouble(BOUNDS_OFFSET);
+	}
+	
+	/**
+	 * 레코드 MBR의 최소 y 좌표를 반환한다. NULL 레코드인 경우는 {@link Double#NaN}을 반환한다.
+	 * 
+	 * @return	최소 y 좌표
+	 */
+	public double getMinY() {
+		if ( isNull() ) {
+			return Double.NaN;
+		}
+		return m_type.isPointType() ? getY(0) : getDouble(BOUNDS_OFFSET + 8);
+	}
+	
+	/**
+	 * 레코드 MBR의 최대 x 좌표를 반환한다. NULL 레코드인 경우는 {@link Double#NaN}을 반환한다.
+	 * 
+	 * @return	최대 x 좌표
+	 */
+	public double getMaxX() {
+		if ( isNull() ) {
+			return Double.NaN;
+		}
+		return m_type.isPointType() ? getX(0) : getDouble(BOUNDS_OFFSET + 16);
+	}
+	
+	/**
+	 * 레코드 MBR의 최대 y 좌표를 반환한다. NULL 레코드인 경우는 {@link Double#NaN}을 반환한다.
+	 * 
+	 * @return	최대 y 좌표
+	 */
+	public double getMaxY() {
+		if ( isNull() ) {
+			return Double.NaN;
+		}
+		return m_type.isPointType() ? getY(0) : getDouble(BOUNDS_OFFSET + 24);
+	}
+	
+	/**
+	 * 레코드의 MBR을 주어진 배열에 (minX, minY, maxX, maxY) 순서로 기록한다.
+	 * NULL 레코드인 경우는 {@link Double#NaN}이 기록된다.
+	 * 
+	 * @param bounds	MBR이 기록될 배열
+	 * @param offset	배열 내 기록 시작 위치
+	 */
+	public void readBounds(double[] bounds, int offset) {
+		bounds[offset] = getMinX();
+		bounds[offset+1] = getMinY();
+		bounds[offset+2] = getMaxX();
+		bounds[offset+3] = getMaxY();
+	}
+	
+	/**
+	 * 레코드의 MBR을 반환한다. NULL 레코드인 경우는 null envelope이 반환된다.
+	 * 
+	 * @return	MBR
+	 */
+	public Envelope getEnvelope() {
+		return isNull() ? new Envelope() : new Envelope(getMinX(), getMaxX(), getMinY(), getMaxY());
+	}
+	
+	/**
+	 * 레코드의 MBR이 주어진 영역과 겹치는지 여부를 반환한다.
+	 * NULL 레코드는 어떤 영역과도 겹치지 않는다.
+	 * 
+	 * @param key	비교 대상 영역
+	 * @return	겹침 여부
+	 */
+	public boolean intersects(Envelope key) {
+		return !isNull() && getMaxX() >= key.getMinX() && getMinX() <= key.getMaxX()
+				&& getMaxY() >= key.getMinY() && getMinY() <= key.getMaxY();
+	}
+	
+	/**
+	 * 레코드를 구성하는 part의 갯수를 반환한다.
+	 * NULL, point 및 multi-point 레코드는 0을 반환한다.
+	 * 
+	 * @return	part 갯수
+	 */
+	public int getNumParts() {
+		return hasParts() ? getInt(NUM_PARTS_OFFSET) : 0;
+	}
+	
+	/**
+	 * 주어진 part의 첫번째 좌표의 순번을 반환한다.
+	 * 
+	 * @param partIdx	part 순번
+	 * @return	좌표 순번
+	 */
+	public int getPartOffset(int partIdx) {
+		return getInt(NUM_PARTS_OFFSET + 8 + 4*partIdx);
+	}
+	
+	/**
+	 * MULTIPATCH 레코드의 주어진 part의 타입(triangle strip, ring 등)을 반환한다.
+	 * 
+	 * @param partIdx	part 순번
+	 * @return	part 타입
+	 * @throws IllegalStateException	MULTIPATCH 레코드가 아닌 경우.
+	 */
+	public int getPartType(int partIdx) {
+		if ( !isMultiPatch() ) {
+			throw new IllegalStateException("not a multipatch record: type=" + m_typeId);
+		}
+		return getInt(NUM_PARTS_OFFSET + 8 + 4*getNumParts() + 4*partIdx);
+	}
+	
+	/**
+	 * 레코드를 구성하는 전체 좌표의 갯수를 반환한다.
+	 * 
+	 * @return	좌표 갯수
+	 */
+	public int getNumPoints() {
+		if ( m_type.isPointType() ) {
+			return 1;
+		}
+		else if ( m_type.isMultiPointType() ) {
+			return getInt(NUM_PARTS_OFFSET);
+		}
+		else if ( hasParts() ) {
+			return getInt(NUM_PARTS_OFFSET + 4);
+		}
+		else {
+			return 0;
+		}
+	}
+	
+	public double getX(int idx) {
+		return getDouble(getPointsOffset() + 16*idx);
+	}
+	
+	public double getY(int idx) {
+		return getDouble(getPointsOffset() + 16*idx + 8);
+	}
+	
+	/**
+	 * 레코드의 좌표들을 (x, y) 순서로 접근하는 버퍼를 반환한다.
+	 * 반환되는 버퍼는 map된 파일 내용을 복사 없이 참조하며, 레코드가 재사용되더라도 유효하다.
+	 * 
+	 * @return	좌표 버퍼. 버퍼의 크기는 {@code 2 * getNumPoints()}이다.
+	 */
+	public DoubleBuffer getCoordinates() {
+		int start = m_start + getPointsOffset();
+		ByteBuffer slice = m_buffer.duplicate();
+		slice.position(start).limit(start + 16*getNumPoints());
+		
+		return slice.slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+	}
+	
+	/**
+	 * 레코드를 JTS {@link Geometry} 객체로 변환한다.
+	 * 
+	 * @return	변환된 공간 객체
+	 * @throws ShapefileException	레코드의 공간 타입을 지원하지 않는 경우 (MULTIPATCH 등).
+	 */
+	public Geometry toGeometry() throws ShapefileException {
+		if ( isMultiPatch() ) {
+			throw new ShapefileException("unsupported shape type: MULTIPATCH, record=" + m_index);
+		}
+		
+		ShapeHandler handler = m_reader.getShapeHandler();
+		
+		ByteBuffer buffer = m_buffer.duplicate();
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		buffer.limit(m_start + m_length);
+		buffer.position(m_start + 4);
+		
+		return (Geometry)handler.read(buffer, m_type, false);
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%s[%d]: type=%s, offset=%d, length=%d", getClass().getSimpleName(),
+								m_index, m_type, m_offset, m_length);
+	}
+	
+	private boolean hasParts() {
+		return m_type.isLineType() || m_type.isPolygonType() || isMultiPatch();
+	}
+	
+	private int getPointsOffset() {
+		if ( m_type.isMultiPointType() ) {
+			return NUM_PARTS_OFFSET + 4;
+		}
+		else if ( isMultiPatch() ) {
+			// parts 배열 뒤에 part 타입 배열이 추가로 저장된다.
+			return NUM_PARTS_OFFSET + 8 + 8*getNumParts();
+		}
+		else if ( hasParts() ) {
+			return NUM_PARTS_OFFSET + 8 + 4*getNumParts();
+		}
+		else {
+			// point 레코드. NULL 레코드는 좌표가 없기 때문에 빈 구간을 가리킨다.
+			return 4;
+		}
+	}
+	
+	private int getInt(int offset) {
+		return m_buffer.getInt(m_start + offset);
+	}
+	
+	private double getDouble(int offset) {
+		return m_buffer.getDouble(m_start + offset);
+	}
+}
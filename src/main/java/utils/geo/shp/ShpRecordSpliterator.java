@@ -0,0 +1,290 @@
+package utils.geo.shp;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+import javax.annotation.Nullable;
+
+import org.locationtech.jts.geom.GeometryFactory;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * '.shp' 파일의 레코드 구간을 나누어 병렬로 읽는 {@link Spliterator}.
+ * <p>
+ * {@link ShxIndex}를 이용하여 레코드 구간을 파일 내 바이트 크기가 비슷한 구간들로 나눈다.
+ * 구간을 나눌 때는 남은 목표 구간 수의 비율에 맞추어 나누기 때문에, 레코드 수가 충분하면
+ * 전체 레코드는 정확히 주어진 갯수의 구간으로 나뉜다.
+ * 나누어진 각 구간은 처음 읽을 때 자신만의 {@link MappedShpReader}(와 file channel)를 열어
+ * 구간의 시작 레코드로 이동한 뒤 순차적으로 읽기 때문에, 구간들 사이에는 공유하는 상태가 없다.
+ * <p>
+ * 각 레코드의 순번({@link ShpRecord#getRecordIndex()})은 '.dbf' 파일의 행 번호와 같다.
+ * {@link DbfColumnReader}가 주어진 경우는 각 구간이 자신의 레코드 구간 [start, end)에 해당하는
+ * '.dbf' 행들만 batch 단위로 읽어 레코드와 함께 {@link AttributeMapper}에게 전달한다.
+ * batch는 구간 경계를 넘지 않으며, 현재 구간의 범위는 {@link #getStartRecord()},
+ * {@link #getEndRecord()}로 확인할 수 있다.
+ * <p>
+ * 구간별로 열린 reader들은 구간을 모두 읽으면 닫히며, 중간에 중단된 경우를 위해
+ * {@link #close()}로 한꺼번에 닫을 수 있다.
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class ShpRecordSpliterator<T> implements Spliterator<T>, Closeable {
+	/**
+	 * 레코드를 스트림 원소로 변환하는 함수.
+	 * 레코드 객체는 재사용되기 때문에 레코드 자체를 반환하여서는 안된다.
+	 */
+	@FunctionalInterface
+	public interface RecordMapper<T> {
+		public T apply(ShpRecord rec) throws IOException;
+	}
+	
+	/**
+	 * 레코드와 레코드에 해당하는 '.dbf' 속성 정보를 스트림 원소로 변환하는 함수.
+	 * 레코드 객체는 재사용되기 때문에 레코드 자체를 반환하여서는 안된다.
+	 */
+	@FunctionalInterface
+	public interface AttributeMapper<T> {
+		/**
+		 * @param rec	레코드
+		 * @param attrs	레코드의 속성 정보가 포함된 batch.
+		 * @param row	batch 내 레코드의 행 번호. {@code rec.getRecordIndex() - attrs.getStartRow()}와 같다.
+		 * @return	변환된 원소
+		 * @throws IOException	변환 중 오류가 발생한 경우.
+		 */
+		public T apply(ShpRecord rec, DbfColumnBatch attrs, int row) throws IOException;
+	}
+	
+	private final File m_shpFile;
+	private final GeometryFactory m_geomFact;
+	private final ShxIndex m_index;
+	private final @Nullable RecordMapper<? extends T> m_mapper;
+	private final @Nullable AttributeMapper<? extends T> m_attrMapper;
+	private final @Nullable DbfColumnReader m_dbfReader;
+	private final int m_batchSize;
+	private final Queue<MappedShpReader> m_readers;
+	
+	private int m_next;
+	private final int m_end;
+	private int m_splits;
+	private @Nullable MappedShpReader m_reader;
+	private @Nullable DbfColumnBatch m_attrs;
+	
+	/**
+	 * 전체 레코드를 대상으로 하는 spliterator를 생성한다.
+	 * 
+	 * @param shpFile	'.shp' 파일 경로
+	 * @param geomFact	공간 객체 생성에 사용할 {@link GeometryFactory}.
+	 * @param index		'.shp' 파일의 레코드 인덱스.
+	 * @param splits	나눌 구간의 최대 갯수.
+	 * @param mapper	레코드 변환 함수
+	 */
+	public ShpRecordSpliterator(File shpFile, GeometryFactory geomFact, ShxIndex index, int splits,
+								RecordMapper<? extends T> mapper) {
+		Preconditions.checkArgument(shpFile != null, "shpFile is null");
+		Preconditions.checkArgument(geomFact != null, "GeometryFactory is null");
+		Preconditions.checkArgument(index != null, "ShxIndex is null");
+		Preconditions.checkArgument(splits > 0, "invalid splits: " + splits);
+		Preconditions.checkArgument(mapper != null, "RecordMapper is null");
+		
+		m_shpFile = shpFile;
+		m_geomFact = geomFact;
+		m_index = index;
+		m_mapper = mapper;
+		m_attrMapper = null;
+		m_dbfReader = null;
+		m_batchSize = 0;
+		m_readers = new ConcurrentLinkedQueue<>();
+		m_next = 0;
+		m_end = index.getRecordCount();
+		m_splits = splits;
+	}
+	
+	/**
+	 * 전체 레코드를 대상으로 하고, 레코드별 '.dbf' 속성 정보를 함께 전달하는 spliterator를 생성한다.
+	 * 주어진 {@link DbfColumnReader}는 모든 구간이 공유하며, 본 spliterator가 닫지 않는다.
+	 * 
+	 * @param shpFile	'.shp' 파일 경로
+	 * @param geomFact	공간 객체 생성에 사용할 {@link GeometryFactory}.
+	 * @param index		'.shp' 파일의 레코드 인덱스.
+	 * @param splits	나눌 구간의 최대 갯수.
+	 * @param dbfReader	'.dbf' 파일 reader.
+	 * @param batchSize	한번에 읽을 '.dbf' 행의 최대 갯수.
+	 * @param mapper	레코드 변환 함수
+	 */
+	public ShpRecordSpliterator(File shpFile, GeometryFactory geomFact, ShxIndex index, int splits,
+								DbfColumnReader dbfReader, int batchSize, AttributeMapper<? extends T> mapper) {
+		Preconditions.checkArgument(shpFile != null, "shpFile is null");
+		Preconditions.checkArgument(geomFact != null, "GeometryFactory is null");
+		Preconditions.checkArgument(index != null, "ShxIndex is null");
+		Preconditions.checkArgument(splits > 0, "invalid splits: " + splits);
+		Preconditions.checkArgument(dbfReader != null, "DbfColumnReader is null");
+		Preconditions.checkArgument(dbfReader.getRecordCount() == index.getRecordCount(),
+									"record count mismatch: shp=%s, dbf=%s",
+									index.getRecordCount(), dbfReader.getRecordCount());
+		Preconditions.checkArgument(batchSize > 0, "invalid batchSize: " + batchSize);
+		Preconditions.checkArgument(mapper != null, "AttributeMapper is null");
+		
+		m_shpFile = shpFile;
+		m_geomFact = geomFact;
+		m_index = index;
+		m_mapper = null;
+		m_attrMapper = mapper;
+		m_dbfReader = dbfReader;
+		m_batchSize = batchSize;
+		m_readers = new ConcurrentLinkedQueue<>();
+		m_next = 0;
+		m_end = index.getRecordCount();
+		m_splits = splits;
+	}
+	
+	private ShpRecordSpliterator(ShpRecordSpliterator<T> parent, int start, int end, int splits) {
+		m_shpFile = parent.m_shpFile;
+		m_geomFact = parent.m_geomFact;
+		m_index = parent.m_index;
+		m_mapper = parent.m_mapper;
+		m_attrMapper = parent.m_attrMapper;
+		m_dbfReader = parent.m_dbfReader;
+		m_batchSize = parent.m_batchSize;
+		m_readers = parent.m_readers;
+		m_next = start;
+		m_end = end;
+		m_splits = splits;
+	}
+	
+	/**
+	 * 본 spliterator와 이로부터 나누어진 spliterator들이 연 reader들을 모두 닫는다.
+	 */
+	@Override
+	public void close() throws IOException {
+		MappedShpReader reader;
+		while ( (reader = m_readers.poll()) != null ) {
+			reader.close();
+		}
+	}
+	
+	/**
+	 * 본 spliterator가 다음에 읽을 레코드의 순번을 반환한다.
+	 * 
+	 * @return	레코드 순번 ('.dbf' 행 번호)
+	 */
+	public int getStartRecord() {
+		return m_next;
+	}
+	
+	/**
+	 * 본 spliterator가 담당하는 구간의 마지막 레코드 다음 순번을 반환한다.
+	 * 
+	 * @return	레코드 순번 ('.dbf' 행 번호)
+	 */
+	public int getEndRecord() {
+		return m_end;
+	}
+	
+	@Override
+	public boolean tryAdvance(Consumer<? super T> action) {
+		if ( m_next >= m_end ) {
+			return false;
+		}
+		
+		try {
+			if ( m_reader == null ) {
+				m_reader = MappedShpReader.open(m_shpFile, m_geomFact);
+				m_readers.add(m_reader);
+				m_reader.seek(m_next, m_index.getOffset(m_next));
+			}
+			
+			ShpRecord rec = m_reader.next();
+			if ( rec == null ) {
+				String msg = String.format("file=%s, index=%d", m_shpFile, m_next);
+				throw new IOException("shp record is missing: " + msg);
+			}
+			++m_next;
+			action.accept(apply(rec));
+			
+			if ( m_next >= m_end ) {
+				closeReader();
+			}
+			return true;
+		}
+		catch ( IOException e ) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	@Override
+	public @Nullable Spliterator<T> trySplit() {
+		// 이미 읽기 시작한 구간은 나누지 않는다.
+		if ( m_reader != null || m_splits < 2 || m_end - m_next < 2 ) {
+			return null;
+		}
+		
+		// 앞쪽 구간이 남은 목표 구간 수의 절반을 담당하도록 바이트 크기 비율로 나눈다.
+		int prefixSplits = m_splits / 2;
+		long start = m_index.getOffset(m_next);
+		long end = m_index.getEndOffset(m_end-1);
+		int mid = findRecord(start + (end - start) * prefixSplits / m_splits);
+		mid = Math.max(m_next + 1, Math.min(m_end - 1, mid));
+		
+		ShpRecordSpliterator<T> prefix = new ShpRecordSpliterator<>(this, m_next, mid, prefixSplits);
+		m_next = mid;
+		m_splits -= prefixSplits;
+		
+		return prefix;
+	}
+	
+	@Override
+	public long estimateSize() {
+		return m_end - m_next;
+	}
+	
+	@Override
+	public int characteristics() {
+		return ORDERED | SIZED | SUBSIZED | IMMUTABLE;
+	}
+	
+	private T apply(ShpRecord rec) throws IOException {
+		if ( m_mapper != null ) {
+			return m_mapper.apply(rec);
+		}
+		
+		// 속성 batch는 현재 구간 안에서만 읽는다.
+		int row = rec.getRecordIndex();
+		if ( m_attrs == null || row >= m_attrs.getStartRow() + m_attrs.getRowCount() ) {
+			m_attrs = m_dbfReader.read(row, Math.min(m_batchSize, m_end - row));
+		}
+		
+		return m_attrMapper.apply(rec, m_attrs, row - m_attrs.getStartRow());
+	}
+	
+	/**
+	 * 현 구간에서 주어진 파일 위치를 포함하는 레코드의 순번을 반환한다.
+	 */
+	private int findRecord(long offset) {
+		int low = m_next;
+		int high = m_end - 1;
+		while ( low < high ) {
+			int mid = (low + high + 1) >>> 1;
+			if ( m_index.getOffset(mid) <= offset ) {
+				low = mid;
+			}
+			else {
+				high = mid - 1;
+			}
+		}
+		
+		return low;
+	}
+	
+	private void closeReader() throws IOException {
+		m_readers.remove(m_reader);
+		m_reader.close();
+		m_attrs = null;
+	}
+}
@@ -0,0 +1,139 @@
+package utils.geo.shp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+
+import org.geotools.data.shapefile.shp.ShapefileException;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * '.shp' 파일의 레코드별 위치 정보를 담은 인덱스.
+ * <p>
+ * 인덱스는 '.shx' 파일의 레코드 영역과 동일한 형식(레코드별 위치와 길이, 16bit word 단위의
+ * big-endian 정수)으로 유지된다. '.shx' 파일이 있는 경우는 파일을 map하여 사용하고,
+ * 없는 경우는 '.shp' 파일의 레코드 헤더들을 따라가며 메모리 상에 구성한다.
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+public final class ShxIndex {
+	private static final int ENTRY_LENGTH = 8;
+	
+	private final ByteBuffer m_entries;
+	private final int m_count;
+	
+	private ShxIndex(ByteBuffer entries, int count) {
+		m_entries = entries;
+		m_count = count;
+	}
+	
+	/**
+	 * 주어진 '.shx' 파일을 읽어 인덱스를 생성한다.
+	 * 
+	 * @param shxFile	'.shx' 파일 경로
+	 * @return	인덱스 객체
+	 * @throws IOException	파일을 읽는 도중 오류가 발생한 경우.
+	 */
+	public static ShxIndex read(File shxFile) throws IOException {
+		Preconditions.checkArgument(shxFile != null, "shxFile is null");
+		
+		try ( FileChannel channel = FileChannel.open(shxFile.toPath(), StandardOpenOption.READ) ) {
+			long size = channel.size();
+			if ( size < MappedShpReader.HEADER_LENGTH ) {
+				throw new ShapefileException("too short shx file: size=" + size);
+			}
+			
+			long count = (size - MappedShpReader.HEADER_LENGTH) / ENTRY_LENGTH;
+			if ( count > Integer.MAX_VALUE / ENTRY_LENGTH ) {
+				throw new ShapefileException("too many shx entries: count=" + count);
+			}
+			
+			ByteBuffer entries = channel.map(MapMode.READ_ONLY, MappedShpReader.HEADER_LENGTH,
+												count * ENTRY_LENGTH);
+			return new ShxIndex(entries.order(ByteOrder.BIG_ENDIAN), (int)count);
+		}
+	}
+	
+	/**
+	 * '.shp' 파일의 레코드 헤더들을 순차적으로 읽어 인덱스를 생성한다.
+	 * '.shx' 파일이 없는 경우에 사용한다. 주어진 reader는 처음부터 다시 읽게 된다.
+	 * 
+	 * @param reader	'.shp' 파일 reader
+	 * @return	인덱스 객체
+	 * @throws IOException	파일을 읽는 도중 오류가 발생한 경우.
+	 */
+	public static ShxIndex build(MappedShpReader reader) throws IOException {
+		Preconditions.checkArgument(reader != null, "MappedShpReader is null");
+		
+		reader.seek(0, MappedShpReader.HEADER_LENGTH);
+		ByteBuffer entries = ByteBuffer.allocate(1024 * ENTRY_LENGTH);
+		int count = 0;
+		for ( ShpRecord rec = reader.next(); rec != null; rec = reader.next() ) {
+			if ( !entries.hasRemaining() ) {
+				ByteBuffer expanded = ByteBuffer.allocate(entries.capacity() * 2);
+				entries.flip();
+				expanded.put(entries);
+				entries = expanded;
+			}
+			
+			entries.putInt((int)(rec.getFileOffset() / 2));
+			entries.putInt(rec.getContentLength() / 2);
+			++count;
+		}
+		
+		return new ShxIndex(entries, count);
+	}
+	
+	/**
+	 * 인덱스에 포함된 레코드의 갯수를 반환한다.
+	 * 
+	 * @return	레코드 갯수
+	 */
+	public int getRecordCount() {
+		return m_count;
+	}
+	
+	/**
+	 * 주어진 레코드(헤더 포함)의 '.shp' 파일 내 시작 위치를 반환한다.
+	 * 
+	 * @param index	레코드 순번 (0부터 시작)
+	 * @return	바이트 단위 위치
+	 */
+	public long getOffset(int index) {
+		Preconditions.checkElementIndex(index, m_count);
+		
+		return Integer.toUnsignedLong(m_entries.getInt(index * ENTRY_LENGTH)) * 2;
+	}
+	
+	/**
+	 * 주어진 레코드의 헤더를 제외한 내용의 바이트 길이를 반환한다.
+	 * 
+	 * @param index	레코드 순번 (0부터 시작)
+	 * @return	바이트 길이
+	 */
+	public int getContentLength(int index) {
+		Preconditions.checkElementIndex(index, m_count);
+		
+		return m_entries.getInt(index * ENTRY_LENGTH + 4) * 2;
+	}
+	
+	/**
+	 * 주어진 레코드 다음 위치, 즉 레코드가 끝나는 '.shp' 파일 내 위치를 반환한다.
+	 * 
+	 * @param index	레코드 순번 (0부터 시작)
+	 * @return	바이트 단위 위치
+	 */
+	public long getEndOffset(int index) {
+		return getOffset(index) + MappedShpReader.RECORD_HEADER_LENGTH + getContentLength(index);
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%s: count=%d", getClass().getSimpleName(), m_count);
+	}
+}
@@ -91,13 +91,30 @@ public class GeoClientUtils {
 	final static GeometryBuilder GEOM_BUILDER = new GeometryBuilder(GEOM_FACT);
 	
 	public static double distanceWgs84(Point pt1, Point pt2) {
+		return distanceWgs84(pt1.getX(), pt1.getY(), pt2.getX(), pt2.getY());
+	}
+	
+	public static double distanceWgs84(Coordinate coord1, Coordinate coord2) {
+		return distanceWgs84(coord1.x, coord1.y, coord2.x, coord2.y);
+	}
+	
+	/**
+	 * EPSG:4326 좌표계로 표현된 두 지점 사이의 WGS84 타원체 상의 거리(미터)를 계산한다.
+	 * 
+	 * @param lon1	첫번째 지점의 경도
+	 * @param lat1	첫번째 지점의 위도
+	 * @param lon2	두번째 지점의 경도
+	 * @param lat2	두번째 지점의 위도
+	 * @return	거리 (단위: 미터)
+	 */
+	public static double distanceWgs84(double lon1, double lat1, double lon2, double lat2) {
 		GeodeticCalculator gc = GEODETIC_CALC.get();
 		if ( gc == null ) {
 			GEODETIC_CALC.set(gc = new GeodeticCalculator());
 		}
 		
-		gc.setStartingGeographicPoint(pt1.getX(), pt1.getY());
-		gc.setDestinationGeographicPoint(pt2.getX(), pt2.getY());
+		gc.setStartingGeographicPoint(lon1, lat1);
+		gc.setDestinationGeographicPoint(lon2, lat2);
 		return gc.getOrthodromicDistance();
 	}
 	
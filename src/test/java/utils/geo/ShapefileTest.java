@@ -0,0 +1,369 @@
+package utils.geo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+import org.geotools.data.shapefile.ShapefileDataStore;
+import org.geotools.data.shapefile.files.ShpFileType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.Polygon;
+import org.opengis.feature.simple.SimpleFeature;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import utils.geo.shp.DbfColumn.DoubleColumn;
+import utils.geo.shp.DbfColumn.IntColumn;
+import utils.geo.shp.DbfColumn.StringColumn;
+import utils.geo.shp.DbfColumnBatch;
+import utils.geo.shp.DbfColumnReader;
+import utils.geo.shp.ShpRecord;
+import utils.geo.shp.ShxIndex;
+import utils.geo.util.GeoClientUtils;
+
+/**
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class ShapefileTest {
+	private static final int COUNT = 1000;
+	private static final int NULL_EVERY = 7;
+	private static final Envelope[] FILTERS = {
+		new Envelope(10, 30, 2, 5),
+		new Envelope(10.5, 20.5, 3.5, 3.5),
+		new Envelope(0, 100, 0, 100),
+		new Envelope(200, 300, 200, 300),
+	};
+	
+	private static final GeometryFactory GEOM_FACT = new GeometryFactory();
+	private static final int CELL_COUNT = 100;
+	private static final Envelope[] CELL_FILTERS = {
+		new Envelope(56, 58, 56, 58),		// 삼각형 MBR의 우상단 모서리
+		new Envelope(56, 58, 50, 52),		// 대각선 MBR의 우하단 모서리
+		new Envelope(50.5, 51.5, 56.5, 57.5),	// 대각선 MBR의 좌상단 모서리
+		new Envelope(15, 37, 15, 37),
+		new Envelope(0, 100, 0, 100),
+		new Envelope(200, 300, 200, 300),
+	};
+	
+	private File m_dir;
+	
+	@Before
+	public void setUp() throws IOException {
+		m_dir = Files.createTempDirectory("shapefile-test").toFile();
+	}
+	
+	@After
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(m_dir);
+	}
+	
+	@Test
+	public void testReadShxIndexUsesShxFile() throws IOException {
+		File shpFile = TestShapefiles.writePoints(m_dir, "points", COUNT);
+		
+		// '.shp' 파일의 레코드 헤더를 손상시켜, '.shp' 파일로부터 인덱스를 구성하는 경우는 실패하게 한다.
+		TestShapefiles.corruptFirstRecordHeader(shpFile);
+		
+		try ( Shapefile shapefile = Shapefile.of(shpFile) ) {
+			assertEquals(new File(m_dir, "points.shx").getCanonicalFile(),
+						shapefile.getFile(ShpFileType.SHX).getCanonicalFile());
+			
+			ShxIndex index = shapefile.readShxIndex();
+			assertEquals(COUNT, index.getRecordCount());
+			assertEquals(100, index.getOffset(0));
+			assertEquals(100 + 28L * (COUNT-1), index.getOffset(COUNT-1));
+		}
+	}
+	
+	@Test
+	public void testReadBoundsWithIndex() throws IOException {
+		File shpFile = TestShapefiles.writePoints(m_dir, "points", COUNT);
+		
+		try ( Shapefile shapefile = Shapefile.of(shpFile) ) {
+			ShxIndex index = shapefile.readShxIndex();
+			double[] bounds = new double[4 * 64];
+			int start = 0;
+			for ( int nread; (nread = shapefile.readBounds(index, start, bounds)) > 0; start += nread ) {
+				for ( int i = 0; i < nread; ++i ) {
+					assertEquals(TestShapefiles.getX(start + i), bounds[4*i], 0);
+					assertEquals(TestShapefiles.getY(start + i), bounds[4*i + 1], 0);
+					assertEquals(TestShapefiles.getX(start + i), bounds[4*i + 2], 0);
+					assertEquals(TestShapefiles.getY(start + i), bounds[4*i + 3], 0);
+				}
+			}
+			assertEquals(COUNT, start);
+			
+			assertEquals(64, shapefile.readBounds(COUNT - 100, bounds));
+			assertEquals(TestShapefiles.getX(COUNT - 100), bounds[0], 0);
+			assertEquals(0, shapefile.readBounds(index, COUNT, bounds));
+		}
+	}
+	
+	@Test
+	public void testReadColumns() throws IOException {
+		File shpFile = TestShapefiles.writePoints(m_dir, "points", COUNT);
+		
+		try ( Shapefile shapefile = Shapefile.of(shpFile);
+				DbfColumnReader reader = shapefile.readColumns("score", "ID") ) {
+			assertEquals(COUNT, reader.getRecordCount());
+			
+			int nrows = 0;
+			for ( DbfColumnBatch batch = reader.next(300); batch != null; batch = reader.next(300) ) {
+				assertEquals(nrows, batch.getStartRow());
+				DoubleColumn scores = (DoubleColumn)batch.getColumn(0);
+				IntColumn ids = (IntColumn)batch.getColumn("id");
+				for ( int i = 0; i < batch.getRowCount(); ++i ) {
+					assertEquals(nrows + i, ids.get(i));
+					assertEquals(TestShapefiles.getScore(nrows + i), scores.get(i), 0);
+				}
+				nrows += batch.getRowCount();
+			}
+			assertEquals(COUNT, nrows);
+			
+			DbfColumnBatch batch = reader.read(COUNT - 10, 10);
+			assertEquals(COUNT - 10, ((IntColumn)batch.getColumn(1)).get(0));
+		}
+	}
+	
+	@Test
+	public void testStreamColumns() throws IOException {
+		File shpFile = TestShapefiles.writePoints(m_dir, "points", COUNT);
+		
+		try ( Shapefile shapefile = Shapefile.of(shpFile) ) {
+			int nrows = 0;
+			for ( DbfColumnBatch batch: shapefile.streamColumns(128, "NAME").toList() ) {
+				assertEquals(nrows, batch.getStartRow());
+				StringColumn names = (StringColumn)batch.getColumn("NAME");
+				for ( int i = 0; i < batch.getRowCount(); ++i ) {
+					assertEquals(TestShapefiles.getName(nrows + i), names.get(i));
+				}
+				nrows += batch.getRowCount();
+			}
+			assertEquals(COUNT, nrows);
+		}
+	}
+	
+	@Test
+	public void testParallelStreamRecordsWithColumns() throws IOException {
+		File shpFile = TestShapefiles.writePoints(m_dir, "points", COUNT);
+		
+		try ( Shapefile shapefile = Shapefile.of(shpFile);
+				Stream<Integer> strm = shapefile.parallelStreamRecords(4, Arrays.asList("ID", "SCORE"),
+																		ShapefileTest::checkAttributes) ) {
+			List<Integer> indexes = strm.collect(Collectors.toList());
+			assertEquals(COUNT, indexes.size());
+			for ( int i = 0; i < COUNT; ++i ) {
+				assertEquals(i, (int)indexes.get(i));
+			}
+		}
+	}
+	
+	@Test
+	public void testFilteredStreamsWithoutIndex() throws IOException {
+		File shpFile = TestShapefiles.writePoints(m_dir, "points", COUNT, NULL_EVERY);
+		
+		try ( Shapefile shapefile = Shapefile.of(shpFile) ) {
+			File qixFile = shapefile.getFile(ShpFileType.QIX);
+			assertFalse(qixFile.exists());
+			checkFilteredStreams(shapefile);
+			assertFalse(qixFile.exists());
+		}
+	}
+	
+	@Test
+	public void testFilteredStreamsWithIndex() throws IOException {
+		File shpFile = TestShapefiles.writePoints(m_dir, "points", COUNT, NULL_EVERY);
+		
+		try ( Shapefile shapefile = Shapefile.of(shpFile) ) {
+			ShapefileDataStore store = shapefile.getDataStore();
+			try {
+				store.createSpatialIndex(true);
+			}
+			finally {
+				store.dispose();
+			}
+			assertTrue(shapefile.getFile(ShpFileType.QIX).exists());
+			
+			checkFilteredStreams(shapefile);
+		}
+	}
+	
+	private static void checkFilteredStreams(Shapefile shapefile) throws IOException {
+		for ( Envelope filter: FILTERS ) {
+			Set<Integer> expected = Sets.newHashSet();
+			for ( int i = 0; i < COUNT; ++i ) {
+				if ( !TestShapefiles.isNullRecord(i, NULL_EVERY)
+					&& filter.intersects(new Coordinate(TestShapefiles.getX(i), TestShapefiles.getY(i))) ) {
+					expected.add(i);
+				}
+			}
+			
+			Set<Integer> geomIndexes = Sets.newHashSet();
+			for ( Geometry geom: shapefile.streamGeometries(filter).toList() ) {
+				assertTrue(geomIndexes.add(toRecordIndex(geom)));
+			}
+			assertEquals("geometries: filter=" + filter, expected, geomIndexes);
+			
+			Set<Integer> featureIndexes = Sets.newHashSet();
+			for ( SimpleFeature feature: shapefile.streamFeatures(filter).toList() ) {
+				int idx = ((Number)feature.getAttribute("ID")).intValue();
+				assertEquals(idx, toRecordIndex((Geometry)feature.getDefaultGeometry()));
+				assertTrue(featureIndexes.add(idx));
+			}
+			assertEquals("features: filter=" + filter, expected, featureIndexes);
+		}
+	}
+	
+	@Test
+	public void testFilteredPolygonsUseMbr() throws Exception {
+		File shpFile = TestShapefiles.writeGeometries(m_dir, "triangles", "MultiPolygon", triangles());
+		checkMbrFilteredStreams(shpFile);
+	}
+	
+	@Test
+	public void testFilteredLinesUseMbr() throws Exception {
+		File shpFile = TestShapefiles.writeGeometries(m_dir, "diagonals", "MultiLineString", diagonals());
+		checkMbrFilteredStreams(shpFile);
+	}
+	
+	/**
+	 * 영역 검색 결과가 인덱스 사용 여부와 무관하게 공간 객체의 MBR을 기준으로 결정되는지 검사한다.
+	 * 검사에 사용되는 영역들 중에는 MBR과는 겹치지만 형상과는 겹치지 않는 영역이 포함된다.
+	 */
+	private void checkMbrFilteredStreams(File shpFile) throws IOException {
+		try ( Shapefile shapefile = Shapefile.of(shpFile) ) {
+			File qixFile = shapefile.getFile(ShpFileType.QIX);
+			assertFalse(qixFile.exists());
+			checkMbrFilteredStreams(shapefile);
+			assertFalse(qixFile.exists());
+			
+			// 인덱스 생성을 요청하면 '.qix' 파일이 생성되고, 이후 검색은 인덱스를 사용한다.
+			assertEquals(filterByMbr(shapefile, CELL_FILTERS[0]),
+						toCellIndexes(shapefile.streamGeometries(CELL_FILTERS[0], true).toList()));
+			assertTrue(qixFile.exists());
+			checkMbrFilteredStreams(shapefile);
+		}
+	}
+	
+	private static void checkMbrFilteredStreams(Shapefile shapefile) throws IOException {
+		boolean mbrOnly = false;
+		for ( Envelope filter: CELL_FILTERS ) {
+			Set<Integer> expected = filterByMbr(shapefile, filter);
+			assertEquals("geometries: filter=" + filter, expected,
+						toCellIndexes(shapefile.streamGeometries(filter).toList()));
+			
+			Set<Integer> featureIndexes = Sets.newHashSet();
+			for ( SimpleFeature feature: shapefile.streamFeatures(filter).toList() ) {
+				int idx = ((Number)feature.getAttribute("ID")).intValue();
+				assertEquals(idx, toCellIndex((Geometry)feature.getDefaultGeometry()));
+				assertTrue(featureIndexes.add(idx));
+			}
+			assertEquals("features: filter=" + filter, expected, featureIndexes);
+			
+			Geometry window = GeoClientUtils.toPolygon(filter);
+			for ( Geometry geom: shapefile.streamGeometries(filter).toList() ) {
+				mbrOnly |= !geom.intersects(window);
+			}
+		}
+		
+		// MBR만 겹치는 공간 객체가 실제로 검색되어야 의미있는 검사가 된다.
+		assertTrue(mbrOnly);
+	}
+	
+	private static Set<Integer> filterByMbr(Shapefile shapefile, Envelope filter) throws IOException {
+		Set<Integer> expected = Sets.newHashSet();
+		for ( Geometry geom: shapefile.streamGeometries().toList() ) {
+			if ( geom.getEnvelopeInternal().intersects(filter) ) {
+				expected.add(toCellIndex(geom));
+			}
+		}
+		
+		return expected;
+	}
+	
+	private static Set<Integer> toCellIndexes(List<Geometry> geoms) {
+		Set<Integer> indexes = Sets.newHashSet();
+		for ( Geometry geom: geoms ) {
+			assertTrue(indexes.add(toCellIndex(geom)));
+		}
+		
+		return indexes;
+	}
+	
+	/**
+	 * 10x10 격자의 각 칸에 직각 삼각형을 하나씩 생성한다.
+	 * 삼각형은 칸의 좌하단 모서리를 직각으로 하기 때문에, 칸의 우상단 부분과는 겹치지 않는다.
+	 */
+	private static List<Geometry> triangles() {
+		List<Geometry> geoms = Lists.newArrayList();
+		for ( int i = 0; i < CELL_COUNT; ++i ) {
+			double x = (i % 10) * 10;
+			double y = (i / 10) * 10;
+			// shapefile 규약에 따라 외곽 ring은 시계방향으로 만든다.
+			Polygon triangle = GEOM_FACT.createPolygon(new Coordinate[] {
+				new Coordinate(x, y), new Coordinate(x, y + 8), new Coordinate(x + 8, y), new Coordinate(x, y),
+			});
+			geoms.add(GEOM_FACT.createMultiPolygon(new Polygon[] { triangle }));
+		}
+		
+		return geoms;
+	}
+	
+	/**
+	 * 10x10 격자의 각 칸에 좌하단에서 우상단으로 가는 대각선을 하나씩 생성한다.
+	 * 대각선은 칸의 좌상단과 우하단 부분과는 겹치지 않는다.
+	 */
+	private static List<Geometry> diagonals() {
+		List<Geometry> geoms = Lists.newArrayList();
+		for ( int i = 0; i < CELL_COUNT; ++i ) {
+			double x = (i % 10) * 10;
+			double y = (i / 10) * 10;
+			LineString line = GEOM_FACT.createLineString(new Coordinate[] {
+				new Coordinate(x, y), new Coordinate(x + 8, y + 8),
+			});
+			geoms.add(GEOM_FACT.createMultiLineString(new LineString[] { line }));
+		}
+		
+		return geoms;
+	}
+	
+	private static int toCellIndex(Geometry geom) {
+		Envelope envl = geom.getEnvelopeInternal();
+		return (int)(envl.getMinY() / 10) * 10 + (int)(envl.getMinX() / 10);
+	}
+	
+	private static int toRecordIndex(Geometry geom) {
+		Coordinate coord = geom.getCoordinate();
+		return (int)(coord.y - 0.5) * 100 + (int)(coord.x - 0.5);
+	}
+	
+	private static int checkAttributes(ShpRecord rec, DbfColumnBatch attrs, int row) {
+		// 각 레코드는 자신의 '.dbf' 행을 포함하는 batch와 함께 전달되어야 한다.
+		int idx = rec.getRecordIndex();
+		assertEquals(idx, attrs.getStartRow() + row);
+		assertEquals(idx, ((IntColumn)attrs.getColumn("ID")).get(row));
+		assertEquals(TestShapefiles.getScore(idx), ((DoubleColumn)attrs.getColumn(1)).get(row), 0);
+		assertEquals(TestShapefiles.getX(idx), rec.getMinX(), 0);
+		
+		return idx;
+	}
+}
@@ -0,0 +1,252 @@
+package utils.geo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.geotools.data.shapefile.files.ShpFiles;
+import org.geotools.data.shapefile.shp.ShapeType;
+import org.geotools.data.shapefile.shp.ShapefileException;
+import org.geotools.data.shapefile.shp.ShapefileReader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Polygon;
+
+import com.google.common.collect.Lists;
+
+import utils.geo.shp.MappedShpReader;
+import utils.geo.shp.ShpRecord;
+
+/**
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class ShpRecordTest {
+	private static final GeometryFactory GEOM_FACT = new GeometryFactory();
+	private static final int COUNT = 200;
+	
+	private File m_dir;
+	
+	@Before
+	public void setUp() throws IOException {
+		m_dir = Files.createTempDirectory("shprecord-test").toFile();
+	}
+	
+	@After
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(m_dir);
+	}
+	
+	@Test
+	public void testPolylineRecords() throws Exception {
+		File shpFile = TestShapefiles.writeGeometries(m_dir, "lines", "MultiLineString", randomLines(COUNT, 1));
+		checkRecords(shpFile, MappedShpReader.DEFAULT_SEGMENT_SIZE);
+	}
+	
+	@Test
+	public void testPolygonRecords() throws Exception {
+		File shpFile = TestShapefiles.writeGeometries(m_dir, "polygons", "MultiPolygon", randomPolygons(COUNT, 2));
+		checkRecords(shpFile, MappedShpReader.DEFAULT_SEGMENT_SIZE);
+	}
+	
+	@Test
+	public void testMultiPointRecords() throws Exception {
+		List<Geometry> geoms = Lists.newArrayList();
+		Random rand = new Random(3);
+		for ( int i = 0; i < COUNT; ++i ) {
+			geoms.add(GEOM_FACT.createMultiPointFromCoords(randomCoords(rand, 1 + rand.nextInt(6))));
+		}
+		File shpFile = TestShapefiles.writeGeometries(m_dir, "mpoints", "MultiPoint", geoms);
+		checkRecords(shpFile, MappedShpReader.DEFAULT_SEGMENT_SIZE);
+	}
+	
+	@Test
+	public void testRemapWithSmallSegments() throws Exception {
+		// 레코드들이 여러 segment에 걸치고, 일부 레코드는 segment 크기보다 크도록 한다.
+		final long segmentSize = 128;
+		File shpFile = TestShapefiles.writeGeometries(m_dir, "lines", "MultiLineString", randomLines(COUNT, 4));
+		assertTrue(shpFile.length() > 20 * segmentSize);
+		
+		checkRecords(shpFile, segmentSize);
+	}
+	
+	@Test
+	public void testMultiPatchRecord() throws Exception {
+		double[][] parts = {
+			{ 0, 0, 1, 0, 0, 1, 1, 1 },
+			{ 2, 2, 3, 2, 3, 3, 2, 3, 2, 2 },
+		};
+		int[] partTypes = { 0, 2 };		// triangle strip, outer ring
+		File shpFile = TestShapefiles.writeMultiPatch(m_dir, "patch", parts, partTypes);
+		
+		try ( MappedShpReader reader = MappedShpReader.open(shpFile, GEOM_FACT) ) {
+			ShpRecord rec = reader.next();
+			assertTrue(rec.isMultiPatch());
+			assertSame(ShapeType.UNDEFINED, rec.getShapeType());
+			assertEquals(new Envelope(0, 3, 0, 3), rec.getEnvelope());
+			assertTrue(rec.intersects(new Envelope(2.5, 2.5, 2.5, 2.5)));
+			
+			assertEquals(2, rec.getNumParts());
+			assertEquals(0, rec.getPartOffset(0));
+			assertEquals(4, rec.getPartOffset(1));
+			assertEquals(0, rec.getPartType(0));
+			assertEquals(2, rec.getPartType(1));
+			assertEquals(9, rec.getNumPoints());
+			
+			DoubleBuffer coords = rec.getCoordinates();
+			assertEquals(18, coords.remaining());
+			int idx = 0;
+			for ( double[] part: parts ) {
+				for ( int i = 0; i < part.length; i += 2, ++idx ) {
+					assertEquals(part[i], coords.get(2*idx), 0);
+					assertEquals(part[i+1], coords.get(2*idx + 1), 0);
+					assertEquals(part[i], rec.getX(idx), 0);
+					assertEquals(part[i+1], rec.getY(idx), 0);
+				}
+			}
+			
+			try {
+				rec.toGeometry();
+				fail("MULTIPATCH record should not be converted to a geometry");
+			}
+			catch ( ShapefileException expected ) { }
+			
+			assertNull(reader.next());
+		}
+	}
+	
+	/**
+	 * {@link MappedShpReader}로 읽은 레코드들을 GeoTools {@link ShapefileReader}로 읽은 결과와 비교한다.
+	 */
+	private static void checkRecords(File shpFile, long segmentSize) throws IOException {
+		ShapefileReader expected = new ShapefileReader(new ShpFiles(shpFile), true, false, GEOM_FACT);
+		try ( MappedShpReader reader = MappedShpReader.open(shpFile, GEOM_FACT, segmentSize) ) {
+			int count = 0;
+			for ( ShpRecord rec = reader.next(); rec != null; rec = reader.next(), ++count ) {
+				assertTrue(expected.hasNext());
+				Geometry geom = (Geometry)expected.nextRecord().shape();
+				
+				assertEquals(count, rec.getRecordIndex());
+				assertEquals(geom.getEnvelopeInternal(), rec.getEnvelope());
+				
+				List<LineString> parts = toParts(geom);
+				assertEquals(parts.size(), rec.getNumParts());
+				int offset = 0;
+				for ( int i = 0; i < parts.size(); ++i ) {
+					assertEquals(offset, rec.getPartOffset(i));
+					offset += parts.get(i).getNumPoints();
+				}
+				
+				Coordinate[] coords = geom.getCoordinates();
+				assertEquals(coords.length, rec.getNumPoints());
+				DoubleBuffer buffer = rec.getCoordinates();
+				assertEquals(2 * coords.length, buffer.remaining());
+				for ( int i = 0; i < coords.length; ++i ) {
+					assertEquals(coords[i].x, buffer.get(2*i), 0);
+					assertEquals(coords[i].y, buffer.get(2*i + 1), 0);
+					assertEquals(coords[i].x, rec.getX(i), 0);
+					assertEquals(coords[i].y, rec.getY(i), 0);
+				}
+				
+				assertTrue("record " + count, geom.equalsExact(rec.toGeometry()));
+			}
+			assertFalse(expected.hasNext());
+			assertEquals(COUNT, count);
+		}
+		finally {
+			expected.close();
+		}
+	}
+	
+	/**
+	 * 주어진 공간 객체를 '.shp' 레코드의 part 순서대로 분해한다.
+	 * 다각형은 외곽 ring 다음에 내부 ring들이 차례대로 기록된다.
+	 */
+	private static List<LineString> toParts(Geometry geom) {
+		List<LineString> parts = Lists.newArrayList();
+		for ( int i = 0; i < geom.getNumGeometries(); ++i ) {
+			Geometry comp = geom.getGeometryN(i);
+			if ( comp instanceof Polygon ) {
+				Polygon poly = (Polygon)comp;
+				parts.add(poly.getExteriorRing());
+				for ( int j = 0; j < poly.getNumInteriorRing(); ++j ) {
+					parts.add(poly.getInteriorRingN(j));
+				}
+			}
+			else if ( comp instanceof LineString ) {
+				parts.add((LineString)comp);
+			}
+		}
+		
+		return parts;
+	}
+	
+	private static List<Geometry> randomLines(int count, long seed) {
+		Random rand = new Random(seed);
+		List<Geometry> geoms = Lists.newArrayList();
+		for ( int i = 0; i < count; ++i ) {
+			LineString[] lines = new LineString[1 + rand.nextInt(3)];
+			for ( int j = 0; j < lines.length; ++j ) {
+				lines[j] = GEOM_FACT.createLineString(randomCoords(rand, 2 + rand.nextInt(20)));
+			}
+			geoms.add(GEOM_FACT.createMultiLineString(lines));
+		}
+		
+		return geoms;
+	}
+	
+	private static List<Geometry> randomPolygons(int count, long seed) {
+		Random rand = new Random(seed);
+		List<Geometry> geoms = Lists.newArrayList();
+		for ( int i = 0; i < count; ++i ) {
+			Polygon[] polys = new Polygon[1 + rand.nextInt(3)];
+			for ( int j = 0; j < polys.length; ++j ) {
+				// 서로 겹치지 않는 정사각형들로, 일부는 내부 구멍을 갖는다.
+				double x = rand.nextInt(100) * 10 + j * 2000;
+				double y = rand.nextInt(100) * 10;
+				LinearRing shell = square(x, y, 8);
+				LinearRing[] holes = rand.nextBoolean() ? new LinearRing[] { square(x + 2, y + 2, 4) }
+														: new LinearRing[0];
+				polys[j] = GEOM_FACT.createPolygon(shell, holes);
+			}
+			geoms.add(GEOM_FACT.createMultiPolygon(polys));
+		}
+		
+		return geoms;
+	}
+	
+	private static LinearRing square(double x, double y, double size) {
+		// shapefile 규약에 따라 외곽 ring은 시계방향으로 만든다. 내부 ring은 GeoTools가 방향을 맞춘다.
+		return GEOM_FACT.createLinearRing(new Coordinate[] {
+			new Coordinate(x, y), new Coordinate(x, y + size), new Coordinate(x + size, y + size),
+			new Coordinate(x + size, y), new Coordinate(x, y),
+		});
+	}
+	
+	private static Coordinate[] randomCoords(Random rand, int count) {
+		Coordinate[] coords = new Coordinate[count];
+		for ( int i = 0; i < count; ++i ) {
+			coords[i] = new Coordinate(rand.nextDouble() * 1000, rand.nextDouble() * 1000);
+		}
+		
+		return coords;
+	}
+}
@@ -0,0 +1,288 @@
+package utils.geo;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+
+import org.geotools.data.DataUtilities;
+import org.geotools.feature.SchemaException;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.locationtech.jts.geom.Geometry;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+import com.google.common.collect.Lists;
+
+import utils.func.FOption;
+
+/**
+ * 테스트용 point shapefile('.shp', '.shx', '.dbf')을 생성한다.
+ * <p>
+ * {@code i}번째 레코드의 좌표는 {@link #getX(int)}, {@link #getY(int)}이며,
+ * NULL 레코드를 섞어 생성하는 경우는 {@link #isNullRecord(int, int)}인 레코드가 NULL 레코드가 된다.
+ * GeoTools로 작성할 수 없는 MULTIPATCH 레코드는 {@link #writeMultiPatch(File, String, double[][], int[])}로
+ * 생성한다. 점 이외의 공간 객체들은 {@link #writeGeometries(File, String, String, List)}로
+ * GeoTools를 이용하여 생성한다.
+ * '.dbf' 파일은 'ID'(N 9), 'NAME'(C 20), 'SCORE'(N 12.3) 컬럼을 갖는다.
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+final class TestShapefiles {
+	private static final int SHP_HEADER_LENGTH = 100;
+	private static final int POINT_CONTENT_LENGTH = 20;
+	private static final int NULL_CONTENT_LENGTH = 4;
+	private static final int POINT_TYPE = 1;
+	private static final int MULTIPATCH_TYPE = 31;
+	private static final String[] DBF_NAMES = { "ID", "NAME", "SCORE" };
+	private static final char[] DBF_TYPES = { 'N', 'C', 'N' };
+	private static final int[] DBF_LENGTHS = { 9, 20, 12 };
+	private static final int[] DBF_DECIMALS = { 0, 0, 3 };
+	
+	private TestShapefiles() {
+		throw new AssertionError("Should not be called: class=" + TestShapefiles.class);
+	}
+	
+	static double getX(int idx) {
+		return (idx % 100) + 0.5;
+	}
+	
+	static double getY(int idx) {
+		return (idx / 100) + 0.5;
+	}
+	
+	static String getName(int idx) {
+		return "name-" + idx;
+	}
+	
+	static double getScore(int idx) {
+		return idx * 0.125;
+	}
+	
+	static boolean isNullRecord(int idx, int nullEvery) {
+		return nullEvery > 0 && idx % nullEvery == nullEvery - 1;
+	}
+	
+	static File writePoints(File dir, String name, int count) throws IOException {
+		return writePoints(dir, name, count, 0);
+	}
+	
+	/**
+	 * {@code nullEvery}개 레코드마다 하나씩 NULL 레코드를 포함하는 point shapefile을 생성한다.
+	 * {@code nullEvery}가 0인 경우는 NULL 레코드를 포함하지 않는다.
+	 */
+	static File writePoints(File dir, String name, int count, int nullEvery) throws IOException {
+		File shpFile = new File(dir, name + ".shp");
+		writeShp(shpFile, new File(dir, name + ".shx"), count, nullEvery);
+		writeDbf(new File(dir, name + ".dbf"), count);
+		
+		return shpFile;
+	}
+	
+	/**
+	 * 주어진 공간 객체들을 GeoTools를 이용하여 shapefile로 기록한다.
+	 * {@code i}번째 레코드의 'ID' 컬럼 값은 {@code i}이다.
+	 * 
+	 * @param geomType	공간 정보 컬럼의 타입 (예: "MultiPolygon")
+	 */
+	static File writeGeometries(File dir, String name, String geomType, List<Geometry> geoms)
+		throws IOException, SchemaException {
+		SimpleFeatureType sfType = DataUtilities.createType(name, "the_geom:" + geomType + ",ID:Integer");
+		List<SimpleFeature> features = Lists.newArrayList();
+		for ( int i = 0; i < geoms.size(); ++i ) {
+			features.add(SimpleFeatureBuilder.build(sfType, new Object[] { geoms.get(i), i }, "fid-" + i));
+		}
+		Shapefile.writeShapefile(dir, sfType, features, StandardCharsets.UTF_8, FOption.empty(),
+								FOption.empty());
+		
+		File shpFile = new File(dir, name + ".shp");
+		assertTrue(shpFile.exists());
+		return shpFile;
+	}
+	
+	/**
+	 * 하나의 MULTIPATCH 레코드로 구성된 '.shp' 파일을 생성한다.
+	 * 레코드의 z 값은 모두 0이며, m 값은 기록하지 않는다.
+	 * 
+	 * @param parts		part별 좌표 배열. 좌표는 (x, y) 순서로 기록된다.
+	 * @param partTypes	part별 타입 (triangle strip, ring 등)
+	 */
+	static File writeMultiPatch(File dir, String name, double[][] parts, int[] partTypes)
+		throws IOException {
+		int npoints = 0;
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+		for ( double[] part: parts ) {
+			for ( int i = 0; i < part.length; i += 2 ) {
+				minX = Math.min(minX, part[i]);
+				maxX = Math.max(maxX, part[i]);
+				minY = Math.min(minY, part[i+1]);
+				maxY = Math.max(maxY, part[i+1]);
+			}
+			npoints += part.length / 2;
+		}
+		
+		// shape type, MBR, part/point 갯수, part 시작 위치와 타입, x/y 좌표, z 범위, z 좌표
+		int contentLength = 4 + 32 + 8 + 8*parts.length + 16*npoints + 16 + 8*npoints;
+		ByteBuffer rec = ByteBuffer.allocate(8 + contentLength);
+		rec.putInt(1).putInt(contentLength / 2);
+		rec.order(ByteOrder.LITTLE_ENDIAN);
+		rec.putInt(MULTIPATCH_TYPE).putDouble(minX).putDouble(minY).putDouble(maxX).putDouble(maxY);
+		rec.putInt(parts.length).putInt(npoints);
+		int offset = 0;
+		for ( double[] part: parts ) {
+			rec.putInt(offset);
+			offset += part.length / 2;
+		}
+		for ( int type: partTypes ) {
+			rec.putInt(type);
+		}
+		for ( double[] part: parts ) {
+			for ( double v: part ) {
+				rec.putDouble(v);
+			}
+		}
+		rec.putDouble(0).putDouble(0);
+		for ( int i = 0; i < npoints; ++i ) {
+			rec.putDouble(0);
+		}
+		rec.flip();
+		
+		File shpFile = new File(dir, name + ".shp");
+		try ( FileChannel shp = new FileOutputStream(shpFile).getChannel() ) {
+			shp.write(header(SHP_HEADER_LENGTH + 8 + contentLength, MULTIPATCH_TYPE, minX, minY, maxX, maxY));
+			shp.write(rec);
+		}
+		
+		return shpFile;
+	}
+	
+	/**
+	 * '.shp' 파일의 첫번째 레코드 헤더의 길이 값을 0으로 바꾼다.
+	 * '.shp' 파일의 레코드 헤더를 따라가며 읽는 경우는 오류가 발생한다.
+	 */
+	static void corruptFirstRecordHeader(File shpFile) throws IOException {
+		try ( RandomAccessFile raf = new RandomAccessFile(shpFile, "rw") ) {
+			raf.seek(SHP_HEADER_LENGTH + 4);
+			raf.writeInt(0);
+		}
+	}
+	
+	private static void writeShp(File shpFile, File shxFile, int count, int nullEvery) throws IOException {
+		long shpLength = SHP_HEADER_LENGTH;
+		for ( int i = 0; i < count; ++i ) {
+			shpLength += 8 + (isNullRecord(i, nullEvery) ? NULL_CONTENT_LENGTH : POINT_CONTENT_LENGTH);
+		}
+		
+		try ( FileChannel shp = new FileOutputStream(shpFile).getChannel();
+				FileChannel shx = new FileOutputStream(shxFile).getChannel() ) {
+			shp.write(pointHeader(shpLength, count));
+			shx.write(pointHeader(SHP_HEADER_LENGTH + 8L * count, count));
+			
+			long offset = SHP_HEADER_LENGTH;
+			for ( int i = 0; i < count; ++i ) {
+				int contentLength = isNullRecord(i, nullEvery) ? NULL_CONTENT_LENGTH : POINT_CONTENT_LENGTH;
+				ByteBuffer rec = ByteBuffer.allocate(8 + contentLength);
+				rec.putInt(i + 1).putInt(contentLength / 2);
+				rec.order(ByteOrder.LITTLE_ENDIAN);
+				if ( isNullRecord(i, nullEvery) ) {
+					rec.putInt(0);
+				}
+				else {
+					rec.putInt(1).putDouble(getX(i)).putDouble(getY(i));
+				}
+				rec.flip();
+				shp.write(rec);
+				
+				ByteBuffer entry = ByteBuffer.allocate(8);
+				entry.putInt((int)(offset / 2)).putInt(contentLength / 2);
+				entry.flip();
+				shx.write(entry);
+				
+				offset += 8 + contentLength;
+			}
+		}
+	}
+	
+	private static ByteBuffer pointHeader(long fileLength, int count) {
+		return header(fileLength, POINT_TYPE, getX(0), getY(0), getX(Math.min(count, 100) - 1),
+						getY(count - 1));
+	}
+	
+	private static ByteBuffer header(long fileLength, int shapeType, double minX, double minY,
+									double maxX, double maxY) {
+		ByteBuffer header = ByteBuffer.allocate(SHP_HEADER_LENGTH);
+		header.putInt(9994);
+		header.position(24);
+		header.putInt((int)(fileLength / 2));
+		header.order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(1000).putInt(shapeType);
+		header.putDouble(minX).putDouble(minY);
+		header.putDouble(maxX).putDouble(maxY);
+		header.position(0);
+		
+		return header;
+	}
+	
+	private static void writeDbf(File dbfFile, int count) throws IOException {
+		int headerLength = 32 + 32 * DBF_NAMES.length + 1;
+		int recordLength = 1;
+		for ( int len: DBF_LENGTHS ) {
+			recordLength += len;
+		}
+		
+		ByteBuffer buffer = ByteBuffer.allocate(headerLength + recordLength * count + 1)
+										.order(ByteOrder.LITTLE_ENDIAN);
+		buffer.put((byte)0x03).put((byte)124).put((byte)1).put((byte)1);
+		buffer.putInt(count);
+		buffer.putShort((short)headerLength).putShort((short)recordLength);
+		buffer.position(32);
+		for ( int i = 0; i < DBF_NAMES.length; ++i ) {
+			int start = buffer.position();
+			buffer.put(DBF_NAMES[i].getBytes(StandardCharsets.US_ASCII));
+			buffer.position(start + 11);
+			buffer.put((byte)DBF_TYPES[i]);
+			buffer.position(start + 16);
+			buffer.put((byte)DBF_LENGTHS[i]).put((byte)DBF_DECIMALS[i]);
+			buffer.position(start + 32);
+		}
+		buffer.put((byte)0x0D);
+		
+		for ( int i = 0; i < count; ++i ) {
+			buffer.put((byte)' ');
+			put(buffer, String.valueOf(i), DBF_LENGTHS[0], true);
+			put(buffer, getName(i), DBF_LENGTHS[1], false);
+			put(buffer, String.format(Locale.ROOT, "%.3f", getScore(i)), DBF_LENGTHS[2], true);
+		}
+		buffer.put((byte)0x1A);
+		buffer.flip();
+		
+		try ( FileChannel dbf = new FileOutputStream(dbfFile).getChannel() ) {
+			dbf.write(buffer);
+		}
+	}
+	
+	private static void put(ByteBuffer buffer, String value, int length, boolean rightAligned) {
+		byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+		int pad = length - bytes.length;
+		if ( rightAligned ) {
+			for ( int i = 0; i < pad; ++i ) {
+				buffer.put((byte)' ');
+			}
+		}
+		buffer.put(bytes);
+		if ( !rightAligned ) {
+			for ( int i = 0; i < pad; ++i ) {
+				buffer.put((byte)' ');
+			}
+		}
+	}
+}
@@ -0,0 +1,206 @@
+package utils.geo.quadtree.envelope;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.junit.Test;
+import org.locationtech.jts.geom.Envelope;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import utils.geo.quadtree.EnvelopedValue;
+import utils.stream.FStream;
+
+/**
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class EnvelopeQuadTreeTest {
+	private static final Envelope BOUNDS = new Envelope(0, 100, 0, 100);
+	
+	@Test
+	public void testClusteredSmallBoxes() throws Exception {
+		// 모든 데이터가 SW 사분면의 좁은 영역에 몰려 있더라도 더 깊이 분할하여 저장되어야 한다.
+		EnvelopeQuadTree<Box,BoxPartition> tree = new EnvelopeQuadTree<>(BOUNDS, BoxPartition.supplier(4));
+		List<Box> boxes = Lists.newArrayList();
+		Random rand = new Random(11);
+		for ( int i = 0; i < 200; ++i ) {
+			double x = rand.nextDouble() * 10;
+			double y = rand.nextDouble() * 10;
+			Box box = new Box(i, new Envelope(x, x + 0.01, y, y + 0.01));
+			tree.insert(box);
+			boxes.add(box);
+		}
+		assertTrue(tree.getDepth() > 2);
+		
+		assertEquals(ids(boxes), collectIds(tree.streamValues()));
+		for ( int i = 0; i < 50; ++i ) {
+			Envelope key = randomKey(rand, 12);
+			assertEquals(bruteForce(boxes, key), collectIds(tree.query(key)));
+		}
+	}
+	
+	@Test
+	public void testQueryDedupForSpanningValue() throws Exception {
+		EnvelopeQuadTree<Box,BoxPartition> tree = new EnvelopeQuadTree<>(BOUNDS, BoxPartition.supplier(4));
+		List<Box> boxes = Lists.newArrayList();
+		Random rand = new Random(13);
+		for ( int i = 0; i < 300; ++i ) {
+			double x = rand.nextDouble() * 99;
+			double y = rand.nextDouble() * 99;
+			Box box = new Box(i, new Envelope(x, x + 1, y, y + 1));
+			tree.insert(box);
+			boxes.add(box);
+		}
+		// 여러 단말노드에 걸치는 큰 데이터
+		Box wide = new Box(-1, new Envelope(10, 90, 40, 60));
+		List<EnvelopeLeafNode<Box,BoxPartition>> leaves = tree.insert(wide);
+		boxes.add(wide);
+		assertTrue(leaves.size() > 1);
+		
+		assertEquals(ids(boxes), collectIds(tree.streamValues()));
+		assertEquals(ids(boxes), collectIds(tree.query(BOUNDS)));
+		for ( int i = 0; i < 100; ++i ) {
+			Envelope key = randomKey(rand, 100);
+			assertEquals(bruteForce(boxes, key), collectIds(tree.query(key)));
+		}
+	}
+	
+	@Test
+	public void testValuesTouchingLeafMaxEdges() throws Exception {
+		EnvelopeQuadTree<Box,BoxPartition> tree = new EnvelopeQuadTree<>(BOUNDS, BoxPartition.supplier(4));
+		List<Box> boxes = Lists.newArrayList();
+		int id = 0;
+		// 분할 경계선(50, 25, 75)과 최상위 노드의 최대 경계(100)에 닿는 데이터들
+		for ( double c: new double[]{25, 50, 75} ) {
+			for ( int i = 0; i < 10; ++i ) {
+				double v = i * 10 + 0.5;
+				boxes.add(new Box(id++, new Envelope(c, c, v, v)));
+				boxes.add(new Box(id++, new Envelope(v, v, c, c)));
+				boxes.add(new Box(id++, new Envelope(c - 1, c, v, v + 1)));
+				boxes.add(new Box(id++, new Envelope(v, v + 1, c, c + 1)));
+			}
+		}
+		boxes.add(new Box(id++, new Envelope(100, 100, 100, 100)));
+		boxes.add(new Box(id++, new Envelope(99, 100, 0, 0)));
+		boxes.add(new Box(id++, new Envelope(0, 0, 99, 100)));
+		for ( Box box: boxes ) {
+			tree.insert(box);
+		}
+		
+		assertEquals(ids(boxes), collectIds(tree.streamValues()));
+		for ( double c: new double[]{25, 50, 75, 100} ) {
+			Envelope key = new Envelope(c, 100, c, 100);
+			assertEquals(bruteForce(boxes, key), collectIds(tree.query(key)));
+			key = new Envelope(0, c, 0, c);
+			assertEquals(bruteForce(boxes, key), collectIds(tree.query(key)));
+			key = new Envelope(c, c, 0, 100);
+			assertEquals(bruteForce(boxes, key), collectIds(tree.query(key)));
+		}
+	}
+	
+	private static Envelope randomKey(Random rand, double range) {
+		double x = rand.nextDouble() * range;
+		double y = rand.nextDouble() * range;
+		double w = rand.nextDouble() * range / 4;
+		double h = rand.nextDouble() * range / 4;
+		return new Envelope(x, Math.min(x + w, 100), y, Math.min(y + h, 100));
+	}
+	
+	private static Set<Integer> ids(List<Box> boxes) {
+		Set<Integer> ids = Sets.newHashSet();
+		for ( Box box: boxes ) {
+			assertTrue(ids.add(box.m_id));
+		}
+		return ids;
+	}
+	
+	private static Set<Integer> bruteForce(List<Box> boxes, Envelope key) {
+		Set<Integer> ids = Sets.newHashSet();
+		for ( Box box: boxes ) {
+			if ( box.intersects(key) ) {
+				ids.add(box.m_id);
+			}
+		}
+		return ids;
+	}
+	
+	private static Set<Integer> collectIds(FStream<Box> values) {
+		Set<Integer> ids = Sets.newHashSet();
+		for ( Box box: values.toList() ) {
+			// 여러 단말노드에 저장된 데이터도 한번만 반환되어야 한다.
+			assertTrue("duplicate: " + box, ids.add(box.m_id));
+		}
+		return ids;
+	}
+	
+	private static final class Box implements EnvelopedValue {
+		private final int m_id;
+		private final Envelope m_envl;
+		
+		Box(int id, Envelope envl) {
+			m_id = id;
+			m_envl = envl;
+		}
+		
+		@Override
+		public Envelope getEnvelope() {
+			return m_envl;
+		}
+		
+		@Override
+		public String toString() {
+			return String.format("%d:%s", m_id, m_envl);
+		}
+	}
+	
+	private static final class BoxPartition implements EnvelopePartition<Box> {
+		private final int m_capacity;
+		private final List<Box> m_boxes = Lists.newArrayList();
+		private final Envelope m_bounds = new Envelope();
+		
+		static Function<Envelope,BoxPartition> supplier(int capacity) {
+			return bounds -> new BoxPartition(capacity);
+		}
+		
+		BoxPartition(int capacity) {
+			m_capacity = capacity;
+		}
+		
+		@Override
+		public int size() {
+			return m_boxes.size();
+		}
+		
+		@Override
+		public Envelope getBounds() {
+			return m_bounds;
+		}
+		
+		@Override
+		public FStream<Box> values() {
+			return FStream.from(m_boxes);
+		}
+		
+		@Override
+		public boolean add(Box value) {
+			if ( m_boxes.size() >= m_capacity ) {
+				return false;
+			}
+			m_boxes.add(value);
+			m_bounds.expandToInclude(value.getEnvelope());
+			return true;
+		}
+		
+		@Override
+		public String toString() {
+			return String.format("size=%d/%d", m_boxes.size(), m_capacity);
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package utils.geo.quadtree.point;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.locationtech.jts.geom.Envelope;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class ConcurrentPointQuadTreeTest {
+	private static final int WRITER_COUNT = 4;
+	private static final int READER_COUNT = 4;
+	private static final int COUNT_PER_WRITER = 25000;
+	
+	@Test
+	public void testConcurrentInsertAndQuery() throws Exception {
+		ConcurrentPointQuadTree<PackedPointValue,PackedPointPartition> tree
+				= new ConcurrentPointQuadTree<>(TestPointQuadTrees.BOUNDS, PackedPointPartition.supplier(32), 8);
+		
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		AtomicBoolean writing = new AtomicBoolean(true);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> writers = Lists.newArrayList();
+		for ( int w = 0; w < WRITER_COUNT; ++w ) {
+			final int writerId = w;
+			writers.add(new Thread(() -> {
+				try {
+					start.await();
+					Random rand = new Random(writerId);
+					for ( int i = 0; i < COUNT_PER_WRITER; ++i ) {
+						long id = (long)writerId * COUNT_PER_WRITER + i;
+						tree.insert(new PackedPointValue(id, rand.nextDouble() * 100, rand.nextDouble() * 100));
+					}
+				}
+				catch ( Throwable e ) {
+					failure.compareAndSet(null, e);
+				}
+			}));
+		}
+		
+		// 삽입이 진행되는 동안 질의 결과는 항상 질의 영역에 포함되어야 하고 중복되지 않아야 한다.
+		List<Thread> readers = Lists.newArrayList();
+		for ( int r = 0; r < READER_COUNT; ++r ) {
+			final int readerId = r;
+			readers.add(new Thread(() -> {
+				try {
+					start.await();
+					Random rand = new Random(100 + readerId);
+					while ( writing.get() ) {
+						double x = rand.nextDouble() * 90;
+						double y = rand.nextDouble() * 90;
+						Envelope key = new Envelope(x, x + 10, y, y + 10);
+						Set<Long> ids = Sets.newHashSet();
+						for ( PackedPointValue value: tree.query(key).toList() ) {
+							assertTrue("out of window: " + value, key.contains(value.getCoordinate()));
+							assertTrue("duplicate: " + value, ids.add(value.getId()));
+						}
+						tree.streamLeafNodes().count();
+					}
+				}
+				catch ( Throwable e ) {
+					failure.compareAndSet(null, e);
+				}
+			}));
+		}
+		
+		writers.forEach(Thread::start);
+		readers.forEach(Thread::start);
+		start.countDown();
+		for ( Thread writer: writers ) {
+			writer.join();
+		}
+		writing.set(false);
+		for ( Thread reader: readers ) {
+			reader.join();
+		}
+		if ( failure.get() != null ) {
+			throw new AssertionError(failure.get());
+		}
+		
+		final int total = WRITER_COUNT * COUNT_PER_WRITER;
+		Set<Long> ids = Sets.newHashSet();
+		for ( PackedPointValue value: tree.streamValues().toList() ) {
+			ids.add(value.getId());
+		}
+		assertEquals(total, ids.size());
+		assertEquals(total, tree.streamValues().count());
+		assertEquals(total, tree.query(TestPointQuadTrees.BOUNDS).count());
+		assertTrue(tree.getDepth() > 1);
+	}
+}
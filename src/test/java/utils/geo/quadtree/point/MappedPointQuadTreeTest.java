@@ -0,0 +1,120 @@
+package utils.geo.quadtree.point;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+
+import com.google.common.collect.Sets;
+
+import utils.stream.FStream;
+
+/**
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class MappedPointQuadTreeTest {
+	private static final PointValueCodec<PackedPointValue> CODEC = new PointValueCodec<PackedPointValue>() {
+		@Override
+		public void encode(PackedPointValue value, DataOutput out) throws IOException {
+			out.writeLong(value.getId());
+		}
+
+		@Override
+		public PackedPointValue decode(Coordinate coord, ByteBuffer payload) {
+			return new PackedPointValue(payload.getLong(), coord);
+		}
+	};
+	
+	private File m_dir;
+	
+	@Before
+	public void setUp() throws IOException {
+		m_dir = Files.createTempDirectory("mapped-quadtree-test").toFile();
+	}
+	
+	@After
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(m_dir);
+	}
+	
+	@Test
+	public void testRoundTrip() throws Exception {
+		PointQuadTree<PackedPointValue,PackedPointPartition> tree = TestPointQuadTrees.newTree(64, 20000, 31);
+		File file = new File(m_dir, "tree.pqt");
+		MappedPointQuadTree.write(tree, file, CODEC);
+		
+		try ( MappedPointQuadTree<PackedPointValue> mapped = MappedPointQuadTree.open(file, CODEC) ) {
+			checkSameContents(tree, mapped);
+		}
+	}
+	
+	@Test
+	public void testRoundTripWithSegmentPadding() throws Exception {
+		// 단말 노드 블록 하나는 최대 1,800 바이트이므로, 대부분의 segment 끝에 padding이 추가된다.
+		final long segmentSize = 4096;
+		PointQuadTree<PackedPointValue,PackedPointPartition> tree = TestPointQuadTrees.newTree(64, 20000, 37);
+		File file = new File(m_dir, "tree.pqt");
+		MappedPointQuadTree.write(tree, file, CODEC, segmentSize);
+		assertTrue(file.length() > 100 * segmentSize);
+		
+		try ( MappedPointQuadTree<PackedPointValue> mapped = MappedPointQuadTree.open(file, CODEC) ) {
+			checkSameContents(tree, mapped);
+		}
+	}
+	
+	@Test
+	public void testRoundTripOfSingleLeaf() throws Exception {
+		PointQuadTree<PackedPointValue,PackedPointPartition> tree = TestPointQuadTrees.newTree(64, 50, 41);
+		assertTrue(tree.getRootNode() instanceof PointLeafNode);
+		File file = new File(m_dir, "tree.pqt");
+		MappedPointQuadTree.write(tree, file, CODEC);
+		
+		try ( MappedPointQuadTree<PackedPointValue> mapped = MappedPointQuadTree.open(file, CODEC) ) {
+			checkSameContents(tree, mapped);
+		}
+	}
+	
+	private static void checkSameContents(PointQuadTree<PackedPointValue,PackedPointPartition> tree,
+											MappedPointQuadTree<PackedPointValue> mapped) {
+		assertEquals(tree.getRootBounds(), mapped.getRootBounds());
+		assertEquals(tree.getRootNode().getValueCount(), mapped.getValueCount());
+		assertEquals(tree.streamLeafNodes().count(), mapped.getLeafNodeCount());
+		assertEquals(toSet(tree.streamValues()), toSet(mapped.streamValues()));
+		
+		Random rand = new Random(43);
+		for ( int i = 0; i < 200; ++i ) {
+			double x = rand.nextDouble() * 100;
+			double y = rand.nextDouble() * 100;
+			double size = rand.nextDouble() * 30;
+			Envelope key = new Envelope(x, x + size, y, y + size);
+			
+			Set<PackedPointValue> expected = toSet(tree.query(key));
+			assertEquals(expected, toSet(mapped.query(key)));
+			assertEquals(tree.count(key), mapped.query(key).count());
+			assertEquals(expected.size(), tree.count(key));
+		}
+	}
+	
+	private static Set<PackedPointValue> toSet(FStream<PackedPointValue> values) {
+		Set<PackedPointValue> set = Sets.newHashSet();
+		for ( PackedPointValue value: values.toList() ) {
+			assertTrue("duplicate: " + value, set.add(value));
+		}
+		
+		return set;
+	}
+}
@@ -0,0 +1,72 @@
+package utils.geo.quadtree.point;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import utils.geo.quadtree.TooBigValueException;
+
+/**
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class PointQuadTreeBulkLoadTest {
+	@Test
+	public void testBulkLoad() throws Exception {
+		List<PackedPointValue> values = TestPointQuadTrees.randomValues(20000, 17);
+		PointQuadTree<PackedPointValue,PackedPointPartition> tree
+			= PointQuadTree.bulkLoad(TestPointQuadTrees.BOUNDS, values, PackedPointPartition.supplier(64));
+		assertTrue(tree.getRootNode() instanceof PointNonLeafNode);
+		assertEquals(values.size(), tree.getRootNode().getValueCount());
+		
+		Set<Long> ids = Sets.newHashSet();
+		for ( PointLeafNode<PackedPointValue,PackedPointPartition> leaf = tree.getFirstLeafNode();
+				leaf != null; leaf = leaf.getNextLeafNode() ) {
+			assertTrue(leaf.getValueCount() <= 64);
+			for ( PackedPointValue value: leaf.values().toList() ) {
+				assertTrue(leaf.getBounds().intersects(value.getCoordinate()));
+				assertTrue(ids.add(value.getId()));
+			}
+		}
+		assertEquals(values.size(), ids.size());
+	}
+	
+	@Test
+	public void testOutOfBoundsValueInSingleLeaf() throws Exception {
+		// 단말노드 하나에 모두 들어가는 경우도 영역 밖의 데이터는 거부되어야 한다.
+		List<PackedPointValue> values = Lists.newArrayList(TestPointQuadTrees.randomValues(10, 19));
+		values.add(new PackedPointValue(10, 150, 50));
+		try {
+			PointQuadTree.bulkLoad(TestPointQuadTrees.BOUNDS, values, PackedPointPartition.supplier(64));
+			fail("out-of-bounds value should be rejected");
+		}
+		catch ( IllegalArgumentException expected ) { }
+	}
+	
+	@Test
+	public void testTooManyDuplicates() throws Exception {
+		List<PackedPointValue> values = Lists.newArrayList(TestPointQuadTrees.randomValues(100, 23));
+		for ( int i = 0; i < 65; ++i ) {
+			values.add(new PackedPointValue(100 + i, 12.5, 37.5));
+		}
+		try {
+			PointQuadTree.bulkLoad(TestPointQuadTrees.BOUNDS, values, PackedPointPartition.supplier(64));
+			fail("more duplicates than the leaf capacity should be rejected");
+		}
+		catch ( TooBigValueException expected ) { }
+		
+		// 단말노드 용량 이하의 중복은 허용된다.
+		values = values.subList(0, values.size() - 1);
+		PointQuadTree<PackedPointValue,PackedPointPartition> tree
+			= PointQuadTree.bulkLoad(TestPointQuadTrees.BOUNDS, values, PackedPointPartition.supplier(64));
+		assertEquals(values.size(), tree.getRootNode().getValueCount());
+	}
+}
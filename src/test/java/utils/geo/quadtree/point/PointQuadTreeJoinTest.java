@@ -0,0 +1,83 @@
+package utils.geo.quadtree.point;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+/**
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class PointQuadTreeJoinTest {
+	private static ForkJoinPool s_pool;
+	
+	@BeforeClass
+	public static void setUp() {
+		s_pool = new ForkJoinPool(4);
+	}
+	
+	@AfterClass
+	public static void tearDown() {
+		s_pool.shutdown();
+	}
+	
+	@Test
+	public void testParallelJoinOfLargeLeaves() throws Exception {
+		// 두 트리 모두 최상위 단말노드 하나에 SEQUENTIAL_THRESHOLD 이상의 데이터를 갖는다.
+		PointQuadTree<PackedPointValue,PackedPointPartition> left = TestPointQuadTrees.newTree(4096, 2000, 1);
+		PointQuadTree<PackedPointValue,PackedPointPartition> right = TestPointQuadTrees.newTree(4096, 2000, 2);
+		assertTrue(left.getRootNode() instanceof PointLeafNode);
+		assertTrue(right.getRootNode() instanceof PointLeafNode);
+		
+		Set<String> expected = joinSequential(left, right, 1.0);
+		assertFalse(expected.isEmpty());
+		assertEquals(expected, joinParallel(left, right, 1.0));
+	}
+	
+	@Test
+	public void testParallelJoinOfLeafAndNonLeaf() throws Exception {
+		PointQuadTree<PackedPointValue,PackedPointPartition> left = TestPointQuadTrees.newTree(4096, 2000, 3);
+		PointQuadTree<PackedPointValue,PackedPointPartition> right = TestPointQuadTrees.newTree(64, 5000, 4);
+		assertTrue(left.getRootNode() instanceof PointLeafNode);
+		assertTrue(right.getRootNode() instanceof PointNonLeafNode);
+		
+		Set<String> expected = joinSequential(left, right, 1.0);
+		assertEquals(expected, joinParallel(left, right, 1.0));
+		assertEquals(joinSequential(right, left, 1.0), joinParallel(right, left, 1.0));
+	}
+	
+	@Test
+	public void testParallelJoinOfNonLeaves() throws Exception {
+		PointQuadTree<PackedPointValue,PackedPointPartition> left = TestPointQuadTrees.newTree(64, 5000, 5);
+		PointQuadTree<PackedPointValue,PackedPointPartition> right = TestPointQuadTrees.newTree(128, 5000, 6);
+		
+		Set<String> expected = joinSequential(left, right, 0.5);
+		assertEquals(expected, joinParallel(left, right, 0.5));
+	}
+	
+	private static Set<String> joinSequential(PointQuadTree<PackedPointValue,PackedPointPartition> left,
+											PointQuadTree<PackedPointValue,PackedPointPartition> right,
+											double distance) {
+		Set<String> pairs = Sets.newHashSet();
+		left.join(right, distance, (l, r) -> assertTrue(pairs.add(l.getId() + ":" + r.getId())));
+		return pairs;
+	}
+	
+	private static Set<String> joinParallel(PointQuadTree<PackedPointValue,PackedPointPartition> left,
+											PointQuadTree<PackedPointValue,PackedPointPartition> right,
+											double distance) {
+		Set<String> pairs = ConcurrentHashMap.newKeySet();
+		left.join(right, distance, (l, r) -> assertTrue(pairs.add(l.getId() + ":" + r.getId())), s_pool);
+		return pairs;
+	}
+}
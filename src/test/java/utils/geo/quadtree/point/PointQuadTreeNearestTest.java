@@ -0,0 +1,173 @@
+package utils.geo.quadtree.point;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Point;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import utils.geo.quadtree.TooBigValueException;
+import utils.geo.util.GeoClientUtils;
+
+/**
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class PointQuadTreeNearestTest {
+	private static final Envelope WORLD = new Envelope(-180, 180, -90, 90);
+	private static final double PLANAR_TOLERANCE = 1e-9;
+	private static final double WGS84_TOLERANCE = 1e-6;
+	
+	@Test
+	public void testNearest() throws TooBigValueException {
+		PointQuadTree<PackedPointValue,PackedPointPartition> tree = TestPointQuadTrees.newTree(32, 5000, 51);
+		List<PackedPointValue> values = TestPointQuadTrees.randomValues(5000, 51);
+		
+		Random rand = new Random(53);
+		for ( int i = 0; i < 200; ++i ) {
+			// 일부 기준점은 QuadTree 영역 밖에 위치하도록 한다.
+			Coordinate center = new Coordinate(rand.nextDouble() * 140 - 20, rand.nextDouble() * 140 - 20);
+			ToDoubleFunction<PackedPointValue> dist = v -> center.distance(v.getCoordinate());
+			int k = 1 + rand.nextInt(30);
+			
+			checkNearest(values, dist, k, Double.POSITIVE_INFINITY, tree.nearest(center, k), PLANAR_TOLERANCE);
+			
+			double maxDistance = rand.nextDouble() * 10;
+			checkNearest(values, dist, k, maxDistance, tree.nearest(center, k, maxDistance), PLANAR_TOLERANCE);
+		}
+	}
+	
+	@Test
+	public void testNearestWgs84() throws TooBigValueException {
+		List<PackedPointValue> values = randomWgs84Values(6000, 61);
+		PointQuadTree<PackedPointValue,PackedPointPartition> tree = newWgs84Tree(values);
+		
+		for ( Coordinate center: wgs84Centers(63) ) {
+			Point pt = GeoClientUtils.toPoint(center);
+			ToDoubleFunction<PackedPointValue> dist = v -> GeoClientUtils.distanceWgs84(center, v.getCoordinate());
+			
+			for ( int k: new int[]{1, 10, 50} ) {
+				checkNearest(values, dist, k, Double.POSITIVE_INFINITY, tree.nearestWgs84(pt, k), WGS84_TOLERANCE);
+				checkNearest(values, dist, k, 200_000, tree.nearestWgs84(pt, k, 200_000), WGS84_TOLERANCE);
+			}
+		}
+	}
+	
+	@Test
+	public void testWithinDistance() throws TooBigValueException {
+		List<PackedPointValue> values = randomWgs84Values(6000, 71);
+		PointQuadTree<PackedPointValue,PackedPointPartition> tree = newWgs84Tree(values);
+		
+		for ( Coordinate center: wgs84Centers(73) ) {
+			for ( double meters: new double[]{0, 50_000, 300_000, 2_000_000} ) {
+				Set<PackedPointValue> expected = Sets.newHashSet();
+				for ( PackedPointValue value: values ) {
+					if ( GeoClientUtils.distanceWgs84(center, value.getCoordinate()) <= meters ) {
+						expected.add(value);
+					}
+				}
+				
+				List<PackedPointValue> founds = tree.withinDistance(GeoClientUtils.toPoint(center), meters);
+				assertEquals(founds.size(), Sets.newHashSet(founds).size());
+				assertEquals("center=" + center + ", meters=" + meters, expected, Sets.newHashSet(founds));
+			}
+		}
+	}
+	
+	/**
+	 * QuadTree 검색 결과와 전체 데이터를 순차적으로 검사하여 구한 결과를 비교한다.
+	 * 거리가 같은 데이터들이 존재할 수 있기 때문에, 데이터 대신 거리 순서를 비교한다.
+	 */
+	private static void checkNearest(List<PackedPointValue> values, ToDoubleFunction<PackedPointValue> dist,
+									int k, double maxDistance, List<PackedPointValue> founds,
+									double tolerance) {
+		double[] expected = values.stream()
+									.mapToDouble(dist)
+									.filter(d -> d <= maxDistance)
+									.sorted()
+									.limit(k)
+									.toArray();
+		double[] actual = founds.stream().mapToDouble(dist).toArray();
+		
+		assertEquals(expected.length, actual.length);
+		for ( int i = 0; i < expected.length; ++i ) {
+			assertEquals("k=" + k + ", idx=" + i + ", founds=" + Arrays.toString(actual),
+						expected[i], actual[i], tolerance);
+		}
+		assertEquals(founds.size(), Sets.newHashSet(founds).size());
+	}
+	
+	private static PointQuadTree<PackedPointValue,PackedPointPartition>
+	newWgs84Tree(List<PackedPointValue> values) throws TooBigValueException {
+		PointQuadTree<PackedPointValue,PackedPointPartition> tree
+									= new PointQuadTree<>(WORLD, PackedPointPartition.supplier(32));
+		for ( PackedPointValue value: values ) {
+			tree.insert(value);
+		}
+		assertEquals(values.size(), tree.getRootNode().getValueCount());
+		
+		return tree;
+	}
+	
+	/**
+	 * 전 지구에 고르게 분포된 데이터와 함께, 남/북극 및 날짜 변경선 근처에 몰려있는
+	 * 데이터를 생성한다.
+	 */
+	private static List<PackedPointValue> randomWgs84Values(int count, long seed) {
+		Random rand = new Random(seed);
+		List<PackedPointValue> values = Lists.newArrayListWithCapacity(count);
+		for ( int i = 0; i < count; ++i ) {
+			double lon, lat;
+			switch ( i % 4 ) {
+				case 0:
+					lon = rand.nextDouble() * 360 - 180;
+					lat = rand.nextDouble() * 180 - 90;
+					break;
+				case 1:
+					// 북극 또는 남극 근처
+					lon = rand.nextDouble() * 360 - 180;
+					lat = (rand.nextBoolean() ? 1 : -1) * (89 + rand.nextDouble());
+					break;
+				default:
+					// 날짜 변경선 양쪽 근처
+					lon = rand.nextBoolean() ? 179 + rand.nextDouble() : -180 + rand.nextDouble();
+					lat = rand.nextDouble() * 120 - 60;
+					break;
+			}
+			values.add(new PackedPointValue(i, lon, lat));
+		}
+		
+		return values;
+	}
+	
+	private static List<Coordinate> wgs84Centers(long seed) {
+		List<Coordinate> centers = Lists.newArrayList(
+			new Coordinate(0, 90),
+			new Coordinate(0, -90),
+			new Coordinate(45, 89.9),
+			new Coordinate(-135, -89.5),
+			new Coordinate(180, 0),
+			new Coordinate(-180, 0),
+			new Coordinate(179.95, 10),
+			new Coordinate(-179.95, -10),
+			new Coordinate(180, 89.99)
+		);
+		
+		Random rand = new Random(seed);
+		for ( int i = 0; i < 20; ++i ) {
+			centers.add(new Coordinate(rand.nextDouble() * 360 - 180, rand.nextDouble() * 180 - 90));
+		}
+		
+		return centers;
+	}
+}
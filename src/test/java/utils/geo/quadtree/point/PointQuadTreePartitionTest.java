@@ -0,0 +1,121 @@
+package utils.geo.quadtree.point;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+/**
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class PointQuadTreePartitionTest {
+	@Test
+	public void testBuildSubTreeKeepsSplitStrategy() throws Exception {
+		PointQuadTree<PackedPointValue,PackedPointPartition> tree
+						= TestPointQuadTrees.newTree(64, 5000, 7, SplitStrategy.MEDIAN);
+		
+		PartitionPlan plan = tree.partitionPlan(4);
+		long total = 0;
+		for ( PartitionPlan.Chunk chunk: plan.getChunks() ) {
+			PointQuadTree<PackedPointValue,PackedPointPartition> sub
+							= tree.buildSubTree(chunk, PackedPointPartition.supplier(64));
+			assertSame(SplitStrategy.MEDIAN, sub.getFirstLeafNode().getSplitStrategy());
+			assertEquals(chunk.getValueCount(), sub.getRootNode().getValueCount());
+			total += chunk.getValueCount();
+		}
+		assertEquals(5000, total);
+	}
+	
+	@Test
+	public void testPartitionPlanWithLargeLeaf() throws Exception {
+		// 한 사분면에 데이터 대부분이 몰린 단말노드가 여러 분할 경계를 넘도록 한다.
+		PointQuadTree<PackedPointValue,PackedPointPartition> tree
+						= new PointQuadTree<>(TestPointQuadTrees.BOUNDS, PackedPointPartition.supplier(1000));
+		Random rand = new Random(11);
+		int id = 0;
+		for ( int i = 0; i < 950; ++i ) {
+			tree.insert(new PackedPointValue(id++, rand.nextDouble() * 5, rand.nextDouble() * 5));
+		}
+		for ( int i = 0; i < 200; ++i ) {
+			tree.insert(new PackedPointValue(id++, rand.nextDouble() * 100, rand.nextDouble() * 100));
+		}
+		assertTrue(tree.getRootNode() instanceof PointNonLeafNode);
+		
+		final int target = 8;
+		PartitionPlan plan = tree.partitionPlan(target);
+		assertEquals(id, plan.getValueCount());
+		
+		// 마지막 분할을 제외한 모든 분할은 이전 분할이 넘지 않은 분할 경계를 새로 넘어야 한다.
+		long accum = 0;
+		int crossed = 0;
+		for ( int i = 0; i < plan.getChunkCount() - 1; ++i ) {
+			accum += plan.getChunk(i).getValueCount();
+			int next = countCrossedBoundaries(accum, id, target);
+			assertTrue("chunk " + i + " closed before its boundary", next > crossed);
+			crossed = next;
+		}
+	}
+	
+	@Test
+	public void testPartitionPlanBelowMaxQuadKeyLevel() throws Exception {
+		// 매우 가까운 point들을 삽입하여 최대 quad-key 레벨보다 깊은 단말노드들이
+		// 같은 quad-key를 공유하도록 한다.
+		PointQuadTree<PackedPointValue,PackedPointPartition> tree
+						= new PointQuadTree<>(TestPointQuadTrees.BOUNDS, PackedPointPartition.supplier(2));
+		int id = 0;
+		for ( PackedPointValue value: TestPointQuadTrees.randomValues(200, 19) ) {
+			tree.insert(new PackedPointValue(id++, value.getCoordinate()));
+		}
+		for ( int i = 0; i < 100; ++i ) {
+			double v = 30.3 + i * 1e-10;
+			tree.insert(new PackedPointValue(id++, v, v));
+		}
+		
+		List<PointLeafNode<PackedPointValue,PackedPointPartition>> leaves = tree.streamLeafNodes().toList();
+		int sharing = 0;
+		for ( int i = 1; i < leaves.size(); ++i ) {
+			if ( leaves.get(i-1).getQuadKey() == leaves.get(i).getQuadKey() ) {
+				++sharing;
+			}
+		}
+		assertTrue(sharing > 10);
+		
+		for ( int target: new int[]{4, 8, 16, 32} ) {
+			PartitionPlan plan = tree.partitionPlan(target);
+			assertEquals(id, plan.getValueCount());
+			
+			Set<PackedPointValue> collecteds = Sets.newHashSet();
+			long total = 0;
+			for ( PartitionPlan.Chunk chunk: plan.getChunks() ) {
+				PointQuadTree<PackedPointValue,PackedPointPartition> sub
+								= tree.buildSubTree(chunk, PackedPointPartition.supplier(2));
+				assertEquals(chunk.getValueCount(), sub.getRootNode().getValueCount());
+				total += chunk.getValueCount();
+				
+				// 어떤 데이터도 두 개 이상의 하위 QuadTree에 포함되면 안된다.
+				for ( PackedPointValue value: sub.streamValues().toList() ) {
+					assertTrue("duplicate: " + value, collecteds.add(value));
+				}
+			}
+			assertEquals(id, total);
+			assertEquals(Sets.newHashSet(tree.streamValues().toList()), collecteds);
+		}
+	}
+	
+	private static int countCrossedBoundaries(long accum, long total, int target) {
+		int crossed = 0;
+		while ( crossed + 1 < target && accum >= (total * (crossed + 1)) / target ) {
+			++crossed;
+		}
+		
+		return crossed;
+	}
+}
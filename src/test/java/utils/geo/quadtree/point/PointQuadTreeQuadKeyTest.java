@@ -0,0 +1,214 @@
+package utils.geo.quadtree.point;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.locationtech.jts.geom.Envelope;
+
+import com.google.common.collect.Lists;
+
+import utils.stream.FStream;
+
+/**
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class PointQuadTreeQuadKeyTest {
+	private static final long LAST_KEY = (1L << (2 * PointNode.MAX_QUAD_KEY_LEVEL)) - 1;
+	
+	@Test
+	public void testWrapSubNodeIsRejected() throws Exception {
+		PointQuadTree<PackedPointValue,PackedPointPartition> tree = TestPointQuadTrees.newTree(64, 2000, 3);
+		assertTrue(tree.getRootNode() instanceof PointNonLeafNode);
+		List<Long> keys = collectQuadKeys(tree);
+		
+		PointNode<PackedPointValue,PackedPointPartition> child
+							= ((PointNonLeafNode<PackedPointValue,PackedPointPartition>)tree.getRootNode()).getChild(1);
+		try {
+			new PointQuadTree<>(child);
+			fail("sub-node of a live tree should be rejected");
+		}
+		catch ( IllegalArgumentException expected ) { }
+		
+		// 원래 QuadTree의 quad-key들은 변경되지 않아야 한다.
+		assertEquals(keys, collectQuadKeys(tree));
+		assertEquals(2000, tree.scanRange(0, Long.MAX_VALUE)
+								.flatMap(PointLeafNode::values)
+								.count());
+	}
+	
+	@Test
+	public void testWrapDetachedNode() throws Exception {
+		PointQuadTree<PackedPointValue,PackedPointPartition> tree = TestPointQuadTrees.newTree(64, 2000, 5);
+		List<PackedPointValue> values = tree.getFirstLeafNode().values().toList();
+		PointQuadTree<PackedPointValue,PackedPointPartition> loaded
+						= PointQuadTree.bulkLoad(TestPointQuadTrees.BOUNDS, values, PackedPointPartition.supplier(64));
+		
+		PointQuadTree<PackedPointValue,PackedPointPartition> wrapped = new PointQuadTree<>(loaded.getRootNode());
+		assertEquals(0, wrapped.getRootNode().getQuadKey());
+		assertEquals(values.size(), wrapped.getRootNode().getValueCount());
+	}
+	
+	@Test
+	public void testMortonKeyOrder() throws Exception {
+		PointQuadTree<PackedPointValue,PackedPointPartition> tree = TestPointQuadTrees.newTree(16, 5000, 7);
+		List<PointLeafNode<PackedPointValue,PackedPointPartition>> leaves = tree.streamLeafNodes().toList();
+		
+		// 단말노드들의 quad-key 구간은 겹치지 않고 전체 quad-key 공간을 순서대로 채워야 한다.
+		assertEquals(0, leaves.get(0).getQuadKey());
+		assertEquals(LAST_KEY, leaves.get(leaves.size()-1).getLastQuadKey());
+		for ( int i = 1; i < leaves.size(); ++i ) {
+			assertEquals(leaves.get(i-1).getLastQuadKey() + 1, leaves.get(i).getQuadKey());
+		}
+		
+		// quad-key는 노드 영역의 사분면 경로(SW=0, SE=1, NW=2, NE=3)를 상위 비트부터 채운 값이어야 한다.
+		for ( PointLeafNode<PackedPointValue,PackedPointPartition> leaf: leaves ) {
+			assertEquals(leaf.toString(), toMortonKey(leaf.getBounds(), leaf.getLevel()), leaf.getQuadKey());
+		}
+	}
+	
+	@Test
+	public void testScanRangeBoundaries() throws Exception {
+		PointQuadTree<PackedPointValue,PackedPointPartition> tree = TestPointQuadTrees.newTree(16, 5000, 9);
+		List<PointLeafNode<PackedPointValue,PackedPointPartition>> leaves = tree.streamLeafNodes().toList();
+		assertTrue(leaves.size() > 10);
+		
+		int idx = leaves.size() / 2;
+		PointLeafNode<PackedPointValue,PackedPointPartition> prev = leaves.get(idx-1);
+		PointLeafNode<PackedPointValue,PackedPointPartition> leaf = leaves.get(idx);
+		PointLeafNode<PackedPointValue,PackedPointPartition> next = leaves.get(idx+1);
+		
+		// 시작 quad-key와 종료 quad-key는 모두 범위에 포함된다.
+		assertEquals(Lists.newArrayList(leaf), tree.scanRange(leaf.getQuadKey(), leaf.getQuadKey()).toList());
+		assertEquals(Lists.newArrayList(leaf), tree.scanRange(leaf.getQuadKey(), leaf.getLastQuadKey()).toList());
+		assertEquals(Lists.newArrayList(leaf, next), tree.scanRange(leaf.getQuadKey(), next.getQuadKey()).toList());
+		assertEquals(Lists.newArrayList(leaf), tree.scanRange(leaf.getQuadKey(), next.getQuadKey()-1).toList());
+		
+		// 시작 quad-key가 단말노드의 quad-key 구간 중간에 있는 경우는 해당 단말노드부터 반환된다.
+		assertEquals(Lists.newArrayList(leaf), tree.scanRange(leaf.getLastQuadKey(), leaf.getLastQuadKey()).toList());
+		assertEquals(Lists.newArrayList(prev, leaf), tree.scanRange(prev.getLastQuadKey(), leaf.getQuadKey()).toList());
+		assertEquals(Lists.newArrayList(leaf), tree.scanRange(prev.getLastQuadKey() + 1, leaf.getQuadKey()).toList());
+		
+		// 전체 구간
+		assertEquals(leaves, tree.scanRange(0, LAST_KEY).toList());
+		assertEquals(leaves, tree.scanRange(0, Long.MAX_VALUE).toList());
+		assertEquals(Lists.newArrayList(leaves.get(leaves.size()-1)), tree.scanRange(LAST_KEY, LAST_KEY).toList());
+		
+		checkRandomScans(tree, 11);
+		
+		try {
+			tree.scanRange(leaf.getQuadKey(), leaf.getQuadKey() - 1);
+			fail("reversed range should be rejected");
+		}
+		catch ( IllegalArgumentException expected ) { }
+		try {
+			tree.scanRange(-1, 0);
+			fail("negative quad-key should be rejected");
+		}
+		catch ( IllegalArgumentException expected ) { }
+	}
+	
+	@Test
+	public void testScanRangeBelowMaxLevel() throws Exception {
+		// 최대 quad-key 레벨보다 깊게 분할되도록 매우 가까운 point들을 삽입한다.
+		PointQuadTree<PackedPointValue,PackedPointPartition> tree
+					= new PointQuadTree<>(TestPointQuadTrees.BOUNDS, PackedPointPartition.supplier(2));
+		for ( PackedPointValue value: TestPointQuadTrees.randomValues(200, 13) ) {
+			tree.insert(value);
+		}
+		for ( int i = 0; i < 8; ++i ) {
+			double v = 30.3 + i * 1e-9;
+			tree.insert(new PackedPointValue(1000 + i, v, v));
+		}
+		
+		List<PointLeafNode<PackedPointValue,PackedPointPartition>> leaves = tree.streamLeafNodes().toList();
+		PointLeafNode<PackedPointValue,PackedPointPartition> deep
+					= leaves.stream().filter(leaf -> leaf.getLevel() > PointNode.MAX_QUAD_KEY_LEVEL)
+								.findFirst().orElse(null);
+		assertTrue(deep != null);
+		
+		// 최대 레벨보다 깊은 단말노드들은 최대 레벨 조상 노드의 quad-key를 공유한다.
+		for ( int i = 1; i < leaves.size(); ++i ) {
+			assertTrue(leaves.get(i-1).getQuadKey() <= leaves.get(i).getQuadKey());
+		}
+		for ( PointLeafNode<PackedPointValue,PackedPointPartition> leaf: leaves ) {
+			if ( leaf.getLevel() >= PointNode.MAX_QUAD_KEY_LEVEL ) {
+				assertEquals(leaf.getQuadKey(), leaf.getLastQuadKey());
+			}
+		}
+		
+		// 공유된 quad-key로 검색하면 해당 quad-key를 갖는 모든 단말노드들이 반환되어야 한다.
+		long key = deep.getQuadKey();
+		List<PointLeafNode<PackedPointValue,PackedPointPartition>> sharing
+					= FStream.from(leaves).filter(leaf -> leaf.getQuadKey() == key).toList();
+		assertTrue(sharing.size() > 1);
+		assertEquals(sharing, tree.scanRange(key, key).toList());
+		assertEquals(8, FStream.from(sharing).flatMap(PointLeafNode::values)
+								.filter(v -> v.getId() >= 1000).count());
+		
+		checkRandomScans(tree, 17);
+	}
+	
+	/**
+	 * 임의의 quad-key 범위에 대한 {@link PointQuadTree#scanRange(long, long)} 결과를
+	 * 단말 노드 체인 전체를 검사하여 구한 결과와 비교한다.
+	 */
+	private static void checkRandomScans(PointQuadTree<PackedPointValue,PackedPointPartition> tree, long seed) {
+		List<PointLeafNode<PackedPointValue,PackedPointPartition>> leaves = tree.streamLeafNodes().toList();
+		Random rand = new Random(seed);
+		for ( int i = 0; i < 500; ++i ) {
+			long k1 = (i % 2 == 0) ? randomKey(rand) : leaves.get(rand.nextInt(leaves.size())).getQuadKey();
+			long k2 = randomKey(rand);
+			long from = Math.min(k1, k2);
+			long to = Math.max(k1, k2);
+			
+			List<PointLeafNode<PackedPointValue,PackedPointPartition>> expected
+						= FStream.from(leaves)
+								.filter(leaf -> leaf.getLastQuadKey() >= from && leaf.getQuadKey() <= to)
+								.toList();
+			assertEquals("from=" + from + ", to=" + to, expected, tree.scanRange(from, to).toList());
+		}
+	}
+	
+	private static long randomKey(Random rand) {
+		return rand.nextLong() & LAST_KEY;
+	}
+	
+	/**
+	 * 주어진 영역을 포함하는 주어진 레벨의 타일에 대한 quad-key를 최상위 영역부터 중심점을 기준으로
+	 * 분할하면서 계산한다.
+	 */
+	private static long toMortonKey(Envelope bounds, int level) {
+		double x = bounds.centre().x;
+		double y = bounds.centre().y;
+		Envelope tile = new Envelope(TestPointQuadTrees.BOUNDS);
+		
+		long key = 0;
+		for ( int lv = 0; lv < Math.min(level, PointNode.MAX_QUAD_KEY_LEVEL); ++lv ) {
+			double midX = tile.getMinX() + tile.getWidth()/2;
+			double midY = tile.getMinY() + tile.getHeight()/2;
+			int quad = ((x >= midX) ? 1 : 0) + ((y >= midY) ? 2 : 0);
+			key |= (long)quad << (2 * (PointNode.MAX_QUAD_KEY_LEVEL - lv - 1));
+			
+			tile = new Envelope((x >= midX) ? midX : tile.getMinX(), (x >= midX) ? tile.getMaxX() : midX,
+								(y >= midY) ? midY : tile.getMinY(), (y >= midY) ? tile.getMaxY() : midY);
+		}
+		
+		return key;
+	}
+	
+	private static List<Long> collectQuadKeys(PointQuadTree<PackedPointValue,PackedPointPartition> tree) {
+		List<Long> keys = Lists.newArrayList();
+		for ( PointLeafNode<PackedPointValue,PackedPointPartition> leaf = tree.getFirstLeafNode();
+				leaf != null; leaf = leaf.getNextLeafNode() ) {
+			keys.add(leaf.getQuadKey());
+		}
+		
+		return keys;
+	}
+	}
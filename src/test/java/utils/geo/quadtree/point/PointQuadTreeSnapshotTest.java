@@ -0,0 +1,114 @@
+package utils.geo.quadtree.point;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.locationtech.jts.geom.Envelope;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class PointQuadTreeSnapshotTest {
+	@Test
+	public void testSnapshotDuringInsertion() throws Exception {
+		PointQuadTree<PackedPointValue,PackedPointPartition> tree
+						= new PointQuadTree<>(TestPointQuadTrees.BOUNDS, PackedPointPartition.supplier(32));
+		final int count = 50000;
+		
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		Thread writer = new Thread(() -> {
+			try {
+				Random rand = new Random(7);
+				for ( int i = 0; i < count; ++i ) {
+					PackedPointValue value = new PackedPointValue(i, rand.nextDouble() * 100,
+																	rand.nextDouble() * 100);
+					tree.insert(value);
+					if ( i % 10 == 0 ) {
+						assertTrue(tree.update(value, new PackedPointValue(i, rand.nextDouble() * 100,
+																		rand.nextDouble() * 100)));
+					}
+				}
+			}
+			catch ( Throwable e ) {
+				failure.set(e);
+			}
+		});
+		writer.start();
+		
+		// 삽입이 진행되는 동안 다른 쓰레드에서 생성한 snapshot들은 생성 이후 변경되지 않아야 한다.
+		List<PointQuadTreeSnapshot<PackedPointValue,PackedPointPartition>> snapshots = Lists.newArrayList();
+		List<Long> counts = Lists.newArrayList();
+		while ( writer.isAlive() ) {
+			PointQuadTreeSnapshot<PackedPointValue,PackedPointPartition> snapshot = tree.snapshot();
+			snapshots.add(snapshot);
+			counts.add(snapshot.streamValues().count());
+		}
+		writer.join();
+		if ( failure.get() != null ) {
+			throw new AssertionError(failure.get());
+		}
+		
+		assertTrue(snapshots.size() > 1);
+		for ( int i = 0; i < snapshots.size(); ++i ) {
+			PointQuadTreeSnapshot<PackedPointValue,PackedPointPartition> snapshot = snapshots.get(i);
+			long nvalues = snapshot.streamValues().count();
+			assertEquals((long)counts.get(i), nvalues);
+			assertEquals(nvalues, snapshot.getValueCount());
+		}
+		assertEquals(count, tree.streamValues().count());
+	}
+	
+	@Test
+	public void testQueryAfterUpdates() throws Exception {
+		PointQuadTree<PackedPointValue,PackedPointPartition> tree = TestPointQuadTrees.newTree(16, 5000, 31);
+		PointQuadTreeSnapshot<PackedPointValue,PackedPointPartition> snapshot = tree.snapshot();
+		List<PackedPointValue> values = tree.streamValues().toList();
+		
+		// snapshot 생성 이후 데이터를 삭제/이동시켜 원본 QuadTree의 노드들이 분할/병합되도록 한다.
+		Random rand = new Random(37);
+		for ( int i = 0; i < values.size(); ++i ) {
+			PackedPointValue value = values.get(i);
+			if ( i % 2 == 0 ) {
+				assertTrue(tree.remove(value));
+			}
+			else {
+				assertTrue(tree.update(value, new PackedPointValue(value.getId(), rand.nextDouble() * 10,
+																	rand.nextDouble() * 10)));
+			}
+		}
+		
+		long total = 0;
+		for ( PackedPointPartition partition: snapshot.streamPartitions().toList() ) {
+			total += partition.size();
+		}
+		assertEquals(values.size(), total);
+		for ( int i = 0; i < 200; ++i ) {
+			double x = rand.nextDouble() * 100;
+			double y = rand.nextDouble() * 100;
+			double size = rand.nextDouble() * 30;
+			Envelope key = new Envelope(x, x + size, y, y + size);
+			
+			Set<PackedPointValue> expected = Sets.newHashSet();
+			for ( PackedPointValue value: values ) {
+				if ( key.intersects(value.getCoordinate()) ) {
+					expected.add(value);
+				}
+			}
+			
+			List<PackedPointValue> founds = snapshot.query(key).toList();
+			assertEquals(founds.size(), Sets.newHashSet(founds).size());
+			assertEquals(expected, Sets.newHashSet(founds));
+			assertEquals(expected.size(), snapshot.count(key));
+		}
+	}
+}
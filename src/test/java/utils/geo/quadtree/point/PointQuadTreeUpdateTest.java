@@ -0,0 +1,194 @@
+package utils.geo.quadtree.point;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+import org.locationtech.jts.geom.Envelope;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import utils.geo.quadtree.TooBigValueException;
+
+/**
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class PointQuadTreeUpdateTest {
+	private static final int CAPACITY = 16;
+	
+	@Test
+	public void testRandomInsertRemoveUpdate() throws TooBigValueException {
+		PointQuadTree<PackedPointValue,PackedPointPartition> tree
+				= new PointQuadTree<>(TestPointQuadTrees.BOUNDS, PackedPointPartition.supplier(CAPACITY));
+		
+		Random rand = new Random(17);
+		List<PackedPointValue> live = Lists.newArrayList();
+		long nextId = 0;
+		for ( int i = 0; i < 30000; ++i ) {
+			int op = rand.nextInt(10);
+			if ( op < 5 || live.isEmpty() ) {
+				PackedPointValue value = newValue(nextId++, rand);
+				tree.insert(value);
+				live.add(value);
+			}
+			else if ( op < 8 ) {
+				PackedPointValue value = live.remove(rand.nextInt(live.size()));
+				assertTrue(tree.remove(value));
+				assertFalse(tree.remove(value));
+			}
+			else {
+				int idx = rand.nextInt(live.size());
+				PackedPointValue old = live.get(idx);
+				PackedPointValue moved = newValue(old.getId(), rand);
+				assertTrue(tree.update(old, moved));
+				live.set(idx, moved);
+			}
+			
+			if ( i % 1000 == 999 ) {
+				checkTree(tree, live);
+			}
+		}
+		checkTree(tree, live);
+		
+		// 대부분의 데이터를 삭제하면 병합에 의해 단말노드 수가 줄어야 한다.
+		long leafCount = tree.streamLeafNodes().count();
+		while ( live.size() > 50 ) {
+			assertTrue(tree.remove(live.remove(rand.nextInt(live.size()))));
+			if ( live.size() % 500 == 0 ) {
+				checkTree(tree, live);
+			}
+		}
+		checkTree(tree, live);
+		assertTrue(tree.streamLeafNodes().count() < leafCount);
+		
+		// 모든 데이터가 삭제되면 하나의 단말노드만 남는다.
+		while ( !live.isEmpty() ) {
+			assertTrue(tree.remove(live.remove(live.size() - 1)));
+		}
+		checkTree(tree, live);
+		assertTrue(tree.getRootNode() instanceof PointLeafNode);
+		assertEquals(0, tree.getRootNode().getValueCount());
+	}
+	
+	@Test
+	public void testUpdateMissingValue() throws TooBigValueException {
+		PointQuadTree<PackedPointValue,PackedPointPartition> tree = TestPointQuadTrees.newTree(CAPACITY, 1000, 23);
+		PackedPointValue missing = new PackedPointValue(5000, 50, 50);
+		PackedPointValue moved = new PackedPointValue(5000, 10, 10);
+		
+		assertFalse(tree.remove(missing));
+		assertFalse(tree.update(missing, moved));
+		assertFalse(tree.streamValues().toList().contains(moved));
+		assertEquals(1000, tree.getRootNode().getValueCount());
+	}
+	
+	@Test
+	public void testUpdateOutOfBounds() throws TooBigValueException {
+		PointQuadTree<PackedPointValue,PackedPointPartition> tree = TestPointQuadTrees.newTree(CAPACITY, 1000, 29);
+		PackedPointValue old = tree.streamValues().toList().get(500);
+		PackedPointValue moved = new PackedPointValue(old.getId(), 150, 50);
+		
+		try {
+			tree.update(old, moved);
+			fail("out-of-bounds value should be rejected");
+		}
+		catch ( IllegalArgumentException expected ) { }
+		
+		// 기존 데이터는 삭제되지 않아야 한다.
+		List<PackedPointValue> values = tree.streamValues().toList();
+		assertEquals(1000, values.size());
+		assertTrue(values.contains(old));
+		assertFalse(values.contains(moved));
+		assertEquals(1, tree.query(new Envelope(old.getCoordinate())).filter(old::equals).count());
+	}
+	
+	private static PackedPointValue newValue(long id, Random rand) {
+		// 일부 데이터는 영역 경계나 동일 좌표에 위치하도록 하여 MBR 경계에서의 삭제를 자주 발생시킨다.
+		double x = (rand.nextInt(10) == 0) ? rand.nextInt(4) * 25 : rand.nextDouble() * 100;
+		double y = (rand.nextInt(10) == 0) ? rand.nextInt(4) * 25 : rand.nextDouble() * 100;
+		return new PackedPointValue(id, x, y);
+	}
+	
+	private static void checkTree(PointQuadTree<PackedPointValue,PackedPointPartition> tree,
+									List<PackedPointValue> live) {
+		PointNode<PackedPointValue,PackedPointPartition> root = tree.getRootNode();
+		
+		List<PointLeafNode<PackedPointValue,PackedPointPartition>> leaves = Lists.newArrayList();
+		Stats stats = checkNode(root, leaves);
+		assertEquals(live.size(), stats.m_count);
+		assertEquals(stats.m_depth, tree.getDepth());
+		assertEquals(Sets.newHashSet(live), toSet(tree.streamValues().toList()));
+		
+		// 단말 노드 체인은 깊이 우선 순회로 얻은 단말노드들과 동일한 순서로 연결되어야 한다.
+		assertSame(leaves.get(0), tree.getFirstLeafNode());
+		assertSame(leaves.get(leaves.size()-1), tree.getLastLeafNode());
+		assertNull(leaves.get(0).getPreviousLeafNode());
+		assertNull(leaves.get(leaves.size()-1).getNextLeafNode());
+		for ( int i = 1; i < leaves.size(); ++i ) {
+			assertSame(leaves.get(i), leaves.get(i-1).getNextLeafNode());
+			assertSame(leaves.get(i-1), leaves.get(i).getPreviousLeafNode());
+		}
+		assertEquals(leaves, tree.streamLeafNodes().toList());
+	}
+	
+	private static Stats checkNode(PointNode<PackedPointValue,PackedPointPartition> node,
+									List<PointLeafNode<PackedPointValue,PackedPointPartition>> leaves) {
+		if ( node instanceof PointLeafNode ) {
+			PointLeafNode<PackedPointValue,PackedPointPartition> leaf
+											= (PointLeafNode<PackedPointValue,PackedPointPartition>)node;
+			leaves.add(leaf);
+			
+			Stats stats = new Stats();
+			for ( PackedPointValue value: leaf.values().toList() ) {
+				assertTrue(leaf.getBounds().intersects(value.getCoordinate()));
+				++stats.m_count;
+				stats.m_dataBounds.expandToInclude(value.getCoordinate());
+			}
+			stats.m_depth = 1;
+			assertEquals(stats.m_count, leaf.getValueCount());
+			
+			return stats;
+		}
+		
+		PointNonLeafNode<PackedPointValue,PackedPointPartition> nonLeaf
+										= (PointNonLeafNode<PackedPointValue,PackedPointPartition>)node;
+		Stats stats = new Stats();
+		for ( PointNode<PackedPointValue,PackedPointPartition> child: nonLeaf.getChildrenNode() ) {
+			Stats childStats = checkNode(child, leaves);
+			stats.m_count += childStats.m_count;
+			stats.m_depth = Math.max(stats.m_depth, childStats.m_depth);
+			stats.m_dataBounds.expandToInclude(childStats.m_dataBounds);
+		}
+		stats.m_depth += 1;
+		
+		// 캐쉬된 통계 정보는 하위 트리를 모두 순회하여 다시 계산한 값과 같아야 한다.
+		assertEquals(stats.m_count, nonLeaf.getValueCount());
+		assertEquals(stats.m_depth, nonLeaf.getDepth());
+		assertEquals(stats.m_dataBounds, nonLeaf.getDataBounds());
+		
+		return stats;
+	}
+	
+	private static Set<PackedPointValue> toSet(List<PackedPointValue> values) {
+		Set<PackedPointValue> set = Sets.newHashSet(values);
+		assertEquals(values.size(), set.size());
+		
+		return set;
+	}
+	
+	private static final class Stats {
+		private int m_count = 0;
+		private int m_depth = 0;
+		private final Envelope m_dataBounds = new Envelope();
+	}
+}
@@ -0,0 +1,51 @@
+package utils.geo.quadtree.point;
+
+import java.util.List;
+import java.util.Random;
+
+import org.locationtech.jts.geom.Envelope;
+
+import com.google.common.collect.Lists;
+
+import utils.geo.quadtree.TooBigValueException;
+
+/**
+ * 테스트용 {@link PointQuadTree}와 point 데이터를 생성한다.
+ * <p>
+ * 생성되는 모든 point의 좌표는 {@link #BOUNDS} 영역에 포함된다.
+ * 
+ * @author Kang-Woo Lee (ETRI)
+ */
+final class TestPointQuadTrees {
+	static final Envelope BOUNDS = new Envelope(0, 100, 0, 100);
+	
+	private TestPointQuadTrees() {
+		throw new AssertionError("Should not be called: class=" + TestPointQuadTrees.class);
+	}
+	
+	static List<PackedPointValue> randomValues(int count, long seed) {
+		Random rand = new Random(seed);
+		List<PackedPointValue> values = Lists.newArrayListWithCapacity(count);
+		for ( int i = 0; i < count; ++i ) {
+			values.add(new PackedPointValue(i, rand.nextDouble() * 100, rand.nextDouble() * 100));
+		}
+		
+		return values;
+	}
+	
+	static PointQuadTree<PackedPointValue,PackedPointPartition>
+	newTree(int capacity, int count, long seed) throws TooBigValueException {
+		return newTree(capacity, count, seed, SplitStrategy.MIDPOINT);
+	}
+	
+	static PointQuadTree<PackedPointValue,PackedPointPartition>
+	newTree(int capacity, int count, long seed, SplitStrategy strategy) throws TooBigValueException {
+		PointQuadTree<PackedPointValue,PackedPointPartition> tree
+						= new PointQuadTree<>(BOUNDS, PackedPointPartition.supplier(capacity), strategy);
+		for ( PackedPointValue value: randomValues(count, seed) ) {
+			tree.insert(value);
+		}
+		
+		return tree;
+	}
+}